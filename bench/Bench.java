@@ -0,0 +1,92 @@
+package bench;
+
+import graph.GraphBuilder;
+
+import java.util.Random;
+
+/**
+ * Utilities shared by the benchmarks: test graph generation, timing,
+ * and heap measurement.
+ *
+ * @author John Schulz
+ */
+class Bench {
+
+    /**
+     * Returns a builder holding a random graph with N vertices and about
+     * M edges, directed iff DIRECTED.  Like road and dependency graphs,
+     * most edges join vertices whose numbers are close (within SPAN);
+     * one in eight joins random vertices.  The graph is generated from
+     * SEED, so it is the same on every run.
+     */
+    static GraphBuilder<Void, Void> localGraph(boolean directed, int n,
+                                               int m, int span, long seed) {
+        GraphBuilder<Void, Void> result = new GraphBuilder<>(directed);
+        result.addVertices(n);
+        Random r = new Random(seed);
+        int[] sources = new int[m], targets = new int[m];
+        for (int i = 0; i < m; i += 1) {
+            int u = 1 + r.nextInt(n);
+            sources[i] = u;
+            if (r.nextInt(8) == 0) {
+                targets[i] = 1 + r.nextInt(n);
+            } else {
+                targets[i] = 1 + Math.floorMod(u + r.nextInt(2 * span) - span,
+                                               n);
+            }
+        }
+        result.add(sources, targets);
+        return result;
+    }
+
+    /**
+     * Returns the approximate number of bytes of heap now in use by
+     * reachable objects.
+     */
+    static long usedMemory() {
+        Runtime rt = Runtime.getRuntime();
+        long result = Long.MAX_VALUE;
+        for (int i = 0; i < GC_ROUNDS; i += 1) {
+            System.gc();
+            result = Math.min(result, rt.totalMemory() - rt.freeMemory());
+        }
+        return result;
+    }
+
+    /**
+     * Runs BODY WARMUP times to let the compiler do its work, and then
+     * REPS times more, returning the smallest time taken by one run, in
+     * seconds.
+     */
+    static double time(Runnable body, int warmup, int reps) {
+        for (int i = 0; i < warmup; i += 1) {
+            body.run();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < reps; i += 1) {
+            long start = System.nanoTime();
+            body.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best * 1e-9;
+    }
+
+    /**
+     * Returns the integer value of ARGS[K], or DFLT if there are not
+     * that many arguments.
+     */
+    static int intArg(String[] args, int k, int dflt) {
+        return k < args.length ? Integer.parseInt(args[k]) : dflt;
+    }
+
+    /**
+     * Accumulates results that must be computed, so that the compiler
+     * cannot discard timed work as useless.
+     */
+    static volatile long sink;
+
+    /**
+     * Number of collections made when measuring the heap.
+     */
+    private static final int GC_ROUNDS = 3;
+}
@@ -0,0 +1,181 @@
+package bench;
+
+import graph.CompactGraph;
+import graph.DirectionOptimizingTraversal;
+import graph.DirectionOptimizingTraversal.Direction;
+import graph.Graph;
+
+import java.util.Arrays;
+
+/**
+ * Shows where bottom-up breadth-first search overtakes top-down.  It
+ * builds a large random directed graph, which (like many dependency
+ * graphs) has small diameter, and searches it from vertex 1 three ways:
+ * with every level expanded top-down, with every level expanded
+ * bottom-up, and with DirectionOptimizingTraversal choosing.  For each
+ * level it reports the frontier's size and out-edges, the time taken
+ * by each direction, and the direction the heuristic chose; it then
+ * reports the total for each way.
+ * Usage:
+ *     java bench.DirectionBenchmark [VERTICES [EDGES]]
+ *
+ * @author John Schulz
+ */
+public class DirectionBenchmark {
+
+    /**
+     * Run the benchmark, with sizes optionally given by ARGS.
+     */
+    public static void main(String[] args) {
+        int n = Bench.intArg(args, 0, DEFAULT_VERTICES);
+        int m = Bench.intArg(args, 1, DEFAULT_EDGES);
+        CompactGraph g = Bench.localGraph(true, n, m, n / 2, SEED)
+            .buildCompact();
+        System.out.printf("Directed random graph, %d vertices, %d edges%n",
+                          n, g.edgeSize());
+        Levels topDown = best(g, Direction.TOP_DOWN);
+        Levels bottomUp = best(g, Direction.BOTTOM_UP);
+        Levels hybrid = best(g, null);
+        System.out.printf("%5s %10s %14s %12s %12s  %s%n", "depth",
+                          "frontier", "frontier edges", "top-down ms",
+                          "bottom-up ms", "chosen");
+        for (int k = 0; k < hybrid._count; k += 1) {
+            System.out.printf("%5d %10d %14d %12.2f %12.2f  %s%n", k + 1,
+                              hybrid._sizes[k], hybrid._edges[k],
+                              topDown._times[k] * 1e-6,
+                              bottomUp._times[k] * 1e-6,
+                              hybrid._chosen[k]);
+        }
+        System.out.printf("%-22s %10.1f ms%n", "all top-down",
+                          topDown._total * 1e-6);
+        System.out.printf("%-22s %10.1f ms%n", "all bottom-up",
+                          bottomUp._total * 1e-6);
+        System.out.printf("%-22s %10.1f ms%n", "direction-optimizing",
+                          hybrid._total * 1e-6);
+    }
+
+    /**
+     * Returns the per-level record of the fastest of several searches of
+     * G from vertex 1, each taking direction FORCED at every level, or
+     * if FORCED is null, the direction chosen by the heuristic.  Each
+     * level's time is the least over the searches.
+     */
+    private static Levels best(Graph g, Direction forced) {
+        Levels result = null;
+        for (int i = 0; i < WARMUP + REPS; i += 1) {
+            Levels levels = new Levels(g, forced);
+            levels.clear();
+            long start = System.nanoTime();
+            levels.traverse(1);
+            levels.finish(start);
+            if (i < WARMUP) {
+                continue;
+            }
+            if (result == null) {
+                result = levels;
+            } else {
+                for (int k = 0; k < result._count; k += 1) {
+                    result._times[k] = Math.min(result._times[k],
+                                                levels._times[k]);
+                }
+                result._total = Math.min(result._total, levels._total);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A DirectionOptimizingTraversal that records, for each level, the
+     * frontier, the direction taken, and the time taken.
+     */
+    private static class Levels extends DirectionOptimizingTraversal {
+        /**
+         * A traversal of G that always takes direction FORCED, or if
+         * FORCED is null, the one the heuristic chooses.
+         */
+        Levels(Graph g, Direction forced) {
+            super(g);
+            _forced = forced;
+        }
+
+        @Override
+        protected Direction direction(int depth, int frontierSize,
+                                      long frontierEdges, int lastSize,
+                                      Direction previous) {
+            Direction result = _forced != null ? _forced
+                : super.direction(depth, frontierSize, frontierEdges,
+                                  lastSize, previous);
+            if (_count == _sizes.length) {
+                int n = 2 * _count;
+                _starts = Arrays.copyOf(_starts, n);
+                _sizes = Arrays.copyOf(_sizes, n);
+                _edges = Arrays.copyOf(_edges, n);
+                _chosen = Arrays.copyOf(_chosen, n);
+            }
+            _sizes[_count] = frontierSize;
+            _edges[_count] = frontierEdges;
+            _chosen[_count] = result;
+            _starts[_count] = System.nanoTime();
+            _count += 1;
+            return result;
+        }
+
+        /**
+         * Compute the level times and total, for a search that began at
+         * time START and has just ended.
+         */
+        void finish(long start) {
+            long end = System.nanoTime();
+            _total = end - start;
+            _times = new long[_count];
+            for (int k = 0; k < _count; k += 1) {
+                _times[k] = (k + 1 < _count ? _starts[k + 1] : end)
+                    - _starts[k];
+            }
+        }
+
+        /**
+         * The direction to take at every level, or null.
+         */
+        private final Direction _forced;
+        /**
+         * The number of levels expanded.
+         */
+        private int _count;
+        /**
+         * Per level: the time (ns) at which it began, and the number of
+         * edges leaving its frontier.
+         */
+        private long[] _starts = new long[16], _edges = new long[16];
+        /**
+         * Per level: the frontier's size.
+         */
+        private int[] _sizes = new int[16];
+        /**
+         * Per level: the direction taken.
+         */
+        private Direction[] _chosen = new Direction[16];
+        /**
+         * Per level: the time (ns) taken, set by finish.
+         */
+        private long[] _times;
+        /**
+         * The time (ns) taken by the whole search, set by finish.
+         */
+        private long _total;
+    }
+
+    /**
+     * Default problem sizes.
+     */
+    private static final int DEFAULT_VERTICES = 1 << 20,
+        DEFAULT_EDGES = 16 << 20;
+    /**
+     * Random seed for the test graph.
+     */
+    private static final long SEED = 47;
+    /**
+     * Untimed and timed runs of each search.
+     */
+    private static final int WARMUP = 2, REPS = 3;
+}
@@ -0,0 +1,143 @@
+package bench;
+
+import graph.BreadthFirstTraversal;
+import graph.CompactGraph;
+import graph.EdgeCursor;
+import graph.Graph;
+import graph.GraphBuilder;
+import graph.IntIteration;
+import graph.Reordering;
+
+import java.util.Random;
+
+/**
+ * Measures the effect of vertex reordering on traversal speed.  It
+ * builds a large sparse graph with good locality, scrambles its vertex
+ * numbers (as insertion order typically does), and then times, for the
+ * scrambled graph and for each Reordering.Order applied to it, a full
+ * breadth-first Traversal and a "gather" pass that sums a per-vertex
+ * value over every edge, the access pattern of PageRank-like
+ * computations.  Each graph is timed as a CompactGraph, whose rows are
+ * laid out in vertex order, so that only the numbering differs.
+ * Usage:
+ *     java bench.ReorderBenchmark [VERTICES [EDGES]]
+ *
+ * @author John Schulz
+ */
+public class ReorderBenchmark {
+
+    /**
+     * Run the benchmark, with sizes optionally given by ARGS.
+     */
+    public static void main(String[] args) {
+        int n = Bench.intArg(args, 0, DEFAULT_VERTICES);
+        int m = Bench.intArg(args, 1, DEFAULT_EDGES);
+        Graph scrambled = scramble(
+            Bench.localGraph(false, n, m, SPAN, SEED).buildCompact());
+        System.out.printf("Undirected graph, %d vertices, %d edges%n",
+                          n, scrambled.edgeSize());
+        System.out.printf("%-12s %12s %14s %14s%n", "order",
+                          "reorder ms", "traversal ms", "gather ms");
+        report("scrambled", new CompactGraph(scrambled), 0);
+        for (Reordering.Order order : Reordering.Order.values()) {
+            long start = System.nanoTime();
+            Reordering r = new Reordering(scrambled, order);
+            Graph g = r.apply(scrambled);
+            double secs = (System.nanoTime() - start) * 1e-9;
+            report(order.toString(), new CompactGraph(g), secs);
+        }
+    }
+
+    /**
+     * Print the times to traverse and gather over G, labeled NAME, where
+     * producing G took REORDERSECS seconds.
+     */
+    private static void report(String name, Graph g, double reorderSecs) {
+        double traverse = Bench.time(() -> traverse(g), WARMUP, REPS);
+        double[] values = new double[g.maxVertex() + 1];
+        for (int v = 1; v < values.length; v += 1) {
+            values[v] = v;
+        }
+        double gather = Bench.time(() -> gather(g, values), WARMUP, REPS);
+        System.out.printf("%-12s %12.0f %14.1f %14.1f%n", name,
+                          reorderSecs * 1e3, traverse * 1e3, gather * 1e3);
+    }
+
+    /**
+     * Traverse all of G breadth first.
+     */
+    private static void traverse(Graph g) {
+        boolean[] seen = new boolean[g.maxVertex() + 1];
+        BreadthFirstTraversal t = new BreadthFirstTraversal(g) {
+            @Override
+            protected boolean visit(int v) {
+                seen[v] = true;
+                return true;
+            }
+        };
+        IntIteration vertices = g.intVertices();
+        while (vertices.hasNext()) {
+            int v = vertices.nextInt();
+            if (!seen[v]) {
+                t.traverse(v);
+            }
+        }
+    }
+
+    /**
+     * Sum VALUES[W] over the successors W of each vertex of G.
+     */
+    private static void gather(Graph g, double[] values) {
+        double sum = 0;
+        IntIteration vertices = g.intVertices();
+        while (vertices.hasNext()) {
+            IntIteration succ = g.intSuccessors(vertices.nextInt());
+            while (succ.hasNext()) {
+                sum += values[succ.nextInt()];
+            }
+        }
+        Bench.sink += (long) sum;
+    }
+
+    /**
+     * Returns a copy of G with its vertices numbered in random order.
+     */
+    private static Graph scramble(CompactGraph g) {
+        int n = g.vertexSize();
+        int[] perm = new int[n + 1];
+        for (int v = 1; v <= n; v += 1) {
+            perm[v] = v;
+        }
+        Random r = new Random(SEED);
+        for (int v = n; v > 1; v -= 1) {
+            int k = 1 + r.nextInt(v), t = perm[v];
+            perm[v] = perm[k];
+            perm[k] = t;
+        }
+        GraphBuilder<Void, Void> b = new GraphBuilder<>(g.isDirected());
+        b.addVertices(n);
+        EdgeCursor e = g.edgeCursor();
+        while (e.next()) {
+            b.add(perm[e.source()], perm[e.target()]);
+        }
+        return b.build();
+    }
+
+    /**
+     * Default problem sizes.
+     */
+    private static final int DEFAULT_VERTICES = 1 << 20,
+        DEFAULT_EDGES = 4 << 20;
+    /**
+     * Range of most edges' ends about their sources.
+     */
+    private static final int SPAN = 16;
+    /**
+     * Random seed for the test graph.
+     */
+    private static final long SEED = 43;
+    /**
+     * Untimed and timed runs of each measurement.
+     */
+    private static final int WARMUP = 2, REPS = 3;
+}
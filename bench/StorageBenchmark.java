@@ -0,0 +1,79 @@
+package bench;
+
+import graph.Graph;
+import graph.GraphBuilder;
+import graph.IntIteration;
+import graph.Storage;
+
+/**
+ * Compares the adjacency storage modes of DirectedGraph: heap bytes per
+ * edge, and the rate at which all successor lists can be scanned.
+ * Usage:
+ *     java bench.StorageBenchmark [VERTICES [EDGES]]
+ *
+ * @author John Schulz
+ */
+public class StorageBenchmark {
+
+    /**
+     * Run the benchmark, with sizes optionally given by ARGS.
+     */
+    public static void main(String[] args) {
+        int n = Bench.intArg(args, 0, DEFAULT_VERTICES);
+        int m = Bench.intArg(args, 1, DEFAULT_EDGES);
+        GraphBuilder<Void, Void> builder =
+            Bench.localGraph(true, n, m, SPAN, SEED);
+        // Have the builder sort its edges now, so that the space it uses
+        // to do so is not charged to the first graph below.
+        builder.buildCompact();
+        System.out.printf("Directed graph, %d vertices, %d edges%n", n, m);
+        System.out.printf("%-12s %14s %18s%n",
+                          "storage", "bytes/edge", "edges scanned/s");
+        for (Storage storage : Storage.values()) {
+            if (storage == Storage.MATRIX && n > Storage.MATRIX_LIMIT) {
+                System.out.printf("%-12s %14s%n", storage, "(too large)");
+                continue;
+            }
+            long before = Bench.usedMemory();
+            Graph g = builder.build(storage);
+            long bytes = Bench.usedMemory() - before;
+            double secs = Bench.time(() -> scan(g), WARMUP, REPS);
+            System.out.printf("%-12s %14.1f %18.3g%n", storage,
+                              (double) bytes / g.edgeSize(),
+                              g.edgeSize() / secs);
+        }
+    }
+
+    /**
+     * Read every successor list of G.
+     */
+    private static void scan(Graph g) {
+        long sum = 0;
+        IntIteration vertices = g.intVertices();
+        while (vertices.hasNext()) {
+            IntIteration succ = g.intSuccessors(vertices.nextInt());
+            while (succ.hasNext()) {
+                sum += succ.nextInt();
+            }
+        }
+        Bench.sink += sum;
+    }
+
+    /**
+     * Default problem sizes.
+     */
+    private static final int DEFAULT_VERTICES = 1 << 20,
+        DEFAULT_EDGES = 8 << 20;
+    /**
+     * Range of most edges' ends about their sources.
+     */
+    private static final int SPAN = 64;
+    /**
+     * Random seed for the test graph.
+     */
+    private static final long SEED = 42;
+    /**
+     * Untimed and timed runs of each scan.
+     */
+    private static final int WARMUP = 3, REPS = 5;
+}
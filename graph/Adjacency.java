@@ -0,0 +1,174 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+/**
+ * An index of the edges of a GraphObj in one direction: for each vertex,
+ * the vertices adjacent to it in increasing order, together with the
+ * ids of the corresponding edges.  GraphObj keeps one for successors
+ * and, if directed, one for predecessors.  The subclasses differ in how
+ * they lay out the lists, as selected by a Storage value.
+ *
+ * @author John Schulz
+ */
+abstract class Adjacency {
+
+    /**
+     * Returns a new, empty index of the kind selected by STORAGE.
+     */
+    static Adjacency create(Storage storage) {
+        switch (storage) {
+        case COMPRESSED:
+            return new PackedAdjacency();
+        case MATRIX:
+            return new MatrixAdjacency();
+        default:
+            return new ListAdjacency();
+        }
+    }
+
+    /**
+     * Returns the number of vertices adjacent to V.
+     */
+    abstract int degree(int v);
+
+    /**
+     * Returns true iff W is adjacent to V.
+     */
+    boolean contains(int v, int w) {
+        return find(v, w) != 0;
+    }
+
+    /**
+     * Returns the id of the edge joining V to W, or 0 if W is not
+     * adjacent to V.
+     */
+    abstract int find(int v, int w);
+
+    /**
+     * Record that W is adjacent to V along the edge whose id is E.
+     * Assumes W is not already adjacent to V.
+     */
+    abstract void add(int v, int w, int e);
+
+    /**
+     * Make room for at least N entries in the list for V.
+     */
+    abstract void reserve(int v, int n);
+
+    /**
+     * Record that W is adjacent to V along the edge whose id is E, where W
+     * is larger than any vertex now in the list for V.  This is the fast
+     * path for loading edges in sorted order.
+     */
+    abstract void append(int v, int w, int e);
+
+    /**
+     * Remove W from the vertices adjacent to V, if present.  Returns the
+     * id of the edge that joined them, or 0 if there was none.
+     */
+    abstract int remove(int v, int w);
+
+    /**
+     * Remove all adjacencies of V.
+     */
+    abstract void clear(int v);
+
+    /**
+     * Returns true iff enough space is going to waste that compact
+     * would be worthwhile.
+     */
+    abstract boolean isSparse();
+
+    /**
+     * Reclaim the space left unused by removals.
+     */
+    abstract void compact();
+
+    /**
+     * Returns a frozen copy of me.  It must not be modified, and is not
+     * affected by later modifications of me.
+     */
+    abstract Adjacency snapshot();
+
+    /**
+     * Returns an iteration over the vertices adjacent to V in increasing
+     * order.  It may read my storage in place, so V's adjacencies must
+     * not change while it is in use.
+     */
+    abstract IntIteration iteration(int v);
+
+    /**
+     * Store the vertices adjacent to V in increasing order in TARGETS,
+     * and the ids of the corresponding edges in IDS, and return their
+     * number.  Both arrays must have room for degree(V) values.
+     */
+    abstract int entries(int v, int[] targets, int[] ids);
+
+    /**
+     * Add the vertices adjacent to V to SET, a bitset that holds W in
+     * bit W % 64 of SET[W / 64].  Vertices too large for SET are
+     * ignored.  This default walks the list for V; subclasses that keep
+     * bitsets combine them a word at a time.
+     */
+    void union(int v, long[] set) {
+        union(iteration(v), set);
+    }
+
+    /**
+     * Remove from SET, a bitset as for union, all vertices not adjacent
+     * to V.
+     */
+    void intersect(int v, long[] set) {
+        intersect(iteration(v), set);
+    }
+
+    /**
+     * Remove from SET, a bitset as for union, all vertices adjacent to
+     * V.
+     */
+    void difference(int v, long[] set) {
+        difference(iteration(v), set);
+    }
+
+    /**
+     * Add the values delivered by IT to SET, a bitset as for union.
+     */
+    static void union(IntIteration it, long[] set) {
+        while (it.hasNext()) {
+            int w = it.nextInt();
+            if (w >>> WORD_SHIFT < set.length) {
+                set[w >>> WORD_SHIFT] |= 1L << w;
+            }
+        }
+    }
+
+    /**
+     * Remove from SET, a bitset as for union, all values not delivered
+     * by IT.
+     */
+    static void intersect(IntIteration it, long[] set) {
+        long[] keep = new long[set.length];
+        union(it, keep);
+        for (int i = 0; i < set.length; i += 1) {
+            set[i] &= keep[i];
+        }
+    }
+
+    /**
+     * Remove the values delivered by IT from SET, a bitset as for union.
+     */
+    static void difference(IntIteration it, long[] set) {
+        while (it.hasNext()) {
+            int w = it.nextInt();
+            if (w >>> WORD_SHIFT < set.length) {
+                set[w >>> WORD_SHIFT] &= ~(1L << w);
+            }
+        }
+    }
+
+    /**
+     * Log base 2 of the number of bits in a bitset word.
+     */
+    static final int WORD_SHIFT = 6;
+}
@@ -2,8 +2,6 @@ package graph;
 
 /* See restrictions in Graph.java. */
 
-import java.util.ArrayDeque;
-
 /**
  * Implements a breadth-first traversal of a graph.  Generally, the
  * client will extend this class, overriding the visit method as desired
@@ -17,7 +15,7 @@ public class BreadthFirstTraversal extends Traversal {
      * A breadth-first Traversal of G.
      */
     protected BreadthFirstTraversal(Graph G) {
-        super(G, new ArrayDeque<>());
+        super(G, new IntQueue());
     }
 
     @Override
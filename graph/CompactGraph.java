@@ -0,0 +1,445 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable copy of a Graph in compressed sparse row form.  The
+ * successors of all vertices are packed end to end, in increasing order,
+ * into a single array, and a second array of offsets, indexed by vertex
+ * number, marks where each vertex's successors begin.  A directed graph
+ * also keeps the transposed arrays, so that predecessors and inDegree
+ * are as cheap as successors and outDegree.  Any attempt to add or remove
+ * vertices or edges throws UnsupportedOperationException.
+ *
+ * @author John Schulz
+ */
+public class CompactGraph extends Graph {
+
+    /**
+     * A snapshot of the current vertices and edges of G, which may be
+     * any kind of Graph.  Takes time O(V + E) when G's successor lists
+     * are sorted (as they are for all Graphs in this package).
+     */
+    public CompactGraph(Graph G) {
+        _directed = G.isDirected();
+        _maxVertex = G.maxVertex();
+        _vertexSize = G.vertexSize();
+        _edgeSize = G.edgeSize();
+        _vertices = new BitSet(_maxVertex + 1);
+        _outStart = new int[_maxVertex + 2];
+        for (int v : G.vertices()) {
+            _vertices.set(v);
+            _outStart[v + 1] = G.outDegree(v);
+        }
+        for (int v = 1; v <= _maxVertex + 1; v += 1) {
+            _outStart[v] += _outStart[v - 1];
+        }
+        _outTargets = new int[_outStart[_maxVertex + 1]];
+        for (int v : G.vertices()) {
+            int k = _outStart[v];
+            for (int w : G.successors(v)) {
+                _outTargets[k] = w;
+                k += 1;
+            }
+            sortRow(_outTargets, _outStart[v], k);
+        }
+        if (_directed) {
+            _inStart = new int[_maxVertex + 2];
+            _inSources = transpose(_outStart, _outTargets, _inStart);
+        } else {
+            _inStart = _outStart;
+            _inSources = _outTargets;
+        }
+    }
+
+    /**
+     * A graph with vertices 1 through N and edges KEYS[0 .. M-1], which
+     * must be distinct and in increasing order, packed as for
+     * GraphObj.load.  This is the bulk loading path used by GraphBuilder.
+     */
+    CompactGraph(boolean directed, int n, long[] keys, int m) {
+        _directed = directed;
+        _maxVertex = _vertexSize = n;
+        _edgeSize = m;
+        _vertices = new BitSet(n + 1);
+        _vertices.set(1, n + 1);
+        _outStart = new int[n + 2];
+        for (int i = 0; i < m; i += 1) {
+            int u = GraphObj.source(keys[i]), v = GraphObj.target(keys[i]);
+            _outStart[u + 1] += 1;
+            if (!directed && u != v) {
+                _outStart[v + 1] += 1;
+            }
+        }
+        for (int v = 1; v <= n + 1; v += 1) {
+            _outStart[v] += _outStart[v - 1];
+        }
+        _outTargets = new int[_outStart[n + 1]];
+        int[] fill = Arrays.copyOf(_outStart, n + 1);
+        if (!directed) {
+            for (int i = 0; i < m; i += 1) {
+                int u = GraphObj.source(keys[i]),
+                    v = GraphObj.target(keys[i]);
+                if (u != v) {
+                    _outTargets[fill[v]] = u;
+                    fill[v] += 1;
+                }
+            }
+        }
+        for (int i = 0; i < m; i += 1) {
+            int u = GraphObj.source(keys[i]);
+            _outTargets[fill[u]] = GraphObj.target(keys[i]);
+            fill[u] += 1;
+        }
+        if (_directed) {
+            _inStart = new int[n + 2];
+            _inSources = transpose(_outStart, _outTargets, _inStart);
+        } else {
+            _inStart = _outStart;
+            _inSources = _outTargets;
+        }
+    }
+
+    @Override
+    public int vertexSize() {
+        return _vertexSize;
+    }
+
+    @Override
+    public int maxVertex() {
+        return _maxVertex;
+    }
+
+    @Override
+    public int edgeSize() {
+        return _edgeSize;
+    }
+
+    @Override
+    public boolean isDirected() {
+        return _directed;
+    }
+
+    @Override
+    public int outDegree(int v) {
+        return contains(v) ? _outStart[v + 1] - _outStart[v] : 0;
+    }
+
+    @Override
+    public int inDegree(int v) {
+        return contains(v) ? _inStart[v + 1] - _inStart[v] : 0;
+    }
+
+    @Override
+    public boolean contains(int u) {
+        return u > 0 && u <= _maxVertex && _vertices.get(u);
+    }
+
+    @Override
+    public boolean contains(int u, int v) {
+        return contains(u) && contains(v) && find(u, v) >= 0;
+    }
+
+    @Override
+    public int add() {
+        throw new UnsupportedOperationException("CompactGraph is immutable");
+    }
+
+    @Override
+    public int add(int u, int v) {
+        throw new UnsupportedOperationException("CompactGraph is immutable");
+    }
+
+    @Override
+    public void remove(int v) {
+        throw new UnsupportedOperationException("CompactGraph is immutable");
+    }
+
+    @Override
+    public void remove(int u, int v) {
+        throw new UnsupportedOperationException("CompactGraph is immutable");
+    }
+
+    /**
+     * Returns me, since I never change.
+     */
+    @Override
+    public Graph snapshot() {
+        return this;
+    }
+
+    @Override
+    public Iteration<Integer> vertices() {
+        return intVertices();
+    }
+
+    @Override
+    public Iteration<Integer> successors(int v) {
+        return intSuccessors(v);
+    }
+
+    @Override
+    public Iteration<Integer> predecessors(int v) {
+        return intPredecessors(v);
+    }
+
+    @Override
+    public IntIteration intVertices() {
+        return new IntIteration() {
+            @Override
+            public boolean hasNext() {
+                return _next > 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (_next < 0) {
+                    throw new NoSuchElementException();
+                }
+                int v = _next;
+                _next = _vertices.nextSetBit(v + 1);
+                return v;
+            }
+
+            /**
+             * The next vertex to deliver, or -1 if there is none.
+             */
+            private int _next = _vertices.nextSetBit(1);
+        };
+    }
+
+    @Override
+    public IntIteration intSuccessors(int v) {
+        if (!contains(v)) {
+            return IntIteration.empty();
+        }
+        return IntIteration.of(_outTargets, _outStart[v], _outStart[v + 1]);
+    }
+
+    @Override
+    public IntIteration intPredecessors(int v) {
+        if (!contains(v)) {
+            return IntIteration.empty();
+        }
+        return IntIteration.of(_inSources, _inStart[v], _inStart[v + 1]);
+    }
+
+    @Override
+    public IntStream successorStream(int v) {
+        if (!contains(v)) {
+            return IntStream.empty();
+        }
+        return Arrays.stream(_outTargets, _outStart[v], _outStart[v + 1]);
+    }
+
+    @Override
+    public IntStream predecessorStream(int v) {
+        if (!contains(v)) {
+            return IntStream.empty();
+        }
+        return Arrays.stream(_inSources, _inStart[v], _inStart[v + 1]);
+    }
+
+    /**
+     * Returns a cursor over my edges in the same order as edges(), which
+     * reads my rows directly, so that each edge's id is simply its
+     * position.
+     */
+    @Override
+    public EdgeCursor edgeCursor() {
+        return new EdgeCursor() {
+            @Override
+            public boolean next() {
+                _k += 1;
+                while (_k < _outTargets.length) {
+                    while (_outStart[_u + 1] <= _k) {
+                        _u += 1;
+                    }
+                    if (_directed || _outTargets[_k] >= _u) {
+                        return true;
+                    }
+                    _k += 1;
+                }
+                return false;
+            }
+
+            @Override
+            public int source() {
+                checkCurrent(_k >= 0 && _k < _outTargets.length);
+                return _u;
+            }
+
+            @Override
+            public int target() {
+                checkCurrent(_k >= 0 && _k < _outTargets.length);
+                return _outTargets[_k];
+            }
+
+            @Override
+            public int edgeId() {
+                checkCurrent(_k >= 0 && _k < _outTargets.length);
+                return _k + 1;
+            }
+
+            /**
+             * Position in _outTargets of the current edge.
+             */
+            private int _k = -1;
+
+            /**
+             * The source of the current edge.
+             */
+            private int _u;
+        };
+    }
+
+    @Override
+    public Iteration<int[]> edges() {
+        return new Iteration<int[]>() {
+            @Override
+            public boolean hasNext() {
+                advance();
+                return _k < _outTargets.length;
+            }
+
+            @Override
+            public int[] next() {
+                advance();
+                if (_k >= _outTargets.length) {
+                    throw new NoSuchElementException();
+                }
+                while (_outStart[_edge[0] + 1] <= _k) {
+                    _edge[0] += 1;
+                }
+                _edge[1] = _outTargets[_k];
+                _k += 1;
+                return _edge;
+            }
+
+            /**
+             * Skip any second copies of undirected edges, leaving _k at
+             * the next entry to deliver.
+             */
+            private void advance() {
+                if (_directed) {
+                    return;
+                }
+                int u = _edge[0];
+                while (_k < _outTargets.length) {
+                    while (_outStart[u + 1] <= _k) {
+                        u += 1;
+                    }
+                    if (_outTargets[_k] >= u) {
+                        break;
+                    }
+                    _k += 1;
+                }
+            }
+
+            /**
+             * Position of the next entry of _outTargets to deliver.
+             */
+            private int _k;
+
+            /**
+             * The array returned by next().
+             */
+            private final int[] _edge = new int[2];
+        };
+    }
+
+    /**
+     * Returns a unique identifier for edge (U, V) between 1 and the number
+     * of entries in my successor rows, or 0 if there is no such edge.  An
+     * undirected edge is identified by its entry in the row of its smaller
+     * end.
+     */
+    @Override
+    protected int edgeId(int u, int v) {
+        if (!contains(u) || !contains(v)) {
+            return 0;
+        }
+        if (!_directed && u > v) {
+            return edgeId(v, u);
+        }
+        return find(u, v) + 1;
+    }
+
+    /**
+     * Returns the position of V in _outTargets within the row for U, or
+     * a negative number if (U, V) is not an edge.  Assumes U is one of my
+     * vertices.
+     */
+    private int find(int u, int v) {
+        int k = Arrays.binarySearch(_outTargets, _outStart[u],
+                                    _outStart[u + 1], v);
+        return k >= 0 ? k : -1;
+    }
+
+    /**
+     * Sort TARGETS[FROM .. TO-1] if it is not already in increasing order.
+     */
+    private static void sortRow(int[] targets, int from, int to) {
+        for (int k = from + 1; k < to; k += 1) {
+            if (targets[k - 1] > targets[k]) {
+                Arrays.sort(targets, from, to);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Given the rows START and TARGETS of a directed graph, fill in
+     * TSTART with the row offsets of its transpose and return the
+     * corresponding row contents.  The rows of the transpose come out
+     * sorted because the rows of the original are visited in order.
+     */
+    static int[] transpose(int[] start, int[] targets, int[] tStart) {
+        int n = start.length - 1;
+        for (int w : targets) {
+            tStart[w + 1] += 1;
+        }
+        for (int v = 1; v <= n; v += 1) {
+            tStart[v] += tStart[v - 1];
+        }
+        int[] sources = new int[targets.length];
+        int[] fill = Arrays.copyOf(tStart, n);
+        for (int u = 0; u < n; u += 1) {
+            for (int k = start[u]; k < start[u + 1]; k += 1) {
+                int w = targets[k];
+                sources[fill[w]] = u;
+                fill[w] += 1;
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * True iff I am directed.
+     */
+    private final boolean _directed;
+    /**
+     * My number of vertices, largest vertex number, and number of edges.
+     */
+    private final int _vertexSize, _maxVertex, _edgeSize;
+    /**
+     * The set of my vertex numbers.
+     */
+    private final BitSet _vertices;
+    /**
+     * The successors of vertex V are _outTargets[_outStart[V] ..
+     * _outStart[V+1]-1], in increasing order.
+     */
+    private final int[] _outStart, _outTargets;
+    /**
+     * The predecessors of vertex V are _inSources[_inStart[V] ..
+     * _inStart[V+1]-1], in increasing order.  These are the same arrays
+     * as _outStart and _outTargets if I am undirected.
+     */
+    private final int[] _inStart, _inSources;
+}
@@ -0,0 +1,574 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+/**
+ * A Graph that may be shared by any number of threads.  Queries take no
+ * locks: the successors (and, if directed, the predecessors) of each
+ * vertex are kept in an immutable sorted row, and a change to a vertex's
+ * edges publishes a new row in place of the old one.  Modifications are
+ * serialized by a single lock, so they are best suited to workloads in
+ * which reads greatly outnumber writes.
+ * <p>
+ * Each single-vertex query (contains(u), contains(u, v), outDegree,
+ * inDegree, successors, predecessors, edgeId) is linearizable, and an
+ * iteration over the successors or predecessors of a vertex always
+ * reflects one consistent state of that vertex's row.  Adding or
+ * removing an edge (u, v) takes effect for contains(u, v), successors(u)
+ * and outDegree(u) at one instant, and for predecessors(v) and
+ * inDegree(v) an instant later.  Removing a vertex is carried out as the
+ * removal of each of its edges, followed by removal of the vertex.
+ * vertices() and edges() are weakly consistent: they never fail because
+ * of concurrent changes, but may or may not reflect changes made after
+ * they were created.
+ * <p>
+ * A LabeledGraph may be layered over a ConcurrentGraph.  Its structural
+ * operations are then thread-safe, but its own label tables are not, so
+ * labels should be assigned before the graph is shared or else under
+ * the client's own synchronization.
+ *
+ * @author John Schulz
+ */
+public class ConcurrentGraph extends Graph {
+
+    /**
+     * An empty directed graph if DIRECTED, and otherwise an empty
+     * undirected graph.
+     */
+    public ConcurrentGraph(boolean directed) {
+        _directed = directed;
+        _out = new AtomicReferenceArray<>(INITIAL_VERTICES);
+        _in = directed ? new AtomicReferenceArray<>(INITIAL_VERTICES) : _out;
+        _members = new AtomicLongArray(INITIAL_VERTICES >>> WORD_SHIFT);
+        _frozen = false;
+    }
+
+    /**
+     * An immutable copy of G, sharing G's rows.  Assumes G's lock is
+     * held.
+     */
+    private ConcurrentGraph(ConcurrentGraph g) {
+        _directed = g._directed;
+        int n = g._out.length();
+        _out = grow(g._out, n);
+        _in = _directed ? grow(g._in, n) : _out;
+        _members = new AtomicLongArray(n >>> WORD_SHIFT);
+        for (int i = 0; i < _members.length(); i += 1) {
+            _members.set(i, g._members.get(i));
+        }
+        _vertexSize = g._vertexSize;
+        _edgeSize = g._edgeSize;
+        _maxVertex = g._maxVertex;
+        _frozen = true;
+    }
+
+    @Override
+    public int vertexSize() {
+        return _vertexSize;
+    }
+
+    @Override
+    public int maxVertex() {
+        return _maxVertex;
+    }
+
+    @Override
+    public int edgeSize() {
+        return _edgeSize;
+    }
+
+    @Override
+    public boolean isDirected() {
+        return _directed;
+    }
+
+    @Override
+    public int outDegree(int v) {
+        return contains(v) ? row(_out, v).size() : 0;
+    }
+
+    @Override
+    public int inDegree(int v) {
+        return contains(v) ? row(_in, v).size() : 0;
+    }
+
+    @Override
+    public boolean contains(int u) {
+        AtomicLongArray members = _members;
+        int i = u >>> WORD_SHIFT;
+        return u > 0 && i < members.length()
+            && (members.get(i) & (1L << u)) != 0;
+    }
+
+    @Override
+    public boolean contains(int u, int v) {
+        return edgeId(u, v) != 0;
+    }
+
+    @Override
+    public int add() {
+        checkMutable();
+        _lock.lock();
+        try {
+            int v = _vertices.add();
+            ensureVertex(v);
+            int i = v >>> WORD_SHIFT;
+            _members.set(i, _members.get(i) | (1L << v));
+            _vertexSize = _vertices.size();
+            _maxVertex = _vertices.max();
+            return v;
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    @Override
+    public int add(int u, int v) {
+        checkMutable();
+        int e = edgeId(u, v);
+        if (e != 0) {
+            return e;
+        }
+        _lock.lock();
+        try {
+            checkMyVertex(u);
+            checkMyVertex(v);
+            e = row(_out, u).find(v);
+            if (e != 0) {
+                return e;
+            }
+            e = _edgeIds.add();
+            _out.set(u, row(_out, u).with(v, e));
+            if (_directed || u != v) {
+                _in.set(v, row(_in, v).with(u, e));
+            }
+            _edgeSize = _edgeIds.size();
+            return e;
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(int v) {
+        checkMutable();
+        _lock.lock();
+        try {
+            if (!contains(v)) {
+                return;
+            }
+            Row out = row(_out, v);
+            for (int k = 0; k < out.size(); k += 1) {
+                removeEdge(v, out._targets[k]);
+            }
+            Row in = row(_in, v);
+            for (int k = 0; k < in.size(); k += 1) {
+                removeEdge(in._targets[k], v);
+            }
+            int i = v >>> WORD_SHIFT;
+            _members.set(i, _members.get(i) & ~(1L << v));
+            _vertices.remove(v);
+            _vertexSize = _vertices.size();
+            _maxVertex = _vertices.max();
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(int u, int v) {
+        checkMutable();
+        _lock.lock();
+        try {
+            if (contains(u) && contains(v)) {
+                removeEdge(u, v);
+            }
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    /**
+     * Returns an immutable snapshot of me.  It shares my rows, which
+     * never change, so taking it costs time proportional to my number of
+     * vertices but not of edges.  It waits only for a modification in
+     * progress, and reflects exactly the modifications completed before
+     * it.
+     */
+    @Override
+    public Graph snapshot() {
+        if (_frozen) {
+            return this;
+        }
+        _lock.lock();
+        try {
+            return new ConcurrentGraph(this);
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    @Override
+    public Iteration<Integer> vertices() {
+        return intVertices();
+    }
+
+    @Override
+    public Iteration<Integer> successors(int v) {
+        return intSuccessors(v);
+    }
+
+    @Override
+    public Iteration<Integer> predecessors(int v) {
+        return intPredecessors(v);
+    }
+
+    @Override
+    public IntIteration intVertices() {
+        return new IntIteration() {
+            @Override
+            public boolean hasNext() {
+                return _next != 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (_next == 0) {
+                    throw new NoSuchElementException();
+                }
+                int v = _next;
+                _next = nextVertex(v + 1);
+                return v;
+            }
+
+            /**
+             * The next vertex to deliver, or 0 if there is none.
+             */
+            private int _next = nextVertex(1);
+        };
+    }
+
+    @Override
+    public IntIteration intSuccessors(int v) {
+        return contains(v) ? row(_out, v).iteration() : IntIteration.empty();
+    }
+
+    @Override
+    public IntIteration intPredecessors(int v) {
+        return contains(v) ? row(_in, v).iteration() : IntIteration.empty();
+    }
+
+    /**
+     * Returns a stream of the successors of V as of one instant.  It
+     * reads an immutable row, so it is unaffected by later changes.
+     */
+    @Override
+    public IntStream successorStream(int v) {
+        if (!contains(v)) {
+            return IntStream.empty();
+        }
+        return Arrays.stream(row(_out, v)._targets);
+    }
+
+    /**
+     * Returns a stream of the predecessors of V as of one instant.  It
+     * reads an immutable row, so it is unaffected by later changes.
+     */
+    @Override
+    public IntStream predecessorStream(int v) {
+        if (!contains(v)) {
+            return IntStream.empty();
+        }
+        return Arrays.stream(row(_in, v)._targets);
+    }
+
+    @Override
+    public Iteration<int[]> edges() {
+        return new Iteration<int[]>() {
+            @Override
+            public boolean hasNext() {
+                advance();
+                return _row != null;
+            }
+
+            @Override
+            public int[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                _edge[1] = _row._targets[_k];
+                _k += 1;
+                return _edge;
+            }
+
+            /**
+             * Move _edge[0], _row, and _k to the next edge to deliver,
+             * setting _row to null if there is none.
+             */
+            private void advance() {
+                while (_row != null) {
+                    while (_k < _row.size()
+                           && !_directed && _row._targets[_k] < _edge[0]) {
+                        _k += 1;
+                    }
+                    if (_k < _row.size()) {
+                        return;
+                    }
+                    _edge[0] = nextVertex(_edge[0] + 1);
+                    _row = _edge[0] == 0 ? null : row(_out, _edge[0]);
+                    _k = 0;
+                }
+            }
+
+            /**
+             * The array returned by next(), holding the current source.
+             */
+            private final int[] _edge = { 0, 0 };
+            /**
+             * The row of _edge[0], or null when finished.
+             */
+            private Row _row = EMPTY_ROW;
+            /**
+             * Position in _row of the next target to deliver.
+             */
+            private int _k;
+        };
+    }
+
+    @Override
+    protected int edgeId(int u, int v) {
+        if (!contains(u) || !contains(v)) {
+            return 0;
+        }
+        return row(_out, u).find(v);
+    }
+
+    /**
+     * Throw an exception if I am a snapshot.
+     */
+    private void checkMutable() {
+        if (_frozen) {
+            throw new UnsupportedOperationException("snapshots are immutable");
+        }
+    }
+
+    /**
+     * Remove edge (U, V), if present.  Assumes the lock is held.
+     */
+    private void removeEdge(int u, int v) {
+        Row row = row(_out, u);
+        int e = row.find(v);
+        if (e == 0) {
+            return;
+        }
+        _out.set(u, row.without(v));
+        if (_directed || u != v) {
+            _in.set(v, row(_in, v).without(u));
+        }
+        _edgeIds.remove(e);
+        _edgeSize = _edgeIds.size();
+    }
+
+    /**
+     * Returns the smallest vertex >= V, or 0 if there is none.
+     */
+    private int nextVertex(int v) {
+        AtomicLongArray members = _members;
+        int n = members.length();
+        int i = v >>> WORD_SHIFT;
+        if (i >= n) {
+            return 0;
+        }
+        long word = members.get(i) & (-1L << v);
+        while (word == 0) {
+            i += 1;
+            if (i >= n) {
+                return 0;
+            }
+            word = members.get(i);
+        }
+        return (i << WORD_SHIFT) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Make sure my tables have room for vertex V.  Assumes the lock is
+     * held.
+     */
+    private void ensureVertex(int v) {
+        int n = _out.length();
+        if (v < n) {
+            return;
+        }
+        while (n <= v) {
+            n *= 2;
+        }
+        AtomicLongArray members = new AtomicLongArray(n >>> WORD_SHIFT);
+        for (int i = 0; i < _members.length(); i += 1) {
+            members.set(i, _members.get(i));
+        }
+        AtomicReferenceArray<Row> out = grow(_out, n);
+        _in = _directed ? grow(_in, n) : out;
+        _out = out;
+        _members = members;
+    }
+
+    /**
+     * Returns a copy of TABLE with length N.
+     */
+    private static AtomicReferenceArray<Row> grow(
+        AtomicReferenceArray<Row> table, int n) {
+        AtomicReferenceArray<Row> result = new AtomicReferenceArray<>(n);
+        for (int v = 0; v < table.length(); v += 1) {
+            result.set(v, table.get(v));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the row for V in TABLE (empty if there is none).
+     */
+    private static Row row(AtomicReferenceArray<Row> table, int v) {
+        Row row = v >= 0 && v < table.length() ? table.get(v) : null;
+        return row == null ? EMPTY_ROW : row;
+    }
+
+    /**
+     * An immutable sorted list of the vertices adjacent to some vertex,
+     * with the ids of the corresponding edges.
+     */
+    private static final class Row {
+        /**
+         * A row containing TARGETS, which must be sorted, with edge ids
+         * IDS.
+         */
+        Row(int[] targets, int[] ids) {
+            _targets = targets;
+            _ids = ids;
+        }
+
+        /**
+         * Returns the number of entries.
+         */
+        int size() {
+            return _targets.length;
+        }
+
+        /**
+         * Returns the edge id for W, or 0 if W is not in this row.
+         */
+        int find(int w) {
+            int k = Arrays.binarySearch(_targets, w);
+            return k < 0 ? 0 : _ids[k];
+        }
+
+        /**
+         * Returns a copy of this row with W added with edge id E.
+         * Assumes W is not in this row.
+         */
+        Row with(int w, int e) {
+            int n = _targets.length;
+            int k = -1 - Arrays.binarySearch(_targets, w);
+            int[] targets = new int[n + 1], ids = new int[n + 1];
+            System.arraycopy(_targets, 0, targets, 0, k);
+            System.arraycopy(_ids, 0, ids, 0, k);
+            targets[k] = w;
+            ids[k] = e;
+            System.arraycopy(_targets, k, targets, k + 1, n - k);
+            System.arraycopy(_ids, k, ids, k + 1, n - k);
+            return new Row(targets, ids);
+        }
+
+        /**
+         * Returns a copy of this row without W.
+         */
+        Row without(int w) {
+            int k = Arrays.binarySearch(_targets, w);
+            if (k < 0) {
+                return this;
+            }
+            int n = _targets.length;
+            int[] targets = new int[n - 1], ids = new int[n - 1];
+            System.arraycopy(_targets, 0, targets, 0, k);
+            System.arraycopy(_ids, 0, ids, 0, k);
+            System.arraycopy(_targets, k + 1, targets, k, n - k - 1);
+            System.arraycopy(_ids, k + 1, ids, k, n - k - 1);
+            return new Row(targets, ids);
+        }
+
+        /**
+         * Returns an iteration over this row's vertices.
+         */
+        IntIteration iteration() {
+            return IntIteration.of(_targets, 0, _targets.length);
+        }
+
+        /**
+         * Adjacent vertices, in increasing order.
+         */
+        private final int[] _targets;
+        /**
+         * The ids of the edges to the vertices in _targets.
+         */
+        private final int[] _ids;
+    }
+
+    /**
+     * The row of a vertex with no adjacent vertices.
+     */
+    private static final Row EMPTY_ROW = new Row(new int[0], new int[0]);
+
+    /**
+     * Log base 2 of the number of bits in a word of _members.
+     */
+    private static final int WORD_SHIFT = 6;
+
+    /**
+     * Initial size of the vertex tables (a multiple of 64).
+     */
+    private static final int INITIAL_VERTICES = 64;
+
+    /**
+     * True iff I am directed.
+     */
+    private final boolean _directed;
+    /**
+     * True iff I am an immutable snapshot.
+     */
+    private final boolean _frozen;
+    /**
+     * Serializes modifications.
+     */
+    private final ReentrantLock _lock = new ReentrantLock();
+    /**
+     * Rows of successors, indexed by vertex.
+     */
+    private volatile AtomicReferenceArray<Row> _out;
+    /**
+     * Rows of predecessors, indexed by vertex.  The same as _out if I am
+     * undirected.
+     */
+    private volatile AtomicReferenceArray<Row> _in;
+    /**
+     * Bit V % 64 of _members[V / 64] is set iff V is one of my vertices.
+     */
+    private volatile AtomicLongArray _members;
+    /**
+     * My vertex numbers, for allocating new ones.  Used only under _lock.
+     */
+    private final IdSet _vertices = new IdSet();
+    /**
+     * Edge ids in use.  Used only under _lock.
+     */
+    private final IdSet _edgeIds = new IdSet();
+    /**
+     * My numbers of vertices and edges, and my largest vertex.
+     */
+    private volatile int _vertexSize, _edgeSize, _maxVertex;
+}
@@ -2,15 +2,29 @@ package graph;
 
 /* See restrictions in Graph.java. */
 
-import java.util.ArrayDeque;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
 
 /**
  * Implements a depth-first traversal of a graph.  Generally, the
  * client will extend this class, overriding the visit and
  * postVisit methods, as desired (by default, they do nothing).
+ * <p>
+ * The search keeps a stack of frames, one for each vertex on the path
+ * from the starting vertex, each holding an IntIteration positioned at
+ * the next successor of its vertex to examine.  Thus each edge is
+ * examined once, and the traversal takes time O(V + E).  Vertices are
+ * visited in true depth-first order, each successor of a vertex in the
+ * order delivered by intSuccessors, and each vertex for which
+ * shouldPostVisit is true is post-visited once all vertices reachable
+ * from it through unmarked vertices have been.  Override processSuccessor
+ * to keep some edges from being followed; processSuccessors is not used.
+ * The fringe, an IntStack, holds only the starting vertices not yet
+ * searched from, so that those passed to traverse(Collection) are
+ * searched from last first.  If a visit or post-visit stops the
+ * traversal, the next call to traverse first finishes the interrupted
+ * search, and then searches from the starting vertices that remain.
  *
  * @author John Schulz
  */
@@ -33,7 +47,7 @@ public class DepthFirstTraversal extends Traversal {
      * A depth-first Traversal of G.
      */
     protected DepthFirstTraversal(Graph G) {
-        super(G, new MyAD());
+        super(G, new IntStack());
     }
 
     @Override
@@ -46,47 +60,103 @@ public class DepthFirstTraversal extends Traversal {
         return super.postVisit(v);
     }
 
-
     @Override
-    protected boolean reverseSuccessors(int v) {
-        return true;
+    public void traverse(Collection<Integer> V0) {
+        for (int v0 : V0) {
+            getIntFringe().add(v0);
+        }
+        search();
     }
 
     @Override
-    protected void processSuccessors(int u) {
-        Iteration<Integer> iter = getG().successors(u);
-        ArrayList<Integer> reverse = new ArrayList<>();
-        while (iter.hasNext()) {
-            reverse.add(iter.next());
+    public void traverse(int v0) {
+        getIntFringe().add(v0);
+        search();
+    }
+
+    /**
+     * Finish any search left unfinished by an earlier interruption, and
+     * then search from each unmarked vertex popped from the fringe, until
+     * it is empty or the traversal is to terminate.
+     */
+    private void search() {
+        if (!resume()) {
+            return;
         }
-        Collections.reverse(reverse);
-        iter = Iteration.iteration(reverse);
-        for (int v : iter) {
-            if (processSuccessor(u, v)) {
-                if (!marked(v)) {
-                    if (getFringe().contains(v)) {
-                        _fringe.remove(v);
-                    }
-                    _fringe.add(v);
-                }
+        IntFringe fringe = getIntFringe();
+        while (!fringe.isEmpty()) {
+            int v0 = fringe.remove();
+            if (!marked(v0) && !(enter(v0) && resume())) {
+                return;
             }
         }
     }
 
     /**
-     * A class that extends Arrray deque and allows us to
-     * remove the last element instead of the head.
-     * Follows the same implementation for peek.
+     * Mark and visit V, and if the traversal is to continue, push a frame
+     * for it and return true.
      */
-    private static class MyAD extends ArrayDeque<Integer> {
-        @Override
-        public Integer remove() {
-            return removeLast();
+    private boolean enter(int v) {
+        mark(v);
+        if (!visit(v)) {
+            return false;
+        }
+        if (_depth == _vertices.length) {
+            _vertices = Arrays.copyOf(_vertices, 2 * _depth);
+            _cursors = Arrays.copyOf(_cursors, 2 * _depth);
         }
+        _vertices[_depth] = v;
+        _cursors[_depth] = getG().intSuccessors(v);
+        _depth += 1;
+        return true;
+    }
 
-        @Override
-        public Integer peek() {
-            return peekLast();
+    /**
+     * Advance the frames on my stack until it is empty, descending into
+     * each unmarked successor of the top vertex that processSuccessor
+     * accepts, and popping (and post-visiting, if requested) each vertex
+     * whose successors are exhausted.  Returns false iff the traversal is
+     * to terminate immediately.
+     */
+    private boolean resume() {
+        while (_depth > 0) {
+            int u = _vertices[_depth - 1];
+            IntIteration successors = _cursors[_depth - 1];
+            boolean descended = false;
+            while (!descended && successors.hasNext()) {
+                int v = successors.nextInt();
+                if (processSuccessor(u, v) && !marked(v)) {
+                    if (!enter(v)) {
+                        return false;
+                    }
+                    descended = true;
+                }
+            }
+            if (!descended) {
+                _depth -= 1;
+                _cursors[_depth] = null;
+                if (shouldPostVisit(u) && !postVisit(u)) {
+                    return false;
+                }
+            }
         }
+        return true;
     }
+
+    /**
+     * The vertices on the current path from the root of the search, in
+     * order, are _vertices[0 .. _depth-1].
+     */
+    private int[] _vertices = new int[16];
+
+    /**
+     * _cursors[K] delivers the successors of _vertices[K] that have not
+     * yet been examined.
+     */
+    private IntIteration[] _cursors = new IntIteration[16];
+
+    /**
+     * The number of frames on my stack.
+     */
+    private int _depth;
 }
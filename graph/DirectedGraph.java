@@ -2,8 +2,6 @@ package graph;
 
 /* See restrictions in Graph.java. */
 
-import java.util.ArrayList;
-
 /**
  * Represents a general unlabeled directed graph whose vertices are denoted by
  * positive integers. Graphs may have self edges.
@@ -12,6 +10,20 @@ import java.util.ArrayList;
  */
 public class DirectedGraph extends GraphObj {
 
+    /**
+     * An empty directed graph.
+     */
+    public DirectedGraph() {
+    }
+
+    /**
+     * An empty directed graph that keeps its adjacency lists as selected
+     * by STORAGE.
+     */
+    public DirectedGraph(Storage storage) {
+        super(storage);
+    }
+
     @Override
     public boolean isDirected() {
         return true;
@@ -19,24 +31,10 @@ public class DirectedGraph extends GraphObj {
 
     @Override
     public int inDegree(int v) {
-        int count = 0;
-        for (int[] x : _edges) {
-            if (x[1] == v) {
-                count += 1;
-            }
-        }
-        return count;
-    }
-
-    @Override
-    public Iteration<Integer> predecessors(int v) {
-        ArrayList<Integer> ret = new ArrayList<>();
-        for (int[] edges : _edges) {
-            if (edges[1] == v) {
-                ret.add(edges[0]);
-            }
+        if (!contains(v)) {
+            return 0;
         }
-        return Iteration.iteration(ret);
+        return _in.degree(v);
     }
 
 }
@@ -0,0 +1,411 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A breadth-first traversal of a graph that chooses, at each level of
+ * the search, between two ways of finding the vertices at the next
+ * depth.  A top-down step scans the successors of each vertex in the
+ * frontier (the vertices at the current depth), as BreadthFirstTraversal
+ * does.  A bottom-up step instead scans the predecessors of each vertex
+ * not yet reached, stopping at the first one found in the frontier.
+ * When the frontier is large, as it is in the middle levels of searches
+ * of graphs of small diameter, most successors examined top-down have
+ * already been reached, while most vertices not yet reached find a
+ * frontier predecessor after examining only a few edges, so that the
+ * bottom-up step examines far fewer edges.  When the frontier is small,
+ * top-down is cheaper.
+ * <p>
+ * By default, the traversal follows the heuristic of Beamer, Asanovic,
+ * and Patterson: it goes from top-down to bottom-up when the number of
+ * edges leaving the frontier exceeds 1/ALPHA of the edges leaving
+ * vertices not yet reached, and back to top-down when the frontier
+ * shrinks below 1/BETA of the vertices.  Override direction to choose
+ * otherwise.
+ * <p>
+ * The traversal records the depth of each vertex reached and its
+ * parent: the vertex at the previous depth from which it was reached,
+ * and which depends on the directions taken.  Traversals may be
+ * restarted, remembering the previously reached vertices, until clear()
+ * is called.  If a visit stops a traversal, the next call to traverse
+ * first finishes it, expanding the level that was interrupted and those
+ * beyond it, and then starts from its own vertices at depth 0.
+ *
+ * @author John Schulz
+ */
+public class DirectionOptimizingTraversal {
+
+    /**
+     * The ways of expanding a level of the search.
+     */
+    public enum Direction {
+        /**
+         * Scan the successors of each frontier vertex.
+         */
+        TOP_DOWN,
+        /**
+         * Scan the predecessors of each vertex not yet reached.
+         */
+        BOTTOM_UP
+    }
+
+    /**
+     * A direction-optimizing traversal of G with the default switching
+     * thresholds.
+     */
+    public DirectionOptimizingTraversal(Graph G) {
+        this(G, DEFAULT_ALPHA, DEFAULT_BETA);
+    }
+
+    /**
+     * A direction-optimizing traversal of G that switches to bottom-up
+     * when the edges leaving the frontier exceed 1/ALPHA of those
+     * leaving vertices not yet reached, and back to top-down when the
+     * frontier stops growing and holds fewer than 1/BETA of the vertices.
+     * ALPHA and BETA must be positive.
+     */
+    public DirectionOptimizingTraversal(Graph G, int alpha, int beta) {
+        if (alpha <= 0 || beta <= 0) {
+            throw new IllegalArgumentException("thresholds must be positive");
+        }
+        _G = G;
+        _alpha = alpha;
+        _beta = beta;
+        clear();
+    }
+
+    /**
+     * Forget all previously reached vertices.
+     */
+    public void clear() {
+        int n = _G.maxVertex() + 1;
+        _depths = new int[n];
+        Arrays.fill(_depths, -1);
+        _parents = new int[n];
+        _inFrontier = new long[(n + Long.SIZE - 1) >>> WORD_SHIFT];
+        _frontierSize = _nextSize = 0;
+        _frontierEdges = _nextEdges = 0;
+        _expanding = false;
+        _unexploredEdges = outDegrees(1, n);
+    }
+
+    /**
+     * Traverse from V0, at depth 0.
+     */
+    public void traverse(int v0) {
+        traverse(Arrays.<Integer>asList(v0));
+    }
+
+    /**
+     * Traverse from the vertices in V0, all at depth 0, after finishing
+     * any traversal stopped by a visit.  Vertices already reached by an
+     * earlier traversal are not reached again, and values in V0 that are
+     * not vertices of the graph are ignored.
+     */
+    public void traverse(Collection<Integer> V0) {
+        grow();
+        if (!finish()) {
+            return;
+        }
+        _frontierSize = 0;
+        _frontierEdges = 0;
+        _depth = 0;
+        _direction = Direction.TOP_DOWN;
+        for (int v : V0) {
+            if (_G.contains(v) && _depths[v] < 0 && !reach(v, 0, 0)) {
+                return;
+            }
+        }
+        finish();
+    }
+
+    /**
+     * Returns the depth at which V was reached, or -1 if it has not been.
+     */
+    public int depth(int v) {
+        return v > 0 && v < _depths.length ? _depths[v] : -1;
+    }
+
+    /**
+     * Returns the vertex from which V was reached, or 0 if V was a
+     * starting vertex or has not been reached.
+     */
+    public int parent(int v) {
+        return v > 0 && v < _parents.length ? _parents[v] : 0;
+    }
+
+    /**
+     * Returns a new array whose element V is depth(V), for all vertex
+     * numbers V up to the graph's maxVertex() when last traversed.
+     */
+    public int[] depths() {
+        return _depths.clone();
+    }
+
+    /**
+     * Returns a new array whose element V is parent(V), for all vertex
+     * numbers V up to the graph's maxVertex() when last traversed.
+     */
+    public int[] parents() {
+        return _parents.clone();
+    }
+
+    /**
+     * Returns true iff V has been reached.
+     */
+    public boolean reached(int v) {
+        return depth(v) >= 0;
+    }
+
+    /**
+     * Perform a visit on vertex V, which has just been reached.  Returns
+     * false iff the traversal is to terminate immediately.  Vertices
+     * reached by a bottom-up step are visited in increasing order.  Does
+     * nothing by default.
+     */
+    protected boolean visit(int v) {
+        return true;
+    }
+
+    /**
+     * Returns the direction in which to reach the vertices at DEPTH from
+     * the frontier, which has FRONTIERSIZE vertices with FRONTIEREDGES
+     * edges leaving them.  The previous frontier had LASTSIZE vertices
+     * and was expanded in direction PREVIOUS (which is TOP_DOWN for the
+     * first level).  Called once for each level, before it is expanded.
+     */
+    protected Direction direction(int depth, int frontierSize,
+                                  long frontierEdges, int lastSize,
+                                  Direction previous) {
+        if (previous == Direction.TOP_DOWN) {
+            return frontierEdges > _unexploredEdges / _alpha
+                ? Direction.BOTTOM_UP : Direction.TOP_DOWN;
+        }
+        return frontierSize < lastSize
+            && frontierSize < _G.vertexSize() / _beta
+            ? Direction.TOP_DOWN : Direction.BOTTOM_UP;
+    }
+
+    /**
+     * Returns the graph being traversed.
+     */
+    protected Graph getG() {
+        return _G;
+    }
+
+    /**
+     * Expand levels until none remain or a visit stops the traversal,
+     * starting with the level at _depth if it was interrupted, and
+     * otherwise with the level after the vertices in the next frontier.
+     * Returns false iff stopped.
+     */
+    private boolean finish() {
+        while (true) {
+            if (_expanding) {
+                boolean go = _direction == Direction.TOP_DOWN
+                    ? topDown(_depth) : bottomUp(_depth);
+                if (!go) {
+                    return false;
+                }
+                _expanding = false;
+            }
+            if (_nextSize == 0) {
+                return true;
+            }
+            int lastSize = _frontierSize;
+            swapFrontiers();
+            _depth += 1;
+            _direction = direction(_depth, _frontierSize, _frontierEdges,
+                                   lastSize, _direction);
+            _expanding = true;
+        }
+    }
+
+    /**
+     * Reach the vertices at DEPTH by scanning the successors of the
+     * frontier.  Returns false iff the traversal is to terminate.
+     */
+    private boolean topDown(int depth) {
+        for (int i = 0; i < _frontierSize; i += 1) {
+            int u = _frontier[i];
+            IntIteration successors = _G.intSuccessors(u);
+            while (successors.hasNext()) {
+                int v = successors.nextInt();
+                if (_depths[v] < 0 && !reach(v, depth, u)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reach the vertices at DEPTH by scanning the predecessors of the
+     * vertices not yet reached.  Returns false iff the traversal is to
+     * terminate.
+     */
+    private boolean bottomUp(int depth) {
+        for (int i = 0; i < _frontierSize; i += 1) {
+            int u = _frontier[i];
+            _inFrontier[u >>> WORD_SHIFT] |= 1L << u;
+        }
+        boolean result = true;
+        for (int v = 1; v < _depths.length && result; v += 1) {
+            if (_depths[v] >= 0 || !_G.contains(v)) {
+                continue;
+            }
+            IntIteration predecessors = _G.intPredecessors(v);
+            while (predecessors.hasNext()) {
+                int u = predecessors.nextInt();
+                if ((_inFrontier[u >>> WORD_SHIFT] & (1L << u)) != 0) {
+                    result = reach(v, depth, u);
+                    break;
+                }
+            }
+        }
+        for (int i = 0; i < _frontierSize; i += 1) {
+            _inFrontier[_frontier[i] >>> WORD_SHIFT] = 0;
+        }
+        return result;
+    }
+
+    /**
+     * Record that V is reached at DEPTH from PARENT, add it to the next
+     * frontier, and visit it.  Returns false iff the traversal is to
+     * terminate.
+     */
+    private boolean reach(int v, int depth, int parent) {
+        _depths[v] = depth;
+        _parents[v] = parent;
+        if (_nextSize == _next.length) {
+            _next = Arrays.copyOf(_next, 2 * _nextSize);
+        }
+        _next[_nextSize] = v;
+        _nextSize += 1;
+        int degree = _G.outDegree(v);
+        _nextEdges += degree;
+        _unexploredEdges -= degree;
+        return visit(v);
+    }
+
+    /**
+     * Make the next frontier current, and empty the next frontier.
+     */
+    private void swapFrontiers() {
+        int[] frontier = _frontier;
+        _frontier = _next;
+        _next = frontier;
+        _frontierSize = _nextSize;
+        _frontierEdges = _nextEdges;
+        _nextSize = 0;
+        _nextEdges = 0;
+    }
+
+    /**
+     * Enlarge my per-vertex tables if vertices have been added to the
+     * graph since they were made.
+     */
+    private void grow() {
+        int n = _G.maxVertex() + 1;
+        if (n <= _depths.length) {
+            return;
+        }
+        int old = _depths.length;
+        _depths = Arrays.copyOf(_depths, n);
+        Arrays.fill(_depths, old, n, -1);
+        _parents = Arrays.copyOf(_parents, n);
+        _inFrontier = new long[(n + Long.SIZE - 1) >>> WORD_SHIFT];
+        _unexploredEdges += outDegrees(old, n);
+    }
+
+    /**
+     * Returns the total out-degree of the vertices of the graph numbered
+     * from LO to HI-1.
+     */
+    private long outDegrees(int lo, int hi) {
+        long result = 0;
+        for (int v = Math.max(lo, 1); v < hi; v += 1) {
+            if (_G.contains(v)) {
+                result += _G.outDegree(v);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Default ALPHA and BETA thresholds.
+     */
+    public static final int DEFAULT_ALPHA = 15, DEFAULT_BETA = 18;
+
+    /**
+     * Log base 2 of the number of bits in a word of _inFrontier.
+     */
+    private static final int WORD_SHIFT = 6;
+
+    /**
+     * The graph being traversed.
+     */
+    private final Graph _G;
+
+    /**
+     * The switching thresholds.
+     */
+    private final int _alpha, _beta;
+
+    /**
+     * The depths of the vertices, indexed by vertex number, or -1 for
+     * vertices not reached.
+     */
+    private int[] _depths;
+
+    /**
+     * The parents of the vertices, indexed by vertex number.
+     */
+    private int[] _parents;
+
+    /**
+     * During a bottom-up step, bit V % 64 of word V / 64 is set iff
+     * vertex V is in the frontier.  All clear otherwise.
+     */
+    private long[] _inFrontier;
+
+    /**
+     * The frontier is _frontier[0 .. _frontierSize-1], and the vertices
+     * reached so far at the next depth are _next[0 .. _nextSize-1].
+     */
+    private int[] _frontier = new int[16], _next = new int[16];
+
+    /**
+     * The sizes of the current and next frontiers.
+     */
+    private int _frontierSize, _nextSize;
+
+    /**
+     * The numbers of edges leaving the current and next frontiers.
+     */
+    private long _frontierEdges, _nextEdges;
+
+    /**
+     * The number of edges leaving vertices not yet reached.
+     */
+    private long _unexploredEdges;
+
+    /**
+     * The depth of the vertices in the next frontier.
+     */
+    private int _depth;
+
+    /**
+     * The direction chosen for the level at _depth.
+     */
+    private Direction _direction;
+
+    /**
+     * True iff the level at _depth has been begun but not finished,
+     * because a visit stopped the traversal.
+     */
+    private boolean _expanding;
+}
@@ -0,0 +1,108 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+/**
+ * A primitive double-valued label on each edge of a Graph, kept outside
+ * the Java heap in a column indexed by edge id.  This suits numerous
+ * numeric labels, such as the lengths of the roads in a large map,
+ * which would otherwise cost a boxed object per edge.  Every edge's
+ * value starts at 0.
+ * <p>
+ * A column obtained from LabeledGraph.newEdgeColumn() is kept up to
+ * date as edges are removed from the LabeledGraph: since edge ids are
+ * reused, the value of a removed edge is reset to 0.  A column may not
+ * be used after it is closed; as for OffHeapGraph, closing does not
+ * itself free its storage, and that storage counts against the JVM's
+ * -XX:MaxDirectMemorySize.
+ *
+ * @author John Schulz
+ */
+public class EdgeColumn implements AutoCloseable {
+
+    /**
+     * A column of values for the edges of G, initially all 0.
+     */
+    EdgeColumn(Graph G) {
+        _G = G;
+        _values = new OffHeapArray((G.edgeSize() + 1L) * Double.BYTES);
+    }
+
+    /**
+     * Returns the value on edge (U, V), which must be an edge of my
+     * graph.
+     */
+    public double get(int u, int v) {
+        long e = id(u, v);
+        return e < capacity() ? _values.getDouble(e) : 0.0;
+    }
+
+    /**
+     * Set the value on edge (U, V), which must be an edge of my graph,
+     * to X.
+     */
+    public void set(int u, int v, double x) {
+        long e = id(u, v);
+        if (e >= capacity()) {
+            OffHeapArray values =
+                new OffHeapArray(Math.max(e + 1, 2 * capacity())
+                                 * Double.BYTES);
+            _values.copyTo(values);
+            _values.close();
+            _values = values;
+        }
+        _values.putDouble(e, x);
+    }
+
+    /**
+     * Invalidate me, so that I may not be used afterwards, and drop my
+     * references to my storage, which is freed once it is collected.
+     */
+    @Override
+    public void close() {
+        _values.close();
+    }
+
+    /**
+     * Returns true iff I have been closed.
+     */
+    public boolean isClosed() {
+        return _values.isClosed();
+    }
+
+    /**
+     * Reset the value of the edge whose id is E to 0.
+     */
+    void clear(int e) {
+        if (e < capacity()) {
+            _values.putDouble(e, 0.0);
+        }
+    }
+
+    /**
+     * Returns the id of edge (U, V) in my graph, which must exist.
+     */
+    private int id(int u, int v) {
+        int e = _G.edgeId(u, v);
+        if (e == 0) {
+            throw new IllegalArgumentException("no such edge");
+        }
+        return e;
+    }
+
+    /**
+     * Returns the number of values I have room for.
+     */
+    private long capacity() {
+        return _values.size() / Double.BYTES;
+    }
+
+    /**
+     * The graph whose edges I label.
+     */
+    private final Graph _G;
+    /**
+     * The value for the edge whose id is E is double number E.
+     */
+    private OffHeapArray _values;
+}
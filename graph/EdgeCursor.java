@@ -0,0 +1,113 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.NoSuchElementException;
+
+/**
+ * A cursor over the edges of a Graph that presents one edge at a time
+ * through primitive getters.  Unlike edges(), it creates no arrays: the
+ * same cursor object represents each edge in turn, and its getters
+ * describe the edge reached by the last call of next().  For example,
+ * EdgeCursor e = G.edgeCursor();
+ * while (e.next()) {
+ * out.println(e.source() + " " + e.target() + " " + e.edgeId());
+ * }
+ * Edges are visited in the same order as by G.edges().  The graph must
+ * not change while the cursor is in use.
+ *
+ * @author John Schulz
+ */
+public abstract class EdgeCursor {
+
+    /**
+     * Advance to the next edge, returning true, or return false if there
+     * are no more edges.
+     */
+    public abstract boolean next();
+
+    /**
+     * Returns the source of the current edge.
+     */
+    public abstract int source();
+
+    /**
+     * Returns the target of the current edge.
+     */
+    public abstract int target();
+
+    /**
+     * Returns the id of the current edge, as for Graph.add(u, v).
+     */
+    public abstract int edgeId();
+
+    /**
+     * Advance over as many edges as will fit in SRC and DST, storing the
+     * source and target of each in order starting at SRC[0] and DST[0],
+     * and return how many were stored.  Returns 0 only if there are no
+     * more edges or one of the arrays is empty.  If the arrays are
+     * filled, the cursor is left at the last edge stored; otherwise the
+     * edges are exhausted.
+     */
+    public int fill(int[] src, int[] dst) {
+        int n, limit = Math.min(src.length, dst.length);
+        for (n = 0; n < limit && next(); n += 1) {
+            src[n] = source();
+            dst[n] = target();
+        }
+        return n;
+    }
+
+    /**
+     * Throw NoSuchElementException unless CURRENT, which tells whether
+     * there is a current edge: there is none before the first call of
+     * next() or after it returns false.
+     */
+    void checkCurrent(boolean current) {
+        if (!current) {
+            throw new NoSuchElementException("no current edge");
+        }
+    }
+
+    /**
+     * Returns a cursor over the edges of G that reads G.edges(), using
+     * G's edgeId for the ids.
+     */
+    static EdgeCursor of(Graph G) {
+        return new EdgeCursor() {
+            @Override
+            public boolean next() {
+                _edge = _edges.hasNext() ? _edges.next() : null;
+                return _edge != null;
+            }
+
+            @Override
+            public int source() {
+                checkCurrent(_edge != null);
+                return _edge[0];
+            }
+
+            @Override
+            public int target() {
+                checkCurrent(_edge != null);
+                return _edge[1];
+            }
+
+            @Override
+            public int edgeId() {
+                checkCurrent(_edge != null);
+                return G.edgeId(_edge[0], _edge[1]);
+            }
+
+            /**
+             * The edges of G.
+             */
+            private final Iteration<int[]> _edges = G.edges();
+
+            /**
+             * The current edge, or null if none.
+             */
+            private int[] _edge;
+        };
+    }
+}
@@ -0,0 +1,107 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+
+/**
+ * A Spliterator over the edges of a Graph whose sources lie in a given
+ * range of vertex numbers, delivered in the form described in
+ * Graph.edgeStream: by source, then by target, with each undirected edge
+ * delivered once, from its smaller end.  It splits by halving the range
+ * of sources and estimates the size of each part as the same share of
+ * all edges, which is accurate when the edges are spread evenly over
+ * the vertices.  The graph must not change while it is in use.
+ *
+ * @author John Schulz
+ */
+class EdgeSpliterator implements Spliterator.OfLong {
+
+    /**
+     * A Spliterator over all edges of G.
+     */
+    EdgeSpliterator(Graph G) {
+        this(G, 1, G.maxVertex() + 1, G.edgeSize());
+    }
+
+    /**
+     * A Spliterator over the edges of G whose sources U satisfy
+     * LO <= U < HI, of which there are estimated to be SIZE.
+     */
+    private EdgeSpliterator(Graph G, int lo, int hi, long size) {
+        _G = G;
+        _lo = lo;
+        _hi = hi;
+        _size = size;
+    }
+
+    @Override
+    public boolean tryAdvance(LongConsumer action) {
+        while (true) {
+            while (_succ != null && _succ.hasNext()) {
+                int v = _succ.nextInt();
+                if (_G.isDirected() || v >= _source) {
+                    action.accept(Graph.edge(_source, v));
+                    return true;
+                }
+            }
+            if (_lo >= _hi) {
+                _succ = null;
+                return false;
+            }
+            _source = _lo;
+            _succ = _G.intSuccessors(_lo);
+            _lo += 1;
+        }
+    }
+
+    @Override
+    public Spliterator.OfLong trySplit() {
+        int mid = (int) (((long) _lo + _hi) >>> 1);
+        if (mid <= _lo) {
+            return null;
+        }
+        long half = _size * (mid - _lo) / (_hi - _lo);
+        EdgeSpliterator prefix = new EdgeSpliterator(_G, _lo, mid, half);
+        prefix._source = _source;
+        prefix._succ = _succ;
+        _succ = null;
+        _lo = mid;
+        _size -= half;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return _lo < _hi || _succ != null ? _size : 0;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | DISTINCT | NONNULL;
+    }
+
+    /**
+     * The graph whose edges I deliver.
+     */
+    private final Graph _G;
+    /**
+     * The sources remaining to examine after the current one are
+     * _lo .. _hi-1.
+     */
+    private int _lo, _hi;
+    /**
+     * Estimated number of edges remaining.
+     */
+    private long _size;
+    /**
+     * The current source, whose remaining successors are in _succ (null
+     * if there is no current source).
+     */
+    private int _source;
+    /**
+     * The remaining successors of _source.
+     */
+    private IntIteration _succ;
+}
@@ -0,0 +1,232 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+
+/**
+ * The edges of a GraphObj, indexed by edge id.  Ids are allocated
+ * densely: a new edge always gets the smallest positive id not used by
+ * another current edge, so ids freed by removing edges are reused and
+ * the largest id never exceeds the largest number of edges the graph
+ * has held at once.
+ *
+ * @author John Schulz
+ */
+class EdgeTable {
+
+    /**
+     * An empty table.
+     */
+    EdgeTable() {
+        _ids = new IdSet();
+        _sources = new int[INITIAL_EDGES];
+        _targets = new int[INITIAL_EDGES];
+    }
+
+    /**
+     * Returns the number of edges.
+     */
+    int size() {
+        return _ids.size();
+    }
+
+    /**
+     * Record an edge from U to V and return its new id.
+     */
+    int add(int u, int v) {
+        int e = _ids.add();
+        if (e >= _sources.length) {
+            int n = Math.max(e + 1, 2 * _sources.length);
+            _sources = Arrays.copyOf(_sources, n);
+            _targets = Arrays.copyOf(_targets, n);
+        }
+        _sources[e] = u;
+        _targets[e] = v;
+        return e;
+    }
+
+    /**
+     * Remove the edge whose id is E, making E available for reuse.
+     */
+    void remove(int e) {
+        _ids.remove(e);
+    }
+
+    /**
+     * Returns the source vertex of the edge whose id is E.
+     */
+    int source(int e) {
+        return _sources[e];
+    }
+
+    /**
+     * Returns the target vertex of the edge whose id is E.
+     */
+    int target(int e) {
+        return _targets[e];
+    }
+
+    /**
+     * Returns the smallest id >= E of a current edge, or 0 if there is
+     * none.
+     */
+    int next(int e) {
+        return _ids.next(e);
+    }
+
+    /**
+     * Returns a Spliterator over my edges in order of id, each packed as
+     * by Graph.edge.  Because ids are dense, splitting the range of ids
+     * in half splits the edges about in half.  I must not change while
+     * it is in use.
+     */
+    Spliterator.OfLong spliterator() {
+        return new EdgeIdSpliterator(1, _ids.max() + 1, size());
+    }
+
+    /**
+     * Returns a cursor over my edges in order of id.  Its fill copies
+     * runs of edges straight out of my arrays.  I must not change while
+     * it is in use.
+     */
+    EdgeCursor cursor() {
+        return new EdgeCursor() {
+            @Override
+            public boolean next() {
+                _e = _e < 0 ? 0 : _ids.next(_e + 1);
+                if (_e == 0) {
+                    _e = -1;
+                }
+                return _e > 0;
+            }
+
+            @Override
+            public int source() {
+                checkCurrent(_e > 0);
+                return _sources[_e];
+            }
+
+            @Override
+            public int target() {
+                checkCurrent(_e > 0);
+                return _targets[_e];
+            }
+
+            @Override
+            public int edgeId() {
+                checkCurrent(_e > 0);
+                return _e;
+            }
+
+            @Override
+            public int fill(int[] src, int[] dst) {
+                int limit = Math.min(src.length, dst.length), n = 0;
+                while (n < limit && next()) {
+                    int end = _e + 1;
+                    while (end <= _ids.max() && end - _e < limit - n
+                           && _ids.contains(end)) {
+                        end += 1;
+                    }
+                    System.arraycopy(_sources, _e, src, n, end - _e);
+                    System.arraycopy(_targets, _e, dst, n, end - _e);
+                    n += end - _e;
+                    _e = end - 1;
+                }
+                return n;
+            }
+
+            /**
+             * The id of the current edge, 0 before the first, or -1 after
+             * the last.
+             */
+            private int _e;
+        };
+    }
+
+    /**
+     * A Spliterator over the edges whose ids lie in a range.
+     */
+    private class EdgeIdSpliterator implements Spliterator.OfLong {
+        /**
+         * A Spliterator over the edges whose ids E satisfy LO <= E < HI,
+         * of which there are estimated to be SIZE.
+         */
+        EdgeIdSpliterator(int lo, int hi, long size) {
+            _lo = lo;
+            _hi = hi;
+            _size = size;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            int e = _lo < _hi ? _ids.next(_lo) : 0;
+            if (e == 0 || e >= _hi) {
+                _lo = _hi;
+                return false;
+            }
+            _lo = e + 1;
+            action.accept(Graph.edge(_sources[e], _targets[e]));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            for (int e = _lo; e < _hi; e += 1) {
+                if (_ids.contains(e)) {
+                    action.accept(Graph.edge(_sources[e], _targets[e]));
+                }
+            }
+            _lo = _hi;
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            int mid = (int) (((long) _lo + _hi) >>> 1);
+            if (mid <= _lo) {
+                return null;
+            }
+            long half = _size * (mid - _lo) / (_hi - _lo);
+            Spliterator.OfLong prefix = new EdgeIdSpliterator(_lo, mid, half);
+            _lo = mid;
+            _size -= half;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return _lo < _hi ? _size : 0;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | DISTINCT | NONNULL;
+        }
+
+        /**
+         * The ids remaining to examine are _lo .. _hi-1.
+         */
+        private int _lo, _hi;
+        /**
+         * Estimated number of edges remaining.
+         */
+        private long _size;
+    }
+
+    /**
+     * Initial capacity of the table.
+     */
+    private static final int INITIAL_EDGES = 16;
+
+    /**
+     * The ids in use.
+     */
+    private final IdSet _ids;
+
+    /**
+     * The ends of the edge with id E are _sources[E] and _targets[E].
+     */
+    private int[] _sources, _targets;
+}
@@ -14,6 +14,12 @@ package graph;
  *   + You may add additional non-public classes to the graph package.
  */
 
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
 /**
  * Represents a general unlabeled graph whose vertices are denoted by
  * positive integers.  A graph may be directed or undirected.  For
@@ -118,6 +124,83 @@ public abstract class Graph {
      */
     public abstract Iteration<Integer> predecessors(int v);
 
+    /**
+     * Returns an iteration over all vertices in numerical order, as
+     * primitive ints.  This default implementation unboxes vertices().
+     */
+    public IntIteration intVertices() {
+        return IntIteration.of(vertices());
+    }
+
+    /**
+     * Returns an iteration over all successors of V, as primitive ints.
+     * Empty if V is not my vertex.  This default implementation unboxes
+     * successors(V).
+     */
+    public IntIteration intSuccessors(int v) {
+        return IntIteration.of(successors(v));
+    }
+
+    /**
+     * Returns an iteration over all predecessors of V, as primitive ints.
+     * Empty if V is not my vertex.  This default implementation unboxes
+     * predecessors(V).
+     */
+    public IntIteration intPredecessors(int v) {
+        return IntIteration.of(predecessors(v));
+    }
+
+    /**
+     * Add all successors of V to SET, a bitset that holds vertex W in bit
+     * W % 64 of SET[W / 64].  Successors too large for SET are ignored.
+     * This default walks intSuccessors(V); graphs that keep their
+     * adjacencies as bitsets combine them a word at a time.
+     */
+    public void unionSuccessors(int v, long[] set) {
+        Adjacency.union(intSuccessors(v), set);
+    }
+
+    /**
+     * Remove from SET, a bitset as for unionSuccessors, every vertex that
+     * is not a successor of V.
+     */
+    public void intersectSuccessors(int v, long[] set) {
+        Adjacency.intersect(intSuccessors(v), set);
+    }
+
+    /**
+     * Remove all successors of V from SET, a bitset as for
+     * unionSuccessors.
+     */
+    public void removeSuccessors(int v, long[] set) {
+        Adjacency.difference(intSuccessors(v), set);
+    }
+
+    /**
+     * Returns a stream of all my vertices in numerical order.  It may be
+     * made parallel(): it splits into parts covering equal ranges of
+     * vertex numbers.  I must not change while it is in use.
+     */
+    public IntStream vertexStream() {
+        return StreamSupport.intStream(new VertexSpliterator(this), false);
+    }
+
+    /**
+     * Returns a stream of all successors of V, which is empty if V is not
+     * my vertex.  I must not change while it is in use.
+     */
+    public IntStream successorStream(int v) {
+        return adjacentStream(intSuccessors(v), outDegree(v));
+    }
+
+    /**
+     * Returns a stream of all predecessors of V, which is empty if V is
+     * not my vertex.  I must not change while it is in use.
+     */
+    public IntStream predecessorStream(int v) {
+        return adjacentStream(intPredecessors(v), inDegree(v));
+    }
+
     /**
      * Returns successors(V).  This is a synonym typically used on
      * undirected graphs.
@@ -135,6 +218,56 @@ public abstract class Graph {
      */
     public abstract Iteration<int[]> edges();
 
+    /**
+     * Returns a cursor over all my edges, in the same order as edges(),
+     * that reports each edge's ends and id without creating arrays.
+     * This default reads edges() and looks up each id with edgeId.
+     */
+    public EdgeCursor edgeCursor() {
+        return EdgeCursor.of(this);
+    }
+
+    /**
+     * Returns a stream of all my edges, each packed into a long from
+     * which edgeSource and edgeTarget extract its ends, so that no edge
+     * object is created.  Edges are ordered as for edges().  It may be
+     * made parallel(); this default splits into parts whose sources
+     * cover equal ranges of vertex numbers and delivers an undirected
+     * edge once, from its smaller end.  I must not change while it is in
+     * use.  For example, to count self edges,
+     * G.edgeStream().parallel()
+     *  .filter(e -> Graph.edgeSource(e) == Graph.edgeTarget(e)).count()
+     */
+    public LongStream edgeStream() {
+        return StreamSupport.longStream(new EdgeSpliterator(this), false);
+    }
+
+    /**
+     * Returns the source of EDGE, an edge from edgeStream().
+     */
+    public static int edgeSource(long edge) {
+        return (int) (edge >>> Integer.SIZE);
+    }
+
+    /**
+     * Returns the target of EDGE, an edge from edgeStream().
+     */
+    public static int edgeTarget(long edge) {
+        return (int) edge;
+    }
+
+    /**
+     * Returns an immutable Graph with the same vertices and edges as I
+     * have now, which later changes to me do not affect.  Traversals of
+     * the result are thus repeatable even while I continue to change.
+     * This default copies me into a new CompactGraph, in time
+     * proportional to my size; graphs that are designed to change share
+     * structure with their snapshots instead.
+     */
+    public Graph snapshot() {
+        return new CompactGraph(this);
+    }
+
     /* Non-public methods for internal use. */
 
     /**
@@ -146,6 +279,24 @@ public abstract class Graph {
         }
     }
 
+    /**
+     * Returns the edge from U to V as delivered by edgeStream().
+     */
+    static long edge(int u, int v) {
+        return ((long) u << Integer.SIZE) | (v & 0xffffffffL);
+    }
+
+    /**
+     * Returns a stream of the values delivered by IT, of which there are
+     * SIZE.
+     */
+    static IntStream adjacentStream(IntIteration it, int size) {
+        return StreamSupport.intStream(
+            Spliterators.spliterator(it, size, Spliterator.ORDERED
+                                     | Spliterator.DISTINCT
+                                     | Spliterator.NONNULL), false);
+    }
+
     /**
      * Returns a unique positive identifier for the edge (U, V), if it
      * is present, or 0 otherwise.  If edges are not removed from the graph,
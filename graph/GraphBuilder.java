@@ -0,0 +1,311 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Accumulates the vertices and edges of a graph and then creates the
+ * graph in one step.  Unlike Graph.add(u, v), adding an edge here does
+ * no searching: edges are simply recorded, and are sorted and stripped
+ * of duplicates all at once (in parallel, for large inputs) when a graph
+ * is built.  Vertices are numbered consecutively from 1, as they would
+ * be by Graph.add() on an empty graph.
+ * <p>
+ * Optional vertex and edge labels are kept alongside, to be applied to a
+ * LabeledGraph over the result with label.  As with LabeledGraph.add,
+ * the last label given for an edge is the one that sticks.  For example,
+ * GraphBuilder<Location, Road> b = new GraphBuilder<>(true);
+ * ...
+ * RoadMap map = b.label(new RoadMap(b.build()));
+ *
+ * @author John Schulz
+ */
+public class GraphBuilder<VL, EL> {
+
+    /**
+     * A builder for a directed graph if DIRECTED, and otherwise for an
+     * undirected graph.
+     */
+    public GraphBuilder(boolean directed) {
+        _directed = directed;
+        _keys = new long[INITIAL_EDGES];
+    }
+
+    /**
+     * Returns true iff I build directed graphs.
+     */
+    public boolean isDirected() {
+        return _directed;
+    }
+
+    /**
+     * Returns the number of vertices added so far.
+     */
+    public int vertexSize() {
+        return _vertexSize;
+    }
+
+    /**
+     * Returns the number of edges added so far, counting duplicates.
+     */
+    public int edgeCount() {
+        return _size;
+    }
+
+    /**
+     * Add a new vertex and return its number.
+     */
+    public int add() {
+        _vertexSize += 1;
+        return _vertexSize;
+    }
+
+    /**
+     * Add a new vertex labeled LAB and return its number.
+     */
+    public int add(VL lab) {
+        int v = add();
+        LabeledGraph.expand(_vertexLabels, v + 1);
+        _vertexLabels.set(v, lab);
+        return v;
+    }
+
+    /**
+     * Make sure that vertices 1 through N all exist.
+     */
+    public void addVertices(int n) {
+        _vertexSize = Math.max(_vertexSize, n);
+    }
+
+    /**
+     * Add an edge from U to V (or between them, if undirected).  U and V
+     * must already be vertices.
+     */
+    public void add(int u, int v) {
+        record(u, v, NO_LABEL);
+    }
+
+    /**
+     * Add an edge from U to V labeled LAB.
+     */
+    public void add(int u, int v, EL lab) {
+        record(u, v, lab);
+    }
+
+    /**
+     * Add the edges (SOURCES[i], TARGETS[i]) for all i.  The arrays must
+     * have the same length.
+     */
+    public void add(int[] sources, int[] targets) {
+        add(sources, targets, null);
+    }
+
+    /**
+     * Add the edges (SOURCES[i], TARGETS[i]) with labels LABELS[i], for
+     * all i.  LABELS may be null, meaning no labels.  The arrays must
+     * have the same length.
+     */
+    public void add(int[] sources, int[] targets, EL[] labels) {
+        if (sources.length != targets.length
+            || labels != null && labels.length != sources.length) {
+            throw new IllegalArgumentException("mismatched edge arrays");
+        }
+        reserve(_size + sources.length);
+        for (int i = 0; i < sources.length; i += 1) {
+            record(sources[i], targets[i],
+                   labels == null ? NO_LABEL : labels[i]);
+        }
+    }
+
+    /**
+     * Returns a new DirectedGraph or UndirectedGraph containing my
+     * vertices and edges.  The edges get ids 1 through edgeSize() in
+     * increasing order of their ends.  It keeps its adjacency lists as
+     * selected for my size and density by Storage.forDensity.
+     */
+    public Graph build() {
+        finish();
+        return build(Storage.forDensity(_vertexSize, _edges.length,
+                                        _directed));
+    }
+
+    /**
+     * Returns a new DirectedGraph or UndirectedGraph containing my
+     * vertices and edges, which keeps its adjacency lists as selected by
+     * STORAGE.  The edges are numbered as for build().
+     */
+    public Graph build(Storage storage) {
+        finish();
+        GraphObj result = _directed ? new DirectedGraph(storage)
+            : new UndirectedGraph(storage);
+        result.load(_vertexSize, _edges, _edges.length);
+        return result;
+    }
+
+    /**
+     * Returns a new immutable CompactGraph containing my vertices and
+     * edges.
+     */
+    public CompactGraph buildCompact() {
+        finish();
+        return new CompactGraph(_directed, _vertexSize,
+                                _edges, _edges.length);
+    }
+
+    /**
+     * Returns a new OffHeapGraph containing my vertices and edges.  The
+     * caller is responsible for closing it.
+     */
+    public OffHeapGraph buildOffHeap() {
+        finish();
+        return new OffHeapGraph(_directed, _vertexSize,
+                                _edges, _edges.length);
+    }
+
+    /**
+     * Apply my vertex and edge labels to G, which must be a labeling of a
+     * graph produced by build, buildCompact, or buildOffHeap, and return
+     * G.
+     */
+    public <G extends LabeledGraph<VL, EL>> G label(G g) {
+        for (int v = 1; v < _vertexLabels.size(); v += 1) {
+            if (_vertexLabels.get(v) != null) {
+                g.setLabel(v, _vertexLabels.get(v));
+            }
+        }
+        if (_labels != null) {
+            finish();
+            for (int i = 0; i < _edges.length; i += 1) {
+                if (_edgeLabels[i] != NO_LABEL) {
+                    @SuppressWarnings("unchecked")
+                    EL lab = (EL) _edgeLabels[i];
+                    g.setLabel(GraphObj.source(_edges[i]),
+                               GraphObj.target(_edges[i]), lab);
+                }
+            }
+        }
+        return g;
+    }
+
+    /**
+     * Record an edge from U to V labeled LAB.
+     */
+    private void record(int u, int v, Object lab) {
+        if (u <= 0 || u > _vertexSize || v <= 0 || v > _vertexSize) {
+            throw new IllegalArgumentException("vertex not from Graph");
+        }
+        if (!_directed && u > v) {
+            int t = u;
+            u = v;
+            v = t;
+        }
+        reserve(_size + 1);
+        _keys[_size] = ((long) u << Integer.SIZE) | v;
+        if (lab != NO_LABEL && _labels == null) {
+            _labels = new Object[_keys.length];
+            Arrays.fill(_labels, 0, _size, NO_LABEL);
+        }
+        if (_labels != null) {
+            _labels[_size] = lab;
+        }
+        _size += 1;
+        _edges = null;
+    }
+
+    /**
+     * Make room for at least N edges.
+     */
+    private void reserve(int n) {
+        if (n > _keys.length) {
+            int size = Math.max(n, 2 * _keys.length);
+            _keys = Arrays.copyOf(_keys, size);
+            if (_labels != null) {
+                _labels = Arrays.copyOf(_labels, size);
+            }
+        }
+    }
+
+    /**
+     * Set _edges to my distinct edges in increasing order and, if I have
+     * labels, _edgeLabels to their final labels.
+     */
+    private void finish() {
+        if (_edges != null) {
+            return;
+        }
+        long[] sorted = Arrays.copyOf(_keys, _size);
+        if (_size >= PARALLEL_THRESHOLD) {
+            Arrays.parallelSort(sorted);
+        } else {
+            Arrays.sort(sorted);
+        }
+        int m = 0;
+        for (int i = 0; i < _size; i += 1) {
+            if (m == 0 || sorted[i] != sorted[m - 1]) {
+                sorted[m] = sorted[i];
+                m += 1;
+            }
+        }
+        _edges = Arrays.copyOf(sorted, m);
+        if (_labels != null) {
+            _edgeLabels = new Object[m];
+            Arrays.fill(_edgeLabels, NO_LABEL);
+            for (int i = 0; i < _size; i += 1) {
+                if (_labels[i] != NO_LABEL) {
+                    _edgeLabels[Arrays.binarySearch(_edges, _keys[i])] =
+                        _labels[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks edges that were added without a label.
+     */
+    private static final Object NO_LABEL = new Object();
+    /**
+     * Number of edges at which sorting is done in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    /**
+     * Initial capacity for edges.
+     */
+    private static final int INITIAL_EDGES = 16;
+
+    /**
+     * True iff I build directed graphs.
+     */
+    private final boolean _directed;
+    /**
+     * Number of vertices.
+     */
+    private int _vertexSize;
+    /**
+     * The edges added, in order, packed as for GraphObj.load.  Only the
+     * first _size entries are meaningful.
+     */
+    private long[] _keys;
+    /**
+     * The number of edges added.
+     */
+    private int _size;
+    /**
+     * The label given with each entry of _keys (NO_LABEL if none), or
+     * null if no labels have been given.
+     */
+    private Object[] _labels;
+    /**
+     * The distinct edges in increasing order, or null if not yet computed.
+     */
+    private long[] _edges;
+    /**
+     * The final label of each entry of _edges.
+     */
+    private Object[] _edgeLabels;
+    /**
+     * Labels of vertices, indexed by vertex number.
+     */
+    private final ArrayList<VL> _vertexLabels = new ArrayList<>();
+}
@@ -0,0 +1,403 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Reads and writes graphs in a binary file format designed to be
+ * memory-mapped: map returns a MappedGraph that answers queries straight
+ * from the file, with no parsing or copying, however large it is.
+ * <p>
+ * All values are little-endian.  A file starts with a header of
+ * HEADER_SIZE bytes:
+ *     long  MAGIC ("GRAPHBIN" in ASCII)
+ *     int   format version (VERSION)
+ *     int   flags (DIRECTED, LABELED)
+ *     int   vertexSize, maxVertex, edgeSize
+ *     int   number of sections (SECTIONS)
+ *     long  offset and length in bytes of each section, in order
+ * The sections, each starting at a multiple of eight bytes, are the
+ * arrays of an OffHeapGraph (vertex bitset as longs; successor row
+ * offsets as longs; successor rows as ints; predecessor offsets and
+ * rows, which are the same sections as the successor ones if the graph
+ * is undirected), followed, if LABELED, by two string pools: vertex
+ * labels indexed by vertex number, and edge labels indexed by the edge
+ * ids of the mapped graph.  A pool is a section of bytes and a section
+ * of N+1 longs, string K occupying the bytes from offset K up to offset
+ * K+1.  An empty string there stands for null; otherwise, the first
+ * byte is 1 and the rest are the label in UTF-8.
+ *
+ * @author John Schulz
+ */
+public class GraphFile {
+
+    /**
+     * The version of the format written by this class.  map rejects files
+     * with any other version.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Write the vertices and edges of G to FILE.
+     */
+    public static void write(Graph G, File file) throws IOException {
+        writeFile(G, null, null, file);
+    }
+
+    /**
+     * Write the vertices, edges, and labels of G to FILE.  The labels are
+     * stored as strings, converted by VERTEXLABELS and EDGELABELS; null
+     * labels remain null.
+     */
+    public static <VL, EL> void write(LabeledGraph<VL, EL> G,
+                                      Function<? super VL, String>
+                                      vertexLabels,
+                                      Function<? super EL, String>
+                                      edgeLabels,
+                                      File file) throws IOException {
+        writeFile(G, v -> {
+            VL lab = G.getLabel(v);
+            return lab == null ? null : vertexLabels.apply(lab);
+        }, (u, v) -> {
+            EL lab = G.getLabel(u, v);
+            return lab == null ? null : edgeLabels.apply(lab);
+        }, file);
+    }
+
+    /**
+     * Returns the graph in FILE, which must have been written by write.
+     * The file should not be changed while the result is in use.
+     */
+    public static MappedGraph map(File file) throws IOException {
+        try (FileChannel in = FileChannel.open(file.toPath(), READ)) {
+            ByteBuffer header = newHeader();
+            while (header.hasRemaining() && in.read(header) >= 0) {
+                continue;
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE
+                || header.getLong() != MAGIC) {
+                throw new IOException("not a graph file: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported graph file version "
+                                      + version);
+            }
+            int flags = header.getInt();
+            int vertexSize = header.getInt(), maxVertex = header.getInt(),
+                edgeSize = header.getInt();
+            if (header.getInt() != SECTIONS || maxVertex < 0) {
+                throw corrupt(file);
+            }
+            OffHeapArray[] sections = new OffHeapArray[SECTIONS];
+            boolean directed = (flags & DIRECTED) != 0;
+            boolean labeled = (flags & LABELED) != 0;
+            for (int i = 0; i < SECTIONS; i += 1) {
+                long offset = header.getLong(), length = header.getLong();
+                if (i >= VERTEX_POOL && !labeled) {
+                    continue;
+                }
+                if (offset < HEADER_SIZE || length < 0
+                    || offset + length > in.size()) {
+                    throw corrupt(file);
+                }
+                sections[i] = new OffHeapArray(in, offset, length);
+            }
+            if (!directed) {
+                sections[IN_START] = sections[OUT_START];
+                sections[IN_SOURCES] = sections[OUT_TARGETS];
+            }
+            check(sections, maxVertex, labeled, file);
+            OffHeapArray[] arrays = new OffHeapArray[VERTEX_POOL];
+            System.arraycopy(sections, 0, arrays, 0, VERTEX_POOL);
+            return new MappedGraph(directed, vertexSize, maxVertex, edgeSize,
+                                   arrays,
+                                   labeled ? pool(sections, VERTEX_POOL)
+                                   : null,
+                                   labeled ? pool(sections, EDGE_POOL)
+                                   : null);
+        }
+    }
+
+    /**
+     * Write G to FILE, with vertex labels given by VERTEXLABELS and edge
+     * labels by EDGELABELS, or without labels if these are null.
+     */
+    private static void writeFile(Graph G, IntFunction<String> vertexLabels,
+                                  EdgeLabels edgeLabels, File file)
+        throws IOException {
+        OffHeapGraph csr = G instanceof OffHeapGraph ? (OffHeapGraph) G
+            : new OffHeapGraph(G);
+        try (FileChannel out =
+             FileChannel.open(file.toPath(), CREATE, TRUNCATE_EXISTING,
+                              WRITE)) {
+            long[] sections = new long[2 * SECTIONS];
+            OffHeapArray[] arrays = csr.arrays();
+            out.position(HEADER_SIZE);
+            for (int i = 0; i < arrays.length; i += 1) {
+                if (!G.isDirected() && i >= IN_START) {
+                    sections[2 * i] = sections[2 * (i - 2)];
+                    sections[2 * i + 1] = sections[2 * (i - 2) + 1];
+                } else {
+                    writeSection(out, arrays[i], sections, i);
+                }
+            }
+            if (vertexLabels != null) {
+                writePool(out, new LabelSource() {
+                    @Override
+                    public String next() {
+                        _v += 1;
+                        return csr.contains(_v) ? vertexLabels.apply(_v)
+                            : null;
+                    }
+
+                    /**
+                     * The last vertex number delivered.
+                     */
+                    private int _v = -1;
+                }, csr.maxVertex() + 1, sections, VERTEX_POOL);
+                writeEdgeLabels(out, csr, edgeLabels, sections);
+            }
+            ByteBuffer header = newHeader();
+            header.putLong(MAGIC).putInt(VERSION)
+                .putInt((G.isDirected() ? DIRECTED : 0)
+                        | (vertexLabels != null ? LABELED : 0))
+                .putInt(csr.vertexSize()).putInt(csr.maxVertex())
+                .putInt(csr.edgeSize()).putInt(SECTIONS);
+            for (long x : sections) {
+                header.putLong(x);
+            }
+            header.position(0);
+            out.position(0);
+            write(out, header);
+        } finally {
+            if (csr != G) {
+                csr.close();
+            }
+        }
+    }
+
+    /**
+     * Write the edge labels of CSR, given by LABELS, as a string pool
+     * indexed by edge id, recording its offsets in SECTIONS.
+     */
+    private static void writeEdgeLabels(FileChannel out, OffHeapGraph csr,
+                                        EdgeLabels labels, long[] sections)
+        throws IOException {
+        long entries = csr.arrays()[OUT_TARGETS].size() / Integer.BYTES;
+        writePool(out, new LabelSource() {
+            @Override
+            public String next() {
+                if (_u == 0) {
+                    _u = -1;
+                    return null;
+                }
+                while (!_succ.hasNext()) {
+                    _u = _vertices.nextInt();
+                    _succ = csr.intSuccessors(_u);
+                }
+                int v = _succ.nextInt();
+                return csr.isDirected() || _u <= v ? labels.label(_u, v)
+                    : null;
+            }
+
+            /**
+             * The vertex whose successors are being labeled, or 0 before
+             * the label for edge id 0.
+             */
+            private int _u;
+            /**
+             * The vertices of CSR not yet reached.
+             */
+            private final IntIteration _vertices = csr.intVertices();
+            /**
+             * The remaining successors of _u.
+             */
+            private IntIteration _succ = IntIteration.empty();
+        }, entries + 1, sections, EDGE_POOL);
+    }
+
+    /**
+     * Write the N strings delivered by LABELS as the string pool whose
+     * sections start at number K, recording their offsets and lengths in
+     * SECTIONS.
+     */
+    private static void writePool(FileChannel out, LabelSource labels,
+                                  long n, long[] sections, int k)
+        throws IOException {
+        OffHeapArray offsets = new OffHeapArray((n + 1) * Long.BYTES);
+        try {
+            align(out);
+            sections[2 * k] = out.position();
+            ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+            long size = 0;
+            for (long i = 0; i < n; i += 1) {
+                String label = labels.next();
+                if (label != null) {
+                    byte[] bytes = label.getBytes(StandardCharsets.UTF_8);
+                    if (bytes.length + 1 > buf.remaining()) {
+                        buf.flip();
+                        write(out, buf);
+                        buf = ByteBuffer.allocate(Math.max(BUFFER_SIZE,
+                                                           bytes.length + 1));
+                    }
+                    buf.put((byte) 1).put(bytes);
+                    size += bytes.length + 1;
+                }
+                offsets.putLong(i + 1, size);
+            }
+            buf.flip();
+            write(out, buf);
+            sections[2 * k + 1] = size;
+            writeSection(out, offsets, sections, k + 1);
+        } finally {
+            offsets.close();
+        }
+    }
+
+    /**
+     * Write A to OUT as section number K, at the next multiple of eight
+     * bytes, recording its offset and length in SECTIONS.
+     */
+    private static void writeSection(FileChannel out, OffHeapArray a,
+                                     long[] sections, int k)
+        throws IOException {
+        align(out);
+        sections[2 * k] = out.position();
+        sections[2 * k + 1] = a.size();
+        a.write(out);
+    }
+
+    /**
+     * Advance OUT's position to a multiple of eight bytes.
+     */
+    private static void align(FileChannel out) throws IOException {
+        out.position((out.position() + ALIGNMENT - 1) & -ALIGNMENT);
+    }
+
+    /**
+     * Write all of BUF to OUT.
+     */
+    private static void write(FileChannel out, ByteBuffer buf)
+        throws IOException {
+        while (buf.hasRemaining()) {
+            out.write(buf);
+        }
+    }
+
+    /**
+     * Check that the lengths of SECTIONS, mapped from FILE, are
+     * consistent with a graph whose largest vertex is MAXVERTEX, and
+     * that is LABELED or not.
+     */
+    private static void check(OffHeapArray[] sections, int maxVertex,
+                              boolean labeled, File file)
+        throws IOException {
+        long starts = (maxVertex + 2L) * Long.BYTES;
+        if (sections[VERTICES].size()
+            != ((maxVertex >>> WORD_SHIFT) + 1L) * Long.BYTES
+            || sections[OUT_START].size() != starts
+            || sections[IN_START].size() != starts
+            || sections[OUT_TARGETS].size()
+            != sections[OUT_START].getLong(maxVertex + 1) * Integer.BYTES
+            || sections[IN_SOURCES].size()
+            != sections[IN_START].getLong(maxVertex + 1) * Integer.BYTES) {
+            throw corrupt(file);
+        }
+        if (labeled
+            && (sections[VERTEX_POOL + 1].size() != starts
+                || sections[EDGE_POOL + 1].size()
+                != sections[OUT_TARGETS].size() * 2 + Long.BYTES * 2)) {
+            throw corrupt(file);
+        }
+    }
+
+    /**
+     * Returns the string pool whose sections start at number K in
+     * SECTIONS, as MappedGraph expects it: offsets, then bytes.
+     */
+    private static OffHeapArray[] pool(OffHeapArray[] sections, int k) {
+        return new OffHeapArray[] { sections[k + 1], sections[k] };
+    }
+
+    /**
+     * Returns an empty buffer for a header.
+     */
+    private static ByteBuffer newHeader() {
+        return ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Returns the exception reporting that FILE is malformed.
+     */
+    private static IOException corrupt(File file) {
+        return new IOException("corrupt graph file: " + file);
+    }
+
+    /**
+     * A source of the labels of edge (U, V).
+     */
+    private interface EdgeLabels {
+        /**
+         * Returns the label of edge (U, V), or null if none.
+         */
+        String label(int u, int v);
+    }
+
+    /**
+     * A sequence of labels, possibly null, to be written as a pool.
+     */
+    private interface LabelSource {
+        /**
+         * Returns the next label.
+         */
+        String next();
+    }
+
+    /**
+     * The first eight bytes of every graph file.
+     */
+    private static final long MAGIC = 0x4e49424850415247L;
+    /**
+     * Flag bits in the header.
+     */
+    private static final int DIRECTED = 1, LABELED = 2;
+    /**
+     * Section numbers.  A string pool takes two sections: bytes, then
+     * offsets.
+     */
+    private static final int VERTICES = 0, OUT_START = 1, OUT_TARGETS = 2,
+        IN_START = 3, IN_SOURCES = 4, VERTEX_POOL = 5, EDGE_POOL = 7,
+        SECTIONS = 9;
+    /**
+     * The size of the header, leaving room for later versions to add
+     * fields.
+     */
+    private static final int HEADER_SIZE = 256;
+    /**
+     * Sections start at multiples of this many bytes.
+     */
+    private static final int ALIGNMENT = 8;
+    /**
+     * Log base 2 of the number of bits in a word of the vertex bitset.
+     */
+    private static final int WORD_SHIFT = 6;
+    /**
+     * Size of the buffer used to write string pools.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+}
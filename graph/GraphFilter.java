@@ -3,7 +3,15 @@ package graph;
 /**
  * A Graph that delegates all its operations to another, preexisting
  * Graph object.  This is intended to be extended, and selected methods
- * overridden, as needed.
+ * overridden, as needed.  Only the basic methods are delegated: the
+ * int iterations, streams, bitset operations, and edge cursor are
+ * Graph's defaults, derived from vertices(), successors(V),
+ * predecessors(V), and edges(), so that they follow whatever a
+ * subclass overrides; a subclass that hides vertices or edges should
+ * also override contains, outDegree, and inDegree to agree, since the
+ * defaults use them as well.  Subclasses that do not change the
+ * vertices or edges they deliver may override the derived methods
+ * too, to go directly to the underlying Graph.
  *
  * @author P. N. Hilfinger
  */
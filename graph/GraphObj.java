@@ -2,8 +2,9 @@ package graph;
 
 /* See restrictions in Graph.java. */
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.NoSuchElementException;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
 
 /**
  * A partial implementation of Graph containing elements common to
@@ -15,34 +16,57 @@ abstract class GraphObj extends Graph {
     /**
      * The vertices represented in our graphObj.
      */
-    protected ArrayList<Integer> _vertices;
+    protected IdSet _vertices;
 
     /**
-     * Returns the vertices ArrayList.
+     * Returns the set of vertices.
      */
-    protected ArrayList<Integer> getVertices() {
+    protected IdSet getVertices() {
         return _vertices;
     }
 
     /**
-     * The edges of our graphObj represented
-     * as 2 element arrays.
+     * The edges of our graphObj, indexed by edge id.  The ends of an
+     * undirected edge are recorded with the smaller one first.
      */
-    protected ArrayList<int[]> _edges;
+    protected EdgeTable _edges;
 
     /**
      * Returns the edges of our graphObj.
      */
-    protected ArrayList<int[]> getEdges() {
+    protected EdgeTable getEdges() {
         return _edges;
     }
+
+    /**
+     * For each vertex, the vertices at the ends of its outgoing edges.
+     * For an undirected graph, every edge appears in the lists of both
+     * of its ends.
+     */
+    protected final Adjacency _out;
+
     /**
-     * A new, empty Graph.
+     * For each vertex, the vertices at the starts of its incoming edges.
+     * The same object as _out in an undirected graph.
+     */
+    protected final Adjacency _in;
+
+    /**
+     * A new, empty Graph that keeps its adjacency lists as LISTS.
      */
     GraphObj() {
-        _vertices = new ArrayList<>();
-        _edges = new ArrayList<>();
+        this(Storage.LISTS);
+    }
 
+    /**
+     * A new, empty Graph that keeps its adjacency lists as selected by
+     * STORAGE.
+     */
+    GraphObj(Storage storage) {
+        _vertices = new IdSet();
+        _edges = new EdgeTable();
+        _out = Adjacency.create(storage);
+        _in = isDirected() ? Adjacency.create(storage) : _out;
     }
 
     @Override
@@ -52,17 +76,7 @@ abstract class GraphObj extends Graph {
 
     @Override
     public int maxVertex() {
-
-        if (_vertices.size() == 0) {
-            return 0;
-        }
-        int m = Integer.MIN_VALUE;
-        for (Integer x : _vertices) {
-            if (x > m) {
-                m = x;
-            }
-        }
-        return m;
+        return _vertices.max();
     }
 
     @Override
@@ -77,15 +91,8 @@ abstract class GraphObj extends Graph {
     public int outDegree(int v) {
         if (!this.contains(v)) {
             return 0;
-        } else {
-            int count = 0;
-            for (int[] x : _edges) {
-                if (x[0] == v || (!isDirected() && x[1] == v)) {
-                    count += 1;
-                }
-            }
-            return count;
         }
+        return _out.degree(v);
     }
 
     @Override
@@ -93,59 +100,38 @@ abstract class GraphObj extends Graph {
 
     @Override
     public boolean contains(int u) {
-        for (int x : _vertices) {
-            if (x == u) {
-                return true;
-            }
-        }
-        return false;
+        return _vertices.contains(u);
     }
 
     @Override
     public boolean contains(int u, int v) {
 
-        if (contains(u) && contains(v)) {
-            for (int[] edge : _edges) {
-                if (edge[0] == u && edge[1] == v
-                        || (!isDirected() && edge[1] == u && edge[0] == v)) {
-                    return true;
-                }
-            }
-            return false;
-        }
-        return false;
+        return contains(u) && contains(v) && _out.contains(u, v);
     }
 
     @Override
     public int add() {
-        int check = 1;
-        while (contains(check)) {
-            check += 1;
-        }
-        _vertices.add(check);
-        return check;
+        return _vertices.add();
     }
 
     @Override
     public int add(int u, int v) {
-        if (contains(u, v)) {
-            return edgeId(u, v);
+        int e = edgeId(u, v);
+        if (e != 0) {
+            return e;
         }
         checkMyVertex(u);
         checkMyVertex(v);
-        if (isDirected()) {
-            int[] addd = {u, v};
-            _edges.add(addd);
-            return (((u + v) * (u + v + 1)) / 2 + v);
+        if (isDirected() || u <= v) {
+            e = _edges.add(u, v);
+        } else {
+            e = _edges.add(v, u);
         }
-        if (u > v) {
-            int[] addd = {v, u};
-            _edges.add(addd);
-            return (((u + v) * (u + v + 1)) / 2 + v);
+        _out.add(u, v, e);
+        if (isDirected() || u != v) {
+            _in.add(v, u, e);
         }
-        int[] addd = {u, v};
-        _edges.add(addd);
-        return (((v + u) * (v + u + 1)) / 2 + u);
+        return e;
     }
 
     @Override
@@ -154,93 +140,248 @@ abstract class GraphObj extends Graph {
             return;
         }
 
-        ArrayList<int[]> needToBeRemovedEdges = new ArrayList<>();
-        for (int[] x : _edges) {
-            if (x[0] == v || x[1] == v) {
-                needToBeRemovedEdges.add(x);
-            }
+        int n = Math.max(_out.degree(v), _in.degree(v));
+        int[] ends = new int[n], ids = new int[n];
+        n = _out.entries(v, ends, ids);
+        for (int k = 0; k < n; k += 1) {
+            _edges.remove(ids[k]);
+            _in.remove(ends[k], v);
         }
-        for (int[] x : needToBeRemovedEdges) {
-            _edges.remove(x);
+        if (isDirected()) {
+            n = _in.entries(v, ends, ids);
+            for (int k = 0; k < n; k += 1) {
+                _edges.remove(ids[k]);
+                _out.remove(ends[k], v);
+            }
         }
-        _vertices.remove((Integer) v);
-
+        _out.clear(v);
+        _in.clear(v);
+        _vertices.remove(v);
+        compactIfSparse();
     }
 
     @Override
     public void remove(int u, int v) {
         if (!contains(u, v)) {
             return;
-        } else {
-            int[] rem = {u, v};
-            if (!isDirected() && u > v) {
-                int[] remm = {v, u};
-                rem = remm;
-            }
-            ArrayList<int[]> needToBeRemovedEdges = new ArrayList<>();
-            for (int[] x : _edges) {
-                if ((x[0] == rem[0] && x[1] == rem[1])) {
-                    needToBeRemovedEdges.add(x);
-                }
-            }
-            for (int[] x : needToBeRemovedEdges) {
-                _edges.remove(x);
-            }
-
+        }
+        int e = _out.remove(u, v);
+        _in.remove(v, u);
+        _edges.remove(e);
+        compactIfSparse();
+    }
 
+    /**
+     * Squeeze out the entries left behind in my adjacency lists by
+     * removed edges.  Removals only mark entries as dead, and this is
+     * done automatically once dead entries make up a large enough
+     * fraction of the total, but a client that has finished a burst of
+     * removals may call it directly to reclaim the space at once.
+     */
+    public void compact() {
+        _out.compact();
+        if (_in != _out) {
+            _in.compact();
         }
+    }
 
+    /**
+     * Compact my adjacency lists if too many of their entries are dead.
+     */
+    private void compactIfSparse() {
+        if (_out.isSparse() || _in.isSparse()) {
+            compact();
+        }
+    }
 
+    /**
+     * Returns an immutable snapshot of me.  It shares my adjacency lists
+     * in blocks of consecutive vertices, each of which I copy only the
+     * first time I change it afterwards, so taking a snapshot costs time
+     * proportional to the number of such blocks and not to my number of
+     * edges.  Edges keep their ids in the snapshot.
+     */
+    @Override
+    public Graph snapshot() {
+        Adjacency out = _out.snapshot();
+        Adjacency in = _in == _out ? out : _in.snapshot();
+        return new GraphSnapshot(isDirected(), new IdSet(_vertices),
+                                 out, in, edgeSize());
     }
 
     @Override
     public Iteration<Integer> vertices() {
-        ArrayList<Integer> a = new ArrayList<>(_vertices);
-        ArrayList<Integer> ret = new ArrayList<>();
-        Collections.sort(a);
-        return Iteration.iteration(a);
+        return intVertices();
     }
 
     @Override
     public Iteration<Integer> successors(int v) {
-        ArrayList<Integer> succ = new ArrayList<>();
-        for (int[] edges : _edges) {
-            if (edges[0] == v) {
-                succ.add(edges[1]);
-            } else if (!isDirected() && edges[1] == v) {
-                succ.add(edges[0]);
-            } else {
-                continue;
-            }
+        return intSuccessors(v);
+    }
+
+    @Override
+    public Iteration<Integer> predecessors(int v) {
+        return intPredecessors(v);
+    }
+
+    @Override
+    public IntIteration intVertices() {
+        return _vertices.iteration();
+    }
+
+    @Override
+    public IntIteration intSuccessors(int v) {
+        return adjacent(_out, v);
+    }
+
+    @Override
+    public IntIteration intPredecessors(int v) {
+        return adjacent(_in, v);
+    }
+
+    @Override
+    public void unionSuccessors(int v, long[] set) {
+        _out.union(v, set);
+    }
+
+    @Override
+    public void intersectSuccessors(int v, long[] set) {
+        _out.intersect(v, set);
+    }
+
+    @Override
+    public void removeSuccessors(int v, long[] set) {
+        _out.difference(v, set);
+    }
+
+    /**
+     * Returns an iteration over the vertices adjacent to V in ADJ, in
+     * increasing order.  Empty if V is not my vertex.  The iteration
+     * reads ADJ in place, so V's edges must not change while it is in
+     * use.
+     */
+    protected IntIteration adjacent(Adjacency adj, int v) {
+        if (!contains(v)) {
+            return IntIteration.empty();
         }
-        Collections.sort(succ);
-        return Iteration.iteration(succ);
+        return adj.iteration(v);
+    }
 
+    @Override
+    public EdgeCursor edgeCursor() {
+        return _edges.cursor();
     }
 
+    /**
+     * Returns a stream of my edges in order of id, as for edges().  It
+     * splits by ranges of edge ids, so parallel parts get nearly equal
+     * numbers of edges however the edges are distributed over vertices.
+     */
     @Override
-    public abstract Iteration<Integer> predecessors(int v);
+    public LongStream edgeStream() {
+        return StreamSupport.longStream(_edges.spliterator(), false);
+    }
 
     @Override
     public Iteration<int[]> edges() {
+        return new Iteration<int[]>() {
+            @Override
+            public boolean hasNext() {
+                return _next != 0;
+            }
+
+            @Override
+            public int[] next() {
+                if (_next == 0) {
+                    throw new NoSuchElementException();
+                }
+                _edge[0] = _edges.source(_next);
+                _edge[1] = _edges.target(_next);
+                _next = _edges.next(_next + 1);
+                return _edge;
+            }
+
+            /**
+             * The array returned by next().
+             */
+            private final int[] _edge = new int[2];
 
-        return Iteration.iteration(_edges);
+            /**
+             * The id of the next edge to deliver, or 0 if there is none.
+             */
+            private int _next = _edges.next(1);
+        };
     }
 
 
-    @Override
-    protected int edgeId(int u, int v) {
-        if (!contains(u, v)) {
-            return 0;
+    /**
+     * Fill me, assuming I am empty, with vertices 1 through N and edges
+     * KEYS[0 .. M-1], which must be distinct and in increasing order.
+     * Each key holds the source of an edge in its upper 32 bits and the
+     * target in its lower 32, with source <= target for an undirected
+     * graph.  The edges get ids 1 through M in order.  This is the bulk
+     * loading path used by GraphBuilder; it bypasses the checks made by
+     * add(u, v).
+     */
+    void load(int n, long[] keys, int m) {
+        _vertices.addAll(n);
+        int[] outCounts = new int[n + 1];
+        int[] inCounts = isDirected() ? new int[n + 1] : outCounts;
+        for (int i = 0; i < m; i += 1) {
+            int u = source(keys[i]), v = target(keys[i]);
+            outCounts[u] += 1;
+            if (isDirected() || u != v) {
+                inCounts[v] += 1;
+            }
+            _edges.add(u, v);
         }
-        if (isDirected()) {
-            return (((u + v) * (u + v + 1)) / 2 + v);
+        for (int v = 1; v <= n; v += 1) {
+            if (outCounts[v] > 0) {
+                _out.reserve(v, outCounts[v]);
+            }
+            if (isDirected() && inCounts[v] > 0) {
+                _in.reserve(v, inCounts[v]);
+            }
         }
-        if (u > v) {
-            return (((u + v) * (u + v + 1)) / 2 + v);
+        if (isDirected()) {
+            for (int i = 0; i < m; i += 1) {
+                int u = source(keys[i]), v = target(keys[i]);
+                _out.append(u, v, i + 1);
+                _in.append(v, u, i + 1);
+            }
+        } else {
+            for (int i = 0; i < m; i += 1) {
+                int u = source(keys[i]), v = target(keys[i]);
+                if (u != v) {
+                    _out.append(v, u, i + 1);
+                }
+            }
+            for (int i = 0; i < m; i += 1) {
+                _out.append(source(keys[i]), target(keys[i]), i + 1);
+            }
         }
-        return (((v + u) * (v + u + 1)) / 2 + u);
+        compact();
     }
 
+    /**
+     * Returns the source vertex packed into KEY by GraphBuilder.
+     */
+    static int source(long key) {
+        return (int) (key >>> Integer.SIZE);
+    }
+
+    /**
+     * Returns the target vertex packed into KEY by GraphBuilder.
+     */
+    static int target(long key) {
+        return (int) key;
+    }
 
+    @Override
+    protected int edgeId(int u, int v) {
+        if (!contains(u) || !contains(v)) {
+            return 0;
+        }
+        return _out.find(u, v);
+    }
 }
@@ -0,0 +1,229 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable view of a DirectedGraph or UndirectedGraph as it was at
+ * some moment, as returned by GraphObj.snapshot.  It reads frozen copies
+ * of the original graph's adjacency lists, which it shares with the
+ * original until the latter changes them.  Edges have the same ids they
+ * had in the original graph.  Any attempt to change a snapshot throws
+ * UnsupportedOperationException.
+ *
+ * @author John Schulz
+ */
+class GraphSnapshot extends Graph {
+
+    /**
+     * A snapshot of a graph that is directed iff DIRECTED, with vertices
+     * VERTICES, successor lists OUT, predecessor lists IN (the same as
+     * OUT if undirected), and EDGESIZE edges.  None of these may change
+     * afterwards.
+     */
+    GraphSnapshot(boolean directed, IdSet vertices,
+                  Adjacency out, Adjacency in, int edgeSize) {
+        _directed = directed;
+        _vertices = vertices;
+        _out = out;
+        _in = in;
+        _edgeSize = edgeSize;
+    }
+
+    @Override
+    public int vertexSize() {
+        return _vertices.size();
+    }
+
+    @Override
+    public int maxVertex() {
+        return _vertices.max();
+    }
+
+    @Override
+    public int edgeSize() {
+        return _edgeSize;
+    }
+
+    @Override
+    public boolean isDirected() {
+        return _directed;
+    }
+
+    @Override
+    public int outDegree(int v) {
+        return contains(v) ? _out.degree(v) : 0;
+    }
+
+    @Override
+    public int inDegree(int v) {
+        return contains(v) ? _in.degree(v) : 0;
+    }
+
+    @Override
+    public boolean contains(int u) {
+        return _vertices.contains(u);
+    }
+
+    @Override
+    public boolean contains(int u, int v) {
+        return edgeId(u, v) != 0;
+    }
+
+    @Override
+    public int add() {
+        throw new UnsupportedOperationException("snapshots are immutable");
+    }
+
+    @Override
+    public int add(int u, int v) {
+        throw new UnsupportedOperationException("snapshots are immutable");
+    }
+
+    @Override
+    public void remove(int v) {
+        throw new UnsupportedOperationException("snapshots are immutable");
+    }
+
+    @Override
+    public void remove(int u, int v) {
+        throw new UnsupportedOperationException("snapshots are immutable");
+    }
+
+    /**
+     * Returns me, since I never change.
+     */
+    @Override
+    public Graph snapshot() {
+        return this;
+    }
+
+    @Override
+    public Iteration<Integer> vertices() {
+        return intVertices();
+    }
+
+    @Override
+    public Iteration<Integer> successors(int v) {
+        return intSuccessors(v);
+    }
+
+    @Override
+    public Iteration<Integer> predecessors(int v) {
+        return intPredecessors(v);
+    }
+
+    @Override
+    public IntIteration intVertices() {
+        return _vertices.iteration();
+    }
+
+    @Override
+    public IntIteration intSuccessors(int v) {
+        return contains(v) ? _out.iteration(v) : IntIteration.empty();
+    }
+
+    @Override
+    public IntIteration intPredecessors(int v) {
+        return contains(v) ? _in.iteration(v) : IntIteration.empty();
+    }
+
+    @Override
+    public void unionSuccessors(int v, long[] set) {
+        _out.union(v, set);
+    }
+
+    @Override
+    public void intersectSuccessors(int v, long[] set) {
+        _out.intersect(v, set);
+    }
+
+    @Override
+    public void removeSuccessors(int v, long[] set) {
+        _out.difference(v, set);
+    }
+
+    /**
+     * Returns an iteration over my edges, ordered by source and then by
+     * target.  Each undirected edge is delivered once, with its smaller
+     * end first.
+     */
+    @Override
+    public Iteration<int[]> edges() {
+        return new Iteration<int[]>() {
+            @Override
+            public boolean hasNext() {
+                advance();
+                return _edge[0] != 0;
+            }
+
+            @Override
+            public int[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                _edge[1] = _next;
+                _next = 0;
+                return _edge;
+            }
+
+            /**
+             * Move _edge[0] and _succ to the next edge to deliver, leaving
+             * its target in _next, or set _edge[0] to 0 if there is none.
+             */
+            private void advance() {
+                while (_next == 0 && _edge[0] != 0) {
+                    while (_succ.hasNext()) {
+                        int w = _succ.nextInt();
+                        if (_directed || w >= _edge[0]) {
+                            _next = w;
+                            return;
+                        }
+                    }
+                    _edge[0] = _vertices.next(_edge[0] + 1);
+                    _succ = _out.iteration(_edge[0]);
+                }
+            }
+
+            /**
+             * The array returned by next(), holding the current source.
+             */
+            private final int[] _edge = { _vertices.next(1), 0 };
+            /**
+             * The remaining successors of _edge[0].
+             */
+            private IntIteration _succ = _out.iteration(_edge[0]);
+            /**
+             * The target of the next edge to deliver, or 0 if not yet
+             * found.
+             */
+            private int _next;
+        };
+    }
+
+    @Override
+    protected int edgeId(int u, int v) {
+        if (!contains(u) || !contains(v)) {
+            return 0;
+        }
+        return _out.find(u, v);
+    }
+
+    /**
+     * True iff I am directed.
+     */
+    private final boolean _directed;
+    /**
+     * My vertices.
+     */
+    private final IdSet _vertices;
+    /**
+     * My successor and predecessor lists.
+     */
+    private final Adjacency _out, _in;
+    /**
+     * My number of edges.
+     */
+    private final int _edgeSize;
+}
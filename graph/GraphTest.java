@@ -2,6 +2,15 @@ package graph;
 
 import org.junit.Test;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+
 import static org.junit.Assert.*;
 
 /**
@@ -149,7 +158,8 @@ public class GraphTest {
     @Test
     public void testAddWithEdge() {
         GraphObj a = contruct();
-        assertEquals(39, a.add(5, 3));
+        assertEquals(6, a.add(5, 3));
+        assertEquals(6, a.add(5, 3));
     }
 
     @Test
@@ -333,25 +343,33 @@ public class GraphTest {
     @Test
     public void testEdgeID() {
         Graph a = contruct();
-        assertEquals(47, a.edgeId(7, 2));
+        assertEquals(1, a.edgeId(7, 2));
         assertEquals(0, a.edgeId(2, 7));
         a.add(2, 7);
-        assertEquals(52, a.edgeId(2, 7));
-        assertEquals(37, a.edgeId(7, 1));
+        assertEquals(6, a.edgeId(2, 7));
+        assertEquals(2, a.edgeId(7, 1));
         assertEquals(0, a.edgeId(1, 7));
         a.add(2, 6);
-        assertEquals(42, a.edgeId(2, 6));
+        assertEquals(7, a.edgeId(2, 6));
+        a.remove(7, 1);
+        a.remove(2, 5);
+        assertEquals(2, a.add(1, 6));
+        assertEquals(3, a.add(6, 1));
+        assertEquals(8, a.add(1, 1));
     }
 
     @Test
     public void testEdgeIDUndirected() {
         Graph a = contructUndirected();
-        assertEquals(47, a.edgeId(7, 2));
-        assertEquals(47, a.edgeId(2, 7));
-        assertEquals(37, a.edgeId(7, 1));
-        assertEquals(37, a.edgeId(1, 7));
+        assertEquals(1, a.edgeId(7, 2));
+        assertEquals(1, a.edgeId(2, 7));
+        assertEquals(2, a.edgeId(7, 1));
+        assertEquals(2, a.edgeId(1, 7));
         a.add(2, 6);
-        assertEquals(38, a.edgeId(2, 6));
+        assertEquals(6, a.edgeId(2, 6));
+        a.remove(2);
+        assertEquals(1, a.add(6, 1));
+        assertEquals(1, a.edgeId(1, 6));
     }
 
     @Test
@@ -432,4 +450,1212 @@ public class GraphTest {
         assertEquals(7, b2.next());
         assertFalse(b2.hasNext());
     }
+
+    @Test
+    public void testSelfEdges() {
+        GraphObj a = contruct();
+        a.add(2, 2);
+        assertTrue(a.contains(2, 2));
+        assertEquals(4, a.outDegree(2));
+        assertEquals(2, a.inDegree(2));
+        a.remove(2);
+        assertEquals(0, a.inDegree(5));
+        assertEquals(1, a.outDegree(7));
+        GraphObj b = contructUndirected();
+        b.add(2, 2);
+        assertEquals(5, b.outDegree(2));
+        b.remove(2, 2);
+        assertFalse(b.contains(2, 2));
+        assertEquals(4, b.outDegree(2));
+    }
+
+    @Test
+    public void testDegreesAfterChurn() {
+        GraphObj a = new DirectedGraph();
+        for (int i = 0; i < 200; i += 1) {
+            a.add();
+        }
+        for (int v = 2; v <= 200; v += 1) {
+            a.add(1, v);
+            a.add(v, 1);
+        }
+        assertEquals(199, a.outDegree(1));
+        assertEquals(199, a.inDegree(1));
+        for (int v = 2; v <= 200; v += 2) {
+            a.remove(v);
+        }
+        assertEquals(99, a.outDegree(1));
+        assertEquals(99, a.inDegree(1));
+        assertEquals(198, a.edgeSize());
+        assertFalse(a.contains(1, 2));
+        assertTrue(a.contains(3, 1));
+    }
+
+    @Test
+    public void testCompactGraph() {
+        GraphObj a = contruct1();
+        a.remove(6);
+        Graph c = new CompactGraph(a);
+        assertEquals(a.vertexSize(), c.vertexSize());
+        assertEquals(a.maxVertex(), c.maxVertex());
+        assertEquals(a.edgeSize(), c.edgeSize());
+        assertFalse(c.contains(6));
+        for (int v = 0; v <= 8; v += 1) {
+            assertEquals(a.contains(v), c.contains(v));
+            assertEquals(a.outDegree(v), c.outDegree(v));
+            assertEquals(a.inDegree(v), c.inDegree(v));
+            for (int w = 0; w <= 8; w += 1) {
+                assertEquals(a.contains(v, w), c.contains(v, w));
+            }
+        }
+        Iteration<Integer> p = c.predecessors(5);
+        assertEquals(2, (int) p.next());
+        assertEquals(7, (int) p.next());
+        assertFalse(p.hasNext());
+        int n = 0;
+        for (int[] e : c.edges()) {
+            assertTrue(a.contains(e[0], e[1]));
+            assertTrue(c.edgeId(e[0], e[1]) > 0);
+            n += 1;
+        }
+        assertEquals(6, n);
+    }
+
+    @Test
+    public void testCompactGraphUndirected() {
+        LabeledGraph<String, String> g =
+            new LabeledGraph<>(contructUndirected());
+        g.add(3, 3, "loop");
+        Graph c = new CompactGraph(new GraphFilter(g));
+        assertFalse(c.isDirected());
+        assertEquals(6, c.edgeSize());
+        assertEquals(4, c.degree(2));
+        assertEquals(c.edgeId(7, 2), c.edgeId(2, 7));
+        assertEquals(0, c.edgeId(3, 5));
+        Iteration<Integer> s = c.successors(3);
+        assertEquals(2, (int) s.next());
+        assertEquals(3, (int) s.next());
+        assertFalse(s.hasNext());
+        int n = 0;
+        for (int[] e : c.edges()) {
+            assertTrue(e[0] <= e[1]);
+            n += 1;
+        }
+        assertEquals(6, n);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testCompactGraphEdgesExhausted() {
+        Iteration<int[]> edges = new CompactGraph(contructUndirected())
+            .edges();
+        while (edges.hasNext()) {
+            edges.next();
+        }
+        edges.next();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testCompactGraphImmutable() {
+        new CompactGraph(contruct()).add(1, 2);
+    }
+
+    @Test
+    public void testVertexNumbering() {
+        Graph g = new UndirectedGraph();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random r = new Random(61);
+        for (int i = 0; i < 5000; i += 1) {
+            if (expected.isEmpty() || r.nextInt(3) != 0) {
+                int v = 1;
+                while (expected.contains(v)) {
+                    v += 1;
+                }
+                assertEquals(v, g.add());
+                expected.add(v);
+            } else {
+                int v = 1 + r.nextInt(expected.last());
+                g.remove(v);
+                expected.remove(v);
+            }
+            assertEquals(expected.size(), g.vertexSize());
+            assertEquals(expected.isEmpty() ? 0 : (int) expected.last(),
+                         g.maxVertex());
+        }
+        Iteration<Integer> vertices = g.vertices();
+        for (int v : expected) {
+            assertEquals(v, (int) vertices.next());
+        }
+        assertFalse(vertices.hasNext());
+    }
+
+    @Test
+    public void testEdgeIdsStayDense() {
+        Graph g = new DirectedGraph();
+        for (int i = 0; i < 50000; i += 1) {
+            g.add();
+        }
+        int e = g.add(49999, 50000);
+        assertEquals(1, e);
+        assertEquals(2, g.add(50000, 49999));
+        g.remove(49999, 50000);
+        assertEquals(1, g.add(1, 50000));
+    }
+
+    @Test
+    public void testLabelsOfRemovedEdges() {
+        LabeledGraph<String, String> g =
+            new LabeledGraph<>(contruct());
+        g.setLabel(7, 2, "a");
+        g.setLabel(2, 5, "b");
+        g.remove(7);
+        g.add(3, 4);
+        assertNull(g.getLabel(3, 4));
+        g.add(4, 3, "c");
+        assertEquals("c", g.getLabel(4, 3));
+        assertEquals("b", g.getLabel(2, 5));
+    }
+
+    @Test
+    public void testIntIterations() {
+        Graph c = contruct1();
+        IntIteration succ = c.intSuccessors(2);
+        assertEquals(3, succ.nextInt());
+        int[] buf = new int[5];
+        assertEquals(2, succ.next(buf));
+        assertEquals(4, buf[0]);
+        assertEquals(5, buf[1]);
+        assertFalse(succ.hasNext());
+        assertEquals(0, succ.next(buf));
+        IntIteration pred = new GraphFilter(c).intPredecessors(5);
+        assertEquals(2, pred.nextInt());
+        assertEquals(7, (int) pred.next());
+        assertFalse(pred.hasNext());
+        assertFalse(c.intSuccessors(8).hasNext());
+        IntIteration vertices = new CompactGraph(c).intVertices();
+        assertEquals(7, vertices.next(new int[10]));
+    }
+
+    @Test
+    public void testSuccessorsStaySorted() {
+        Graph g = new DirectedGraph();
+        for (int i = 0; i < 30; i += 1) {
+            g.add();
+        }
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random r = new Random(17);
+        for (int i = 0; i < 400; i += 1) {
+            int v = 1 + r.nextInt(30);
+            if (r.nextInt(4) == 0) {
+                g.remove(5, v);
+                expected.remove(v);
+            } else {
+                g.add(5, v);
+                g.add(v, 5);
+                expected.add(v);
+            }
+        }
+        Iteration<Integer> succ = g.successors(5);
+        for (int v : expected) {
+            assertEquals(v, (int) succ.next());
+            assertTrue(g.contains(v, 5));
+        }
+        assertFalse(succ.hasNext());
+        assertEquals(expected.size(), g.outDegree(5));
+    }
+
+    @Test
+    public void testBuilder() {
+        GraphBuilder<String, String> b = new GraphBuilder<>(false);
+        for (int i = 1; i <= 7; i += 1) {
+            assertEquals(i, b.add("V" + i));
+        }
+        b.add(new int[] {7, 7, 2, 2, 2, 5}, new int[] {2, 1, 5, 3, 4, 2},
+              new String[] {"a", "b", "c", "d", "e", "f"});
+        b.add(3, 3);
+        Graph g = b.build();
+        assertEquals(6, g.edgeSize());
+        assertEquals(4, g.outDegree(2));
+        assertTrue(g.contains(2, 7));
+        assertTrue(g.contains(3, 3));
+        Iteration<Integer> succ = g.successors(2);
+        assertEquals(3, (int) succ.next());
+        assertEquals(4, (int) succ.next());
+        assertEquals(5, (int) succ.next());
+        assertEquals(7, (int) succ.next());
+        assertFalse(succ.hasNext());
+        LabeledGraph<String, String> lg = b.label(new LabeledGraph<>(g));
+        assertEquals("V4", lg.getLabel(4));
+        assertEquals("f", lg.getLabel(2, 5));
+        assertEquals("a", lg.getLabel(2, 7));
+        assertNull(lg.getLabel(3, 3));
+        g.remove(2);
+        assertEquals(2, g.edgeSize());
+        assertEquals(2, g.add());
+        assertEquals(8, g.add());
+        LabeledGraph<String, String> cg =
+            b.label(new LabeledGraph<>(b.buildCompact()));
+        assertEquals("d", cg.getLabel(3, 2));
+        assertEquals(4, cg.outDegree(2));
+    }
+
+    @Test
+    public void testBuilderDirected() {
+        GraphBuilder<String, String> b = new GraphBuilder<>(true);
+        b.addVertices(5);
+        b.add(new int[] {5, 1, 1, 3, 1}, new int[] {1, 3, 2, 1, 3});
+        Graph g = b.build();
+        assertEquals(4, g.edgeSize());
+        assertEquals(2, g.outDegree(1));
+        assertEquals(2, g.inDegree(1));
+        Iteration<Integer> pred = g.predecessors(1);
+        assertEquals(3, (int) pred.next());
+        assertEquals(5, (int) pred.next());
+        assertFalse(pred.hasNext());
+        assertEquals(5, g.add(4, 5));
+        Graph c = b.buildCompact();
+        assertFalse(c.contains(4, 5));
+        assertTrue(c.contains(3, 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilderChecksVertices() {
+        new GraphBuilder<String, String>(true).add(1, 1);
+    }
+
+    @Test
+    public void testChurnWithCompaction() {
+        Graph g = new UndirectedGraph();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i <= 300; i += 1) {
+            g.add();
+        }
+        Random r = new Random(3);
+        for (int i = 0; i < 20000; i += 1) {
+            int v = 2 + r.nextInt(300);
+            if (r.nextBoolean()) {
+                g.add(1, v);
+                expected.add(v);
+            } else {
+                g.remove(v, 1);
+                expected.remove(v);
+            }
+            if (i % 5000 == 0) {
+                ((GraphObj) g).compact();
+            }
+        }
+        assertEquals(expected.size(), g.degree(1));
+        assertEquals(expected.size(), g.edgeSize());
+        Iteration<Integer> succ = g.successors(1);
+        for (int v : expected) {
+            assertEquals(v, (int) succ.next());
+            assertEquals(1, g.degree(v));
+            assertTrue(g.edgeId(v, 1) > 0);
+        }
+        assertFalse(succ.hasNext());
+        g.remove(1);
+        assertEquals(0, g.edgeSize());
+        assertFalse(g.successors(expected.first()).hasNext());
+    }
+
+    @Test
+    public void testConcurrentGraph() {
+        Graph g = new ConcurrentGraph(true);
+        for (int i = 0; i < 100; i += 1) {
+            g.add();
+        }
+        assertEquals(100, g.vertexSize());
+        assertEquals(1, g.add(7, 3));
+        assertEquals(2, g.add(7, 1));
+        assertEquals(1, g.add(7, 3));
+        assertEquals(3, g.add(3, 7));
+        assertTrue(g.contains(7, 3));
+        assertFalse(g.contains(1, 7));
+        assertEquals(2, g.outDegree(7));
+        assertEquals(1, g.inDegree(7));
+        Iteration<Integer> succ = g.successors(7);
+        assertEquals(1, (int) succ.next());
+        assertEquals(3, (int) succ.next());
+        assertFalse(succ.hasNext());
+        g.remove(7);
+        assertFalse(g.contains(7));
+        assertEquals(0, g.edgeSize());
+        assertEquals(0, g.outDegree(3));
+        assertEquals(7, g.add());
+        assertEquals(1, g.add(100, 100));
+
+        LabeledGraph<String, String> lg =
+            new LabeledGraph<>(new ConcurrentGraph(false));
+        lg.add("a");
+        lg.add("b");
+        lg.add(2, 1, "ab");
+        assertEquals("ab", lg.getLabel(1, 2));
+        assertEquals(1, lg.edgeSize());
+        assertEquals(1, (int) lg.predecessors(2).next());
+    }
+
+    @Test
+    public void testConcurrentReadersAndWriters() throws Exception {
+        final int n = 200;
+        final ConcurrentGraph g = new ConcurrentGraph(true);
+        for (int i = 0; i < n; i += 1) {
+            g.add();
+        }
+        final boolean[] failed = { false };
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t += 1) {
+            final int seed = t;
+            threads[t] = new Thread(() -> {
+                Random r = new Random(seed);
+                for (int i = 0; i < 20000; i += 1) {
+                    int u = 1 + r.nextInt(n), v = 1 + r.nextInt(n);
+                    if (seed % 2 == 0) {
+                        if (r.nextBoolean()) {
+                            g.add(u, v);
+                        } else {
+                            g.remove(u, v);
+                        }
+                    } else {
+                        int prev = 0;
+                        IntIteration succ = g.intSuccessors(u);
+                        while (succ.hasNext()) {
+                            int w = succ.nextInt();
+                            if (w <= prev) {
+                                failed[0] = true;
+                            }
+                            prev = w;
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertFalse(failed[0]);
+        int edges = 0;
+        for (int v = 1; v <= n; v += 1) {
+            edges += g.outDegree(v);
+            for (int w : g.successors(v)) {
+                assertTrue(g.contains(v, w));
+            }
+        }
+        assertEquals(g.edgeSize(), edges);
+        int count = 0;
+        for (int v = 1; v <= n; v += 1) {
+            count += g.inDegree(v);
+        }
+        assertEquals(edges, count);
+        count = 0;
+        for (int[] e : g.edges()) {
+            assertTrue(g.contains(e[0], e[1]));
+            count += 1;
+        }
+        assertEquals(edges, count);
+    }
+
+    /**
+     * Returns a string listing the edges of G in the order delivered.
+     */
+    private static String edgeString(Graph g) {
+        StringBuilder result = new StringBuilder();
+        for (int[] e : g.edges()) {
+            result.append(e[0]).append("-").append(e[1]).append(" ");
+        }
+        return result.toString();
+    }
+
+    @Test
+    public void testSnapshot() {
+        for (Graph g : new Graph[] { new DirectedGraph(),
+                                     new UndirectedGraph() }) {
+            for (int i = 0; i < 200; i += 1) {
+                g.add();
+            }
+            for (int v = 2; v <= 200; v += 1) {
+                g.add(v / 2, v);
+            }
+            int id = g.edgeId(3, 7);
+            Graph s1 = g.snapshot();
+            String edges1 = edgeString(s1);
+            g.remove(3, 7);
+            g.add(150, 5);
+            g.remove(100);
+            Graph s2 = g.snapshot();
+            g.add(1, 1);
+            assertEquals(200, s1.vertexSize());
+            assertEquals(199, s1.edgeSize());
+            assertEquals(edges1, edgeString(s1));
+            assertTrue(s1.contains(3, 7));
+            assertEquals(id, s1.edgeId(3, 7));
+            assertFalse(s1.contains(150, 5));
+            assertTrue(s1.contains(100));
+            assertEquals(g.isDirected() ? 2 : 3, s1.outDegree(50));
+            assertEquals(g.isDirected() ? 1 : 2, s1.inDegree(100));
+            assertFalse(s2.contains(3, 7));
+            assertTrue(s2.contains(150, 5));
+            assertFalse(s2.contains(100));
+            assertFalse(s2.contains(1, 1));
+            assertEquals(g.edgeSize() - 1, s2.edgeSize());
+            assertEquals(g.isDirected() ? 1 : 2, s2.outDegree(50));
+            Iteration<Integer> succ = s1.successors(3);
+            if (!g.isDirected()) {
+                assertEquals(1, (int) succ.next());
+            }
+            assertEquals(6, (int) succ.next());
+            assertEquals(7, (int) succ.next());
+            assertFalse(succ.hasNext());
+            assertSame(s1, s1.snapshot());
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSnapshotImmutable() {
+        Graph g = new DirectedGraph();
+        g.add();
+        g.snapshot().add(1, 1);
+    }
+
+    @Test
+    public void testConcurrentSnapshot() {
+        ConcurrentGraph g = new ConcurrentGraph(false);
+        g.add();
+        g.add();
+        g.add(1, 2);
+        Graph s = g.snapshot();
+        g.remove(1, 2);
+        g.add();
+        assertTrue(s.contains(1, 2));
+        assertEquals(2, s.vertexSize());
+        assertEquals("1-2 ", edgeString(s));
+        assertEquals("", edgeString(g));
+        try {
+            s.remove(1);
+            fail("snapshot changed");
+        } catch (UnsupportedOperationException excp) {
+            assertTrue(s.contains(1));
+        }
+    }
+
+    /**
+     * Returns a string describing all the vertices and edges of G.
+     */
+    private static String graphString(Graph g) {
+        StringBuilder result = new StringBuilder();
+        for (int v : g.vertices()) {
+            result.append(v).append(":");
+            for (int w : g.successors(v)) {
+                result.append(" ").append(w).append("/")
+                    .append(g.edgeId(v, w));
+            }
+            result.append(" |");
+            for (int w : g.predecessors(v)) {
+                result.append(" ").append(w);
+            }
+            result.append("\n");
+        }
+        return result.toString();
+    }
+
+    @Test
+    public void testStorage() {
+        for (Storage storage : new Storage[] { Storage.COMPRESSED,
+                                               Storage.MATRIX }) {
+            for (boolean directed : new boolean[] { true, false }) {
+                checkStorage(storage, directed);
+            }
+        }
+    }
+
+    /**
+     * Check that a graph, directed iff DIRECTED, using STORAGE behaves
+     * like one using LISTS under a random mix of changes.
+     */
+    private void checkStorage(Storage storage, boolean directed) {
+        Graph lists = directed ? new DirectedGraph()
+            : new UndirectedGraph();
+        Graph packed = directed ? new DirectedGraph(storage)
+            : new UndirectedGraph(storage);
+        for (int i = 0; i < 500; i += 1) {
+            lists.add();
+            packed.add();
+        }
+        Random r = new Random(11);
+        Graph snap = null;
+        String snapString = null;
+        for (int i = 0; i < 30000; i += 1) {
+            int u = 1 + r.nextInt(500);
+            int v = r.nextInt(4) == 0 ? 1 + r.nextInt(500)
+                : 1 + (u + r.nextInt(20)) % 500;
+            switch (r.nextInt(10)) {
+            case 0: case 1: case 2:
+                lists.remove(u, v);
+                packed.remove(u, v);
+                break;
+            case 3:
+                if (i % 100 == 3) {
+                    lists.remove(u);
+                    packed.remove(u);
+                    assertEquals(lists.add(), packed.add());
+                }
+                break;
+            default:
+                assertEquals(lists.add(u, v), packed.add(u, v));
+                break;
+            }
+            if (i == 15000) {
+                snap = packed.snapshot();
+                snapString = graphString(snap);
+            }
+        }
+        assertEquals(lists.edgeSize(), packed.edgeSize());
+        assertEquals(graphString(lists), graphString(packed));
+        assertEquals(snapString, graphString(snap));
+        assertEquals(edgeString(lists), edgeString(packed));
+    }
+
+    @Test
+    public void testCompressedBuilder() {
+        GraphBuilder<String, String> b = new GraphBuilder<>(true);
+        b.addVertices(1000);
+        Random r = new Random(5);
+        for (int i = 0; i < 5000; i += 1) {
+            b.add(1 + r.nextInt(1000), 1 + r.nextInt(1000));
+        }
+        Graph g = b.build(Storage.COMPRESSED);
+        assertEquals(graphString(b.build()), graphString(g));
+    }
+
+    @Test
+    public void testMatrixStorage() {
+        assertEquals(Storage.MATRIX, Storage.forDensity(100, 400, true));
+        assertEquals(Storage.MATRIX, Storage.forDensity(100, 200, false));
+        assertEquals(Storage.LISTS, Storage.forDensity(100, 200, true));
+        assertEquals(Storage.LISTS,
+                     Storage.forDensity(Storage.MATRIX_LIMIT + 1,
+                                        1L << 40, true));
+        GraphBuilder<String, String> b = new GraphBuilder<>(false);
+        b.addVertices(150);
+        Random r = new Random(23);
+        for (int i = 0; i < 3000; i += 1) {
+            b.add(1 + r.nextInt(150), 1 + r.nextInt(150));
+        }
+        Graph matrix = b.build(Storage.MATRIX);
+        assertEquals(graphString(b.build(Storage.LISTS)),
+                     graphString(matrix));
+        assertEquals(graphString(matrix), graphString(b.build()));
+        Graph[] graphs = { matrix, b.build(Storage.LISTS),
+                           b.buildCompact(), matrix.snapshot() };
+        for (int v = 1; v <= 150; v += 1) {
+            long[] set = new long[2];
+            set[0] = r.nextLong();
+            set[1] = r.nextLong();
+            long[] union = set.clone(), inter = set.clone(),
+                diff = set.clone();
+            for (int w = 0; w < 128; w += 1) {
+                long bit = 1L << w;
+                if (matrix.contains(v, w)) {
+                    union[w / 64] |= bit;
+                    diff[w / 64] &= ~bit;
+                } else {
+                    inter[w / 64] &= ~bit;
+                }
+            }
+            for (Graph g : graphs) {
+                long[] s = set.clone();
+                g.unionSuccessors(v, s);
+                assertArrayEquals(union, s);
+                s = set.clone();
+                g.intersectSuccessors(v, s);
+                assertArrayEquals(inter, s);
+                s = set.clone();
+                g.removeSuccessors(v, s);
+                assertArrayEquals(diff, s);
+            }
+        }
+    }
+
+    @Test
+    public void testStreams() {
+        for (boolean directed : new boolean[] { true, false }) {
+            GraphBuilder<String, String> b = new GraphBuilder<>(directed);
+            b.addVertices(2000);
+            Random r = new Random(29);
+            for (int i = 0; i < 20000; i += 1) {
+                b.add(1 + r.nextInt(2000), 1 + r.nextInt(2000));
+            }
+            Graph g = b.build();
+            for (int v = 1; v <= 2000; v += 7) {
+                g.remove(v);
+            }
+            ConcurrentGraph c = new ConcurrentGraph(directed);
+            for (int v = 1; v <= 100; v += 1) {
+                c.add();
+            }
+            for (int i = 0; i < 1000; i += 1) {
+                c.add(1 + r.nextInt(100), 1 + r.nextInt(100));
+            }
+            Graph[] graphs = { g, new CompactGraph(g), g.snapshot(),
+                               new LabeledGraph<String, String>(g), c };
+            for (Graph h : graphs) {
+                checkStreams(h);
+            }
+        }
+    }
+
+    @Test
+    public void testFilterStreams() {
+        DirectedGraph g = new DirectedGraph();
+        for (int v = 1; v <= 5; v += 1) {
+            g.add();
+        }
+        g.add(1, 2);
+        g.add(1, 3);
+        g.add(2, 3);
+        g.add(3, 5);
+        GraphFilter f = new GraphFilter(g) {
+            @Override
+            public Iteration<Integer> vertices() {
+                return without(super.vertices(), 4);
+            }
+
+            @Override
+            public boolean contains(int u) {
+                return u != 4 && super.contains(u);
+            }
+
+            @Override
+            public int outDegree(int v) {
+                return super.outDegree(v) - (v == 1 ? 1 : 0);
+            }
+
+            @Override
+            public int inDegree(int v) {
+                return super.inDegree(v) - (v == 3 ? 1 : 0);
+            }
+
+            @Override
+            public Iteration<Integer> successors(int v) {
+                return without(super.successors(v), v == 1 ? 3 : 0);
+            }
+
+            @Override
+            public Iteration<Integer> predecessors(int v) {
+                return without(super.predecessors(v), v == 3 ? 1 : 0);
+            }
+
+            @Override
+            public Iteration<int[]> edges() {
+                ArrayList<int[]> result = new ArrayList<>();
+                for (int[] e : super.edges()) {
+                    if (e[0] != 1 || e[1] != 3) {
+                        result.add(e.clone());
+                    }
+                }
+                return Iteration.iteration(result);
+            }
+        };
+        assertArrayEquals(new int[] {1, 2, 3, 5},
+                          f.vertexStream().toArray());
+        assertArrayEquals(new int[] {2}, f.successorStream(1).toArray());
+        assertArrayEquals(new int[] {2}, f.predecessorStream(3).toArray());
+        assertArrayEquals(new long[] {Graph.edge(1, 2), Graph.edge(2, 3),
+                                      Graph.edge(3, 5)},
+                          f.edgeStream().toArray());
+        long[] set = new long[1];
+        f.unionSuccessors(1, set);
+        assertEquals(1L << 2, set[0]);
+        set[0] = (1L << 2) | (1L << 3);
+        f.intersectSuccessors(1, set);
+        assertEquals(1L << 2, set[0]);
+        set[0] = (1L << 2) | (1L << 3);
+        f.removeSuccessors(1, set);
+        assertEquals(1L << 3, set[0]);
+        EdgeCursor e = f.edgeCursor();
+        StringBuilder cursor = new StringBuilder();
+        while (e.next()) {
+            assertEquals(g.edgeId(e.source(), e.target()), e.edgeId());
+            cursor.append(e.source()).append("-").append(e.target())
+                .append(" ");
+        }
+        assertEquals("1-2 2-3 3-5 ", cursor.toString());
+    }
+
+    /**
+     * Returns an iteration of the values of IT other than X.
+     */
+    private static Iteration<Integer> without(Iterable<Integer> it, int x) {
+        ArrayList<Integer> result = new ArrayList<>();
+        for (int v : it) {
+            if (v != x) {
+                result.add(v);
+            }
+        }
+        return Iteration.iteration(result);
+    }
+
+    /**
+     * Check that the streams of G deliver the same values as its
+     * iterations, sequentially and in parallel.
+     */
+    private void checkStreams(Graph g) {
+        StringBuilder edges = new StringBuilder();
+        for (int[] e : g.edges()) {
+            edges.append(e[0]).append("-").append(e[1]).append(" ");
+        }
+        StringBuilder streamed = new StringBuilder();
+        g.edgeStream().forEach(e -> streamed.append(Graph.edgeSource(e))
+                               .append("-").append(Graph.edgeTarget(e))
+                               .append(" "));
+        assertEquals(edges.toString(), streamed.toString());
+        long[] sequential = g.edgeStream().toArray();
+        assertArrayEquals(sequential, g.edgeStream().parallel().toArray());
+        assertEquals(g.edgeSize(), sequential.length);
+        int[] all = new int[g.vertexSize()];
+        int n = 0;
+        IntIteration vertices = g.intVertices();
+        while (vertices.hasNext()) {
+            int v = vertices.nextInt();
+            IntIteration succ = g.intSuccessors(v),
+                pred = g.intPredecessors(v);
+            int[] succs = new int[g.outDegree(v)],
+                preds = new int[g.inDegree(v)];
+            assertEquals(succs.length, succ.next(succs));
+            assertEquals(preds.length, pred.next(preds));
+            assertArrayEquals(succs, g.successorStream(v).toArray());
+            assertArrayEquals(preds,
+                              g.predecessorStream(v).parallel().toArray());
+            all[n] = v;
+            n += 1;
+        }
+        assertArrayEquals(all, g.vertexStream().parallel().toArray());
+        assertEquals(0, g.successorStream(g.maxVertex() + 1).count());
+        long degrees = g.vertexStream().parallel().map(g::outDegree).sum();
+        assertEquals(degrees, g.vertexStream().mapToLong(
+                         v -> g.successorStream(v).count()).sum());
+    }
+
+    @Test
+    public void testEdgeCursor() {
+        for (boolean directed : new boolean[] { true, false }) {
+            GraphBuilder<String, String> b = new GraphBuilder<>(directed);
+            b.addVertices(300);
+            Random r = new Random(31);
+            for (int i = 0; i < 2000; i += 1) {
+                b.add(1 + r.nextInt(300), 1 + r.nextInt(300));
+            }
+            Graph g = b.build();
+            for (int v = 1; v <= 300; v += 11) {
+                g.remove(v);
+            }
+            g.add(2, 3);
+            Graph[] graphs = { g, b.buildCompact(), g.snapshot(),
+                               new LabeledGraph<String, String>(g) };
+            for (Graph h : graphs) {
+                EdgeCursor cursor = h.edgeCursor();
+                for (int[] e : h.edges()) {
+                    assertTrue(cursor.next());
+                    assertEquals(e[0], cursor.source());
+                    assertEquals(e[1], cursor.target());
+                    assertEquals(h.edgeId(e[0], e[1]), cursor.edgeId());
+                }
+                assertFalse(cursor.next());
+                assertFalse(cursor.next());
+                cursor = h.edgeCursor();
+                int[] src = new int[7], dst = new int[7];
+                int n, total = 0;
+                Iteration<int[]> edges = h.edges();
+                while ((n = cursor.fill(src, dst)) > 0) {
+                    for (int i = 0; i < n; i += 1) {
+                        int[] e = edges.next();
+                        assertEquals(e[0], src[i]);
+                        assertEquals(e[1], dst[i]);
+                    }
+                    if (n == dst.length) {
+                        assertEquals(dst[n - 1], cursor.target());
+                    }
+                    total += n;
+                }
+                assertFalse(edges.hasNext());
+                assertEquals(h.edgeSize(), total);
+            }
+        }
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testEdgeCursorNoCurrent() {
+        Graph g = new DirectedGraph();
+        g.add();
+        g.add();
+        g.add(1, 2);
+        g.edgeCursor().source();
+    }
+
+    @Test
+    public void testJournaledGraph() {
+        JournaledGraph g = new JournaledGraph(new DirectedGraph(), 8);
+        StringBuilder heard = new StringBuilder();
+        JournaledGraph.Listener log = (s, kind, u, v) ->
+            heard.append(s).append(kind).append(u).append(",").append(v)
+                .append(" ");
+        g.addListener(log);
+        g.add();
+        g.add();
+        g.add(1, 2);
+        g.add(1, 2);
+        g.add(2, 1);
+        g.remove(2, 2);
+        assertEquals(4, g.sequence());
+        long mark = g.sequence();
+        g.add(2, 2);
+        g.remove(2);
+        assertEquals("0ADD_VERTEX1,0 1ADD_VERTEX2,0 2ADD_EDGE1,2 "
+                     + "3ADD_EDGE2,1 4ADD_EDGE2,2 5REMOVE_EDGE2,1 "
+                     + "6REMOVE_EDGE2,2 7REMOVE_EDGE1,2 8REMOVE_VERTEX2,0 ",
+                     heard.toString());
+        g.removeListener(log);
+        StringBuilder replayed = new StringBuilder();
+        assertTrue(g.replay(mark, (s, kind, u, v) ->
+                                replayed.append(s).append(kind).append(" ")));
+        assertEquals("4ADD_EDGE 5REMOVE_EDGE 6REMOVE_EDGE 7REMOVE_EDGE "
+                     + "8REMOVE_VERTEX ", replayed.toString());
+        assertEquals(1, g.oldestSequence());
+        assertFalse(g.replay(0, (s, kind, u, v) -> fail()));
+        assertTrue(g.replay(g.sequence(), (s, kind, u, v) -> fail()));
+        g.add();
+        assertEquals(10, g.sequence());
+        assertEquals(2, g.vertexSize());
+        assertEquals(0, g.edgeSize());
+    }
+
+    @Test
+    public void testReordering() {
+        for (boolean directed : new boolean[] { true, false }) {
+            GraphBuilder<String, String> b = new GraphBuilder<>(directed);
+            Random r = new Random(37);
+            for (int v = 1; v <= 400; v += 1) {
+                b.add("V" + v);
+            }
+            for (int i = 0; i < 1500; i += 1) {
+                int u = 1 + r.nextInt(400), v = 1 + r.nextInt(400);
+                b.add(u, v, u + "-" + v);
+            }
+            LabeledGraph<String, String> g =
+                b.label(new LabeledGraph<String, String>(b.build()));
+            for (int v = 3; v <= 400; v += 13) {
+                g.remove(v);
+            }
+            for (Reordering.Order order : Reordering.Order.values()) {
+                Reordering ro = new Reordering(g, order);
+                assertEquals(g.vertexSize(), ro.vertexSize());
+                for (int v = 1; v <= ro.vertexSize(); v += 1) {
+                    assertEquals(v, ro.newVertex(ro.oldVertex(v)));
+                }
+                assertEquals(0, ro.newVertex(3));
+                LabeledGraph<String, String> h = ro.apply(g);
+                assertEquals(g.edgeSize(), h.edgeSize());
+                assertEquals(g.edgeSize(), ro.apply((Graph) g).edgeSize());
+                for (int v : g.vertices()) {
+                    assertEquals(g.getLabel(v), h.getLabel(ro.newVertex(v)));
+                    for (int w : g.successors(v)) {
+                        int v1 = ro.newVertex(v), w1 = ro.newVertex(w);
+                        assertTrue(h.contains(v1, w1));
+                        assertEquals(g.getLabel(v, w), h.getLabel(v1, w1));
+                    }
+                }
+                if (order == Reordering.Order.DEGREE) {
+                    for (int v = 2; v <= h.vertexSize(); v += 1) {
+                        assertTrue(h.outDegree(v - 1) + h.inDegree(v - 1)
+                                   >= h.outDegree(v) + h.inDegree(v));
+                    }
+                }
+            }
+        }
+        Graph path = new UndirectedGraph();
+        int[] shuffled = new int[200];
+        for (int i = 0; i < 200; i += 1) {
+            path.add();
+            shuffled[i] = i + 1;
+        }
+        Random r = new Random(41);
+        for (int i = 199; i > 0; i -= 1) {
+            int j = r.nextInt(i + 1), t = shuffled[i];
+            shuffled[i] = shuffled[j];
+            shuffled[j] = t;
+        }
+        for (int i = 1; i < 200; i += 1) {
+            path.add(shuffled[i - 1], shuffled[i]);
+        }
+        Reordering rcm = new Reordering(path, Reordering.Order.RCM);
+        for (int i = 1; i < 200; i += 1) {
+            assertEquals(1, Math.abs(rcm.newVertex(shuffled[i - 1])
+                                     - rcm.newVertex(shuffled[i])));
+        }
+    }
+
+    @Test
+    public void testSubgraphFilter() {
+        for (boolean directed : new boolean[] { true, false }) {
+            GraphBuilder<String, String> b = new GraphBuilder<>(directed);
+            b.addVertices(300);
+            Random r = new Random(43);
+            for (int i = 0; i < 3000; i += 1) {
+                b.add(1 + r.nextInt(300), 1 + r.nextInt(300));
+            }
+            b.add(6, 6);
+            Graph g = b.build(), expected = b.build();
+            BitSet open = new BitSet();
+            for (int v = 1; v <= 300; v += 1) {
+                if (v % 5 != 0 && v < 290) {
+                    open.set(v);
+                } else {
+                    expected.remove(v);
+                }
+            }
+            for (int[] e : b.buildCompact().edges()) {
+                if ((e[0] + e[1]) % 7 == 0) {
+                    expected.remove(e[0], e[1]);
+                }
+            }
+            SubgraphFilter view =
+                new SubgraphFilter(g, open::get, (u, v) -> (u + v) % 7 != 0);
+            for (int pass = 0; pass < 2; pass += 1) {
+                assertEquals(graphString(expected), graphString(view));
+                assertEquals(edgeString(expected), edgeString(view));
+                assertEquals(expected.vertexSize(), view.vertexSize());
+                assertEquals(expected.edgeSize(), view.edgeSize());
+                assertEquals(expected.maxVertex(), view.maxVertex());
+                for (int v = 0; v <= 301; v += 1) {
+                    assertEquals(expected.outDegree(v), view.outDegree(v));
+                    assertEquals(expected.inDegree(v), view.inDegree(v));
+                    assertArrayEquals(expected.successorStream(v).toArray(),
+                                      view.successorStream(v).toArray());
+                }
+                assertEquals(expected.edgeSize(),
+                             view.edgeStream().parallel().count());
+                assertArrayEquals(expected.vertexStream().toArray(),
+                                  view.vertexStream().parallel().toArray());
+            }
+            view.remove(1, 2);
+            expected.remove(1, 2);
+            assertEquals(expected.outDegree(1), view.outDegree(1));
+            assertEquals(expected.edgeSize(), view.edgeSize());
+            int edges = g.edgeSize();
+            try {
+                view.add(1, 5);
+                fail("added edge to hidden vertex");
+            } catch (IllegalArgumentException excp) {
+                assertEquals(edges, g.edgeSize());
+            }
+            open.clear(2);
+            view.invalidate();
+            expected.remove(2);
+            assertEquals(expected.edgeSize(), view.edgeSize());
+            SubgraphFilter induced = new SubgraphFilter(g, open);
+            assertEquals(expected.vertexSize(), induced.vertexSize());
+            assertTrue(induced.edgeSize() > expected.edgeSize());
+            assertFalse(induced.contains(2));
+        }
+    }
+
+    @Test
+    public void testTransposedGraph() {
+        GraphBuilder<String, String> b = new GraphBuilder<>(true);
+        b.addVertices(100);
+        Random r = new Random(47);
+        for (int i = 0; i < 600; i += 1) {
+            b.add(1 + r.nextInt(100), 1 + r.nextInt(100));
+        }
+        Graph g = b.build();
+        Graph t = new TransposedGraph(g);
+        GraphBuilder<String, String> rb = new GraphBuilder<>(true);
+        rb.addVertices(100);
+        for (int[] e : g.edges()) {
+            rb.add(e[1], e[0]);
+        }
+        assertEquals(edgeString(rb.buildCompact()),
+                     edgeString(new CompactGraph(t)));
+        for (int u = 1; u <= 100; u += 1) {
+            assertEquals(g.inDegree(u), t.outDegree(u));
+            assertEquals(g.outDegree(u), t.inDegree(u));
+            assertArrayEquals(g.predecessorStream(u).toArray(),
+                              t.successorStream(u).toArray());
+            for (int v = 1; v <= 100; v += 1) {
+                assertEquals(g.contains(v, u), t.contains(u, v));
+                assertEquals(g.edgeId(v, u), t.edgeId(u, v));
+            }
+        }
+        EdgeCursor c = t.edgeCursor();
+        long n = 0;
+        while (c.next()) {
+            assertEquals(c.edgeId(), g.edgeId(c.target(), c.source()));
+            n += 1;
+        }
+        assertEquals(g.edgeSize(), n);
+        assertEquals(g.edgeSize(), t.edgeStream()
+                     .filter(e -> g.contains(Graph.edgeTarget(e),
+                                             Graph.edgeSource(e)))
+                     .count());
+        int e = t.add(3, 4);
+        assertEquals(e, g.edgeId(4, 3));
+        t.remove(3, 4);
+        assertFalse(g.contains(4, 3));
+        assertEquals(g.contains(5, 6), new TransposedGraph(t).contains(5, 6));
+
+        Graph u = contructUndirected();
+        Graph ut = new TransposedGraph(u);
+        assertArrayEquals(u.edgeStream().toArray(),
+                          ut.edgeStream().toArray());
+        assertEquals(edgeString(u), edgeString(ut));
+        ut.edgeStream().forEach(x -> assertTrue(Graph.edgeSource(x)
+                                                <= Graph.edgeTarget(x)));
+    }
+
+    @Test
+    public void testOffHeapGraph() {
+        for (boolean directed : new boolean[] { true, false }) {
+            GraphBuilder<String, String> b = new GraphBuilder<>(directed);
+            b.addVertices(300);
+            Random r = new Random(17);
+            for (int i = 0; i < 2000; i += 1) {
+                b.add(1 + r.nextInt(300), 1 + r.nextInt(300));
+            }
+            Graph g = b.build();
+            g.remove(150);
+            try (OffHeapGraph bulk = b.buildOffHeap();
+                 OffHeapGraph copy = new OffHeapGraph(g)) {
+                CompactGraph compact = b.buildCompact();
+                assertEquals(graphString(compact), graphString(bulk));
+                assertEquals(edgeString(compact), edgeString(bulk));
+                assertEquals(graphString(new CompactGraph(g)),
+                             graphString(copy));
+                assertEquals(g.edgeSize(), copy.edgeSize());
+                assertFalse(copy.contains(150));
+                assertEquals(299, copy.vertexSize());
+                assertFalse(copy.isClosed());
+            }
+        }
+    }
+
+    @Test
+    public void testOffHeapGraphClosed() {
+        GraphBuilder<String, String> b = new GraphBuilder<>(true);
+        b.addVertices(2);
+        b.add(1, 2);
+        OffHeapGraph g = b.buildOffHeap();
+        assertTrue(g.contains(1, 2));
+        g.close();
+        assertTrue(g.isClosed());
+        try {
+            g.contains(1, 2);
+            fail("closed graph used");
+        } catch (IllegalStateException excp) {
+            g.close();
+        }
+    }
+
+    @Test
+    public void testEdgeColumns() {
+        LabeledGraph<String, String> g =
+            new LabeledGraph<>(new UndirectedGraph());
+        for (int i = 0; i < 4; i += 1) {
+            g.add("v");
+        }
+        g.add(1, 2);
+        g.add(2, 3);
+        try (EdgeColumn lengths = g.newEdgeColumn()) {
+            lengths.set(2, 1, 1.5);
+            lengths.set(3, 2, 2.5);
+            assertEquals(1.5, lengths.get(1, 2), 0.0);
+            g.remove(2, 3);
+            g.add(3, 4);
+            assertEquals(0.0, lengths.get(3, 4), 0.0);
+            for (int v = 5; v <= 40; v += 1) {
+                g.add();
+                g.add(1, v);
+                lengths.set(1, v, v);
+            }
+            assertEquals(40.0, lengths.get(40, 1), 0.0);
+            assertEquals(1.5, lengths.get(1, 2), 0.0);
+            g.remove(1);
+            g.add();
+            g.add(2, 3);
+            assertEquals(0.0, lengths.get(2, 3), 0.0);
+        }
+        g.remove(3, 4);
+
+        GraphBuilder<String, String> b = new GraphBuilder<>(true);
+        b.addVertices(3);
+        b.add(1, 2);
+        b.add(2, 3);
+        try (OffHeapGraph base = b.buildOffHeap()) {
+            LabeledGraph<String, String> lg = new LabeledGraph<>(base);
+            EdgeColumn weights = lg.newEdgeColumn();
+            weights.set(2, 3, 7.0);
+            assertEquals(7.0, weights.get(2, 3), 0.0);
+            assertEquals(0.0, weights.get(1, 2), 0.0);
+            weights.close();
+            assertTrue(weights.isClosed());
+        }
+    }
+
+    @Test
+    public void testGraphFile() throws IOException {
+        File file = File.createTempFile("graph", ".bin");
+        file.deleteOnExit();
+        for (boolean directed : new boolean[] { true, false }) {
+            LabeledGraph<String, Integer> g = new LabeledGraph<>(
+                directed ? new DirectedGraph() : new UndirectedGraph());
+            for (int i = 1; i <= 100; i += 1) {
+                g.add(i % 7 == 0 ? null : "v\u00e9" + i);
+            }
+            Random r = new Random(23);
+            for (int i = 0; i < 600; i += 1) {
+                int u = 1 + r.nextInt(100), v = 1 + r.nextInt(100);
+                g.add(u, v, u % 5 == 0 ? null : u * 1000 + v);
+            }
+            g.remove(100);
+            g.remove(42);
+            GraphFile.write(g, lab -> lab, lab -> "#" + lab, file);
+            try (MappedGraph m = GraphFile.map(file)) {
+                assertTrue(m.isLabeled());
+                assertEquals(graphString(new CompactGraph(g)),
+                             graphString(m));
+                assertEquals(g.vertexSize(), m.vertexSize());
+                assertEquals(g.edgeSize(), m.edgeSize());
+                assertEquals(99, m.maxVertex());
+                for (int v : g.vertices()) {
+                    assertEquals(g.getLabel(v), m.getLabel(v));
+                    for (int w : g.successors(v)) {
+                        Integer lab = g.getLabel(v, w);
+                        assertEquals(lab == null ? null : "#" + lab,
+                                     m.getLabel(v, w));
+                    }
+                }
+            }
+            GraphFile.write(new CompactGraph(g), file);
+            try (MappedGraph m = GraphFile.map(file)) {
+                assertFalse(m.isLabeled());
+                assertNull(m.getLabel(1));
+                assertEquals(edgeString(new CompactGraph(g)),
+                             edgeString(m));
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testGraphFileChecksVersion() throws IOException {
+        File file = File.createTempFile("graph", ".bin");
+        file.deleteOnExit();
+        GraphFile.write(new DirectedGraph(), file);
+        try (MappedGraph m = GraphFile.map(file)) {
+            assertEquals(0, m.vertexSize());
+            assertFalse(m.vertices().hasNext());
+        }
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.seek(8);
+            raw.write(GraphFile.VERSION + 1);
+        }
+        GraphFile.map(file);
+    }
 }
@@ -0,0 +1,251 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of positive identifiers, such as the vertex numbers or edge ids
+ * of a GraphObj, kept as a bitset.  Besides constant-time membership, it
+ * keeps its size and largest member up to date and can find the smallest
+ * positive number not in the set (the number Graph.add() must return) in
+ * nearly constant time, using a summary with one bit per word of the set
+ * that records which words are full.
+ *
+ * @author John Schulz
+ */
+class IdSet {
+
+    /**
+     * An empty set.
+     */
+    IdSet() {
+        _words = new long[INITIAL_WORDS];
+        _full = new long[1];
+        _free = 1;
+    }
+
+    /**
+     * A copy of SET.
+     */
+    IdSet(IdSet set) {
+        _words = set._words.clone();
+        _full = set._full.clone();
+        _size = set._size;
+        _max = set._max;
+        _free = set._free;
+    }
+
+    /**
+     * Returns the number of members.
+     */
+    int size() {
+        return _size;
+    }
+
+    /**
+     * Returns the largest member, or 0 if I am empty.
+     */
+    int max() {
+        return _max;
+    }
+
+    /**
+     * Returns true iff V is a member.
+     */
+    boolean contains(int v) {
+        return v > 0 && v <= _max
+            && (_words[v >>> WORD_SHIFT] & (1L << v)) != 0;
+    }
+
+    /**
+     * Add the smallest positive number that is not a member and return it.
+     */
+    int add() {
+        int v = _free;
+        set(v);
+        _free = nextFree(v + 1);
+        return v;
+    }
+
+    /**
+     * Make every number from 1 to N a member.
+     */
+    void addAll(int n) {
+        for (int v = _free; v <= n; v = nextFree(v + 1)) {
+            set(v);
+        }
+        _free = nextFree(_free);
+    }
+
+    /**
+     * Remove V, if it is a member.
+     */
+    void remove(int v) {
+        if (!contains(v)) {
+            return;
+        }
+        int i = v >>> WORD_SHIFT;
+        _words[i] &= ~(1L << v);
+        _full[i >>> WORD_SHIFT] &= ~(1L << i);
+        _size -= 1;
+        if (v < _free) {
+            _free = v;
+        }
+        if (v == _max) {
+            _max = previous(v - 1);
+        }
+    }
+
+    /**
+     * Returns the smallest member that is >= V, or 0 if there is none.
+     */
+    int next(int v) {
+        if (v <= 0) {
+            v = 1;
+        }
+        if (v > _max) {
+            return 0;
+        }
+        int i = v >>> WORD_SHIFT;
+        long word = _words[i] & (-1L << v);
+        while (word == 0) {
+            i += 1;
+            word = _words[i];
+        }
+        return (i << WORD_SHIFT) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Returns an iteration over my members in increasing order.  It reads
+     * the set directly, so members added or removed during the iteration
+     * may or may not be delivered.
+     */
+    IntIteration iteration() {
+        return new IntIteration() {
+            @Override
+            public boolean hasNext() {
+                return _next != 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (_next == 0) {
+                    throw new NoSuchElementException();
+                }
+                int v = _next;
+                _next = IdSet.this.next(v + 1);
+                return v;
+            }
+
+            /**
+             * The next member to deliver, or 0 if there is none.
+             */
+            private int _next = IdSet.this.next(1);
+        };
+    }
+
+    /**
+     * Add V as a member.  Assumes V > 0 and V is not already a member.
+     */
+    private void set(int v) {
+        int i = v >>> WORD_SHIFT;
+        if (i >= _words.length) {
+            int n = Math.max(i + 1, 2 * _words.length);
+            _words = Arrays.copyOf(_words, n);
+            _full = Arrays.copyOf(_full,
+                                  (_words.length >>> WORD_SHIFT) + 1);
+        }
+        _words[i] |= 1L << v;
+        if (_words[i] == -1L) {
+            _full[i >>> WORD_SHIFT] |= 1L << i;
+        }
+        _size += 1;
+        if (v > _max) {
+            _max = v;
+        }
+    }
+
+    /**
+     * Returns the smallest number >= V that is not a member.  Assumes
+     * V > 0.
+     */
+    private int nextFree(int v) {
+        int i = v >>> WORD_SHIFT;
+        if (i >= _words.length) {
+            return v;
+        }
+        long word = ~_words[i] & (-1L << v);
+        if (word != 0) {
+            return (i << WORD_SHIFT) + Long.numberOfTrailingZeros(word);
+        }
+        int j = (i + 1) >>> WORD_SHIFT;
+        long summary = j < _full.length
+            ? ~_full[j] & (-1L << (i + 1)) : -1L;
+        while (summary == 0) {
+            j += 1;
+            summary = j < _full.length ? ~_full[j] : -1L;
+        }
+        i = (j << WORD_SHIFT) + Long.numberOfTrailingZeros(summary);
+        if (i >= _words.length) {
+            return Math.max(v, i << WORD_SHIFT);
+        }
+        return (i << WORD_SHIFT) + Long.numberOfTrailingZeros(~_words[i]);
+    }
+
+    /**
+     * Returns the largest member that is <= V, or 0 if there is none.
+     */
+    private int previous(int v) {
+        if (v <= 0) {
+            return 0;
+        }
+        int i = v >>> WORD_SHIFT;
+        long word = _words[i] & (-1L >>> (WORD_MASK - (v & WORD_MASK)));
+        while (word == 0 && i > 0) {
+            i -= 1;
+            word = _words[i];
+        }
+        if (word == 0) {
+            return 0;
+        }
+        return (i << WORD_SHIFT) + WORD_MASK
+            - Long.numberOfLeadingZeros(word);
+    }
+
+    /**
+     * Log base 2 of the number of bits in a word.
+     */
+    private static final int WORD_SHIFT = 6;
+    /**
+     * Mask for the position of a bit within its word.
+     */
+    private static final int WORD_MASK = 63;
+    /**
+     * Initial number of words in the set.
+     */
+    private static final int INITIAL_WORDS = 2;
+
+    /**
+     * Bit V % 64 of _words[V / 64] is set iff V is a member.  Bit 0 of
+     * _words[0] is never set.
+     */
+    private long[] _words;
+    /**
+     * Bit I % 64 of _full[I / 64] is set iff _words[I] has all bits set.
+     */
+    private long[] _full;
+    /**
+     * The number of members.
+     */
+    private int _size;
+    /**
+     * The largest member, or 0 if there is none.
+     */
+    private int _max;
+    /**
+     * The smallest positive number that is not a member.
+     */
+    private int _free;
+}
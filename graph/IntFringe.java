@@ -0,0 +1,217 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.AbstractQueue;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+
+/**
+ * A fringe of vertices for a Traversal that holds them as ints, so that
+ * adding and removing vertices allocates nothing once it has grown to
+ * size.  The order in which remove() delivers vertices is the business
+ * of each subclass: IntQueue delivers the oldest, IntStack the newest,
+ * and IntHeap the least by some ordering.
+ *
+ * @author John Schulz
+ */
+public abstract class IntFringe {
+
+    /**
+     * Add vertex V.
+     */
+    public abstract void add(int v);
+
+    /**
+     * Returns the vertex that remove() would deliver next, without
+     * removing it.  Throws NoSuchElementException if I am empty.
+     */
+    public abstract int peek();
+
+    /**
+     * Remove and return my next vertex.  Throws NoSuchElementException
+     * if I am empty.
+     */
+    public abstract int remove();
+
+    /**
+     * Remove one occurrence of vertex V, if present.  Returns true iff V
+     * was present.
+     */
+    public abstract boolean remove(int v);
+
+    /**
+     * Returns true iff vertex V is present.
+     */
+    public abstract boolean contains(int v);
+
+    /**
+     * Returns my number of vertices.
+     */
+    public abstract int size();
+
+    /**
+     * Remove all my vertices.
+     */
+    public abstract void clear();
+
+    /**
+     * Returns true iff I have no vertices.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns a new array holding my vertices, in the order in which
+     * remove() would deliver them.  (For a fringe made by of(Queue), the
+     * order is that of the Queue's iterator.)
+     */
+    public abstract int[] toArray();
+
+    /**
+     * Returns an IntFringe that adds to and removes from QUEUE, for
+     * Traversals whose fringe is an ordinary Queue.  Each vertex is
+     * removed by calling QUEUE.peek() and then QUEUE.remove().
+     */
+    static IntFringe of(Queue<Integer> queue) {
+        return new QueueFringe(queue);
+    }
+
+    /**
+     * Returns a view of me as a Queue.  Changes to either show in the
+     * other.  Its iterator delivers a copy of my contents.
+     */
+    Queue<Integer> asQueue() {
+        return new AbstractQueue<Integer>() {
+            @Override
+            public boolean offer(Integer v) {
+                IntFringe.this.add(v);
+                return true;
+            }
+
+            @Override
+            public Integer poll() {
+                return IntFringe.this.isEmpty() ? null
+                    : IntFringe.this.remove();
+            }
+
+            @Override
+            public Integer peek() {
+                return IntFringe.this.isEmpty() ? null
+                    : IntFringe.this.peek();
+            }
+
+            @Override
+            public boolean contains(Object v) {
+                return v instanceof Integer
+                    && IntFringe.this.contains((Integer) v);
+            }
+
+            @Override
+            public boolean remove(Object v) {
+                return v instanceof Integer
+                    && IntFringe.this.remove((Integer) v);
+            }
+
+            @Override
+            public int size() {
+                return IntFringe.this.size();
+            }
+
+            @Override
+            public void clear() {
+                IntFringe.this.clear();
+            }
+
+            @Override
+            public Iterator<Integer> iterator() {
+                return Arrays.stream(IntFringe.this.toArray()).iterator();
+            }
+        };
+    }
+
+    /**
+     * Returns a NoSuchElementException for an operation on an empty
+     * fringe.
+     */
+    static NoSuchElementException empty() {
+        return new NoSuchElementException("fringe is empty");
+    }
+
+    /**
+     * An IntFringe that delegates to a Queue<Integer>.
+     */
+    private static class QueueFringe extends IntFringe {
+        /**
+         * An IntFringe over QUEUE.
+         */
+        QueueFringe(Queue<Integer> queue) {
+            _queue = queue;
+        }
+
+        @Override
+        public void add(int v) {
+            _queue.add(v);
+        }
+
+        @Override
+        public int peek() {
+            Integer v = _queue.peek();
+            if (v == null) {
+                throw empty();
+            }
+            return v;
+        }
+
+        @Override
+        public int remove() {
+            int v = peek();
+            _queue.remove();
+            return v;
+        }
+
+        @Override
+        public boolean remove(int v) {
+            return _queue.remove(v);
+        }
+
+        @Override
+        public boolean contains(int v) {
+            return _queue.contains(v);
+        }
+
+        @Override
+        public int size() {
+            return _queue.size();
+        }
+
+        @Override
+        public void clear() {
+            _queue.clear();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return _queue.isEmpty();
+        }
+
+        @Override
+        public int[] toArray() {
+            int[] result = new int[_queue.size()];
+            int k = 0;
+            for (int v : _queue) {
+                result[k] = v;
+                k += 1;
+            }
+            return result;
+        }
+
+        /**
+         * The queue holding my vertices.
+         */
+        private final Queue<Integer> _queue;
+    }
+}
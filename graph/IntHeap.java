@@ -0,0 +1,204 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+
+/**
+ * An IntFringe that delivers its least vertex according to an Order,
+ * kept in a binary heap together with an index from each vertex to its
+ * place in the heap.  A vertex is present at most once: adding a vertex
+ * that is present moves it to its proper place, so that a client whose
+ * ordering of V has changed (as when a shortest-path search lowers V's
+ * distance) need only add V again.  Adding, removing, and moving a
+ * vertex take time logarithmic in size(), and contains(v) takes
+ * constant time.
+ *
+ * @author John Schulz
+ */
+public class IntHeap extends IntFringe {
+
+    /**
+     * An ordering of vertices.
+     */
+    public interface Order {
+        /**
+         * Returns a negative, zero, or positive value as vertex U is to be
+         * delivered before, at the same time as, or after vertex V.
+         */
+        int compare(int u, int v);
+    }
+
+    /**
+     * An empty heap whose vertices are ordered by ORDER.
+     */
+    public IntHeap(Order order) {
+        _order = order;
+        _heap = new int[DEFAULT_CAPACITY];
+        _index = new int[DEFAULT_CAPACITY];
+    }
+
+    @Override
+    public void add(int v) {
+        if (contains(v)) {
+            int k = _index[v] - 1;
+            siftDown(siftUp(k));
+            return;
+        }
+        if (_size == _heap.length) {
+            _heap = Arrays.copyOf(_heap, 2 * _size);
+        }
+        if (v >= _index.length) {
+            _index = Arrays.copyOf(_index, Math.max(v + 1,
+                                                    2 * _index.length));
+        }
+        _heap[_size] = v;
+        _index[v] = _size + 1;
+        _size += 1;
+        siftUp(_size - 1);
+    }
+
+    @Override
+    public int peek() {
+        if (_size == 0) {
+            throw empty();
+        }
+        return _heap[0];
+    }
+
+    @Override
+    public int remove() {
+        int v = peek();
+        removeAt(0);
+        return v;
+    }
+
+    @Override
+    public boolean remove(int v) {
+        if (!contains(v)) {
+            return false;
+        }
+        removeAt(_index[v] - 1);
+        return true;
+    }
+
+    @Override
+    public boolean contains(int v) {
+        return v >= 0 && v < _index.length && _index[v] != 0;
+    }
+
+    @Override
+    public int size() {
+        return _size;
+    }
+
+    @Override
+    public void clear() {
+        for (int k = 0; k < _size; k += 1) {
+            _index[_heap[k]] = 0;
+        }
+        _size = 0;
+    }
+
+    @Override
+    public int[] toArray() {
+        int[] result = Arrays.copyOf(_heap, _size);
+        IntHeap copy = new IntHeap(_order);
+        copy._heap = result.clone();
+        copy._index = _index.clone();
+        copy._size = _size;
+        for (int k = 0; k < result.length; k += 1) {
+            result[k] = copy.remove();
+        }
+        return result;
+    }
+
+    /**
+     * Remove the vertex at heap position K.
+     */
+    private void removeAt(int k) {
+        _index[_heap[k]] = 0;
+        _size -= 1;
+        if (k < _size) {
+            int last = _heap[_size];
+            _heap[k] = last;
+            _index[last] = k + 1;
+            siftDown(siftUp(k));
+        }
+    }
+
+    /**
+     * Move the vertex at heap position K toward the root until it is no
+     * less than its parent, and return its final position.
+     */
+    private int siftUp(int k) {
+        int v = _heap[k];
+        while (k > 0) {
+            int parent = (k - 1) / 2;
+            int p = _heap[parent];
+            if (_order.compare(v, p) >= 0) {
+                break;
+            }
+            _heap[k] = p;
+            _index[p] = k + 1;
+            k = parent;
+        }
+        _heap[k] = v;
+        _index[v] = k + 1;
+        return k;
+    }
+
+    /**
+     * Move the vertex at heap position K away from the root until it is
+     * no greater than its children.
+     */
+    private void siftDown(int k) {
+        int v = _heap[k];
+        while (true) {
+            int child = 2 * k + 1;
+            if (child >= _size) {
+                break;
+            }
+            if (child + 1 < _size
+                && _order.compare(_heap[child + 1], _heap[child]) < 0) {
+                child += 1;
+            }
+            int c = _heap[child];
+            if (_order.compare(c, v) >= 0) {
+                break;
+            }
+            _heap[k] = c;
+            _index[c] = k + 1;
+            k = child;
+        }
+        _heap[k] = v;
+        _index[v] = k + 1;
+    }
+
+    /**
+     * Initial capacity.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * The ordering of my vertices.
+     */
+    private final Order _order;
+
+    /**
+     * My vertices, _heap[0 .. _size-1], in heap order: each is no less
+     * than the one at (its position - 1) / 2.
+     */
+    private int[] _heap;
+
+    /**
+     * _index[V] is 1 + the position of vertex V in _heap, or 0 if V is
+     * not present.
+     */
+    private int[] _index;
+
+    /**
+     * My number of vertices.
+     */
+    private int _size;
+}
@@ -0,0 +1,132 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * An Iteration over ints that can deliver its values without boxing them.
+ * Clients that care about speed call nextInt(), or next(BUF) to fetch
+ * values in bulk; the inherited next() boxes each value, so that an
+ * IntIteration can still be used wherever an Iteration<Integer> is
+ * expected, including in a foreach loop.  For example,
+ * IntIteration succ = G.intSuccessors(v);
+ * while (succ.hasNext()) {
+ * int w = succ.nextInt();
+ * ...
+ * }
+ *
+ * @author John Schulz
+ */
+public abstract class IntIteration extends Iteration<Integer>
+        implements PrimitiveIterator.OfInt {
+
+    @Override
+    public abstract int nextInt();
+
+    @Override
+    public Integer next() {
+        return nextInt();
+    }
+
+    /**
+     * Fill BUF with as many of my remaining values as will fit, starting
+     * at BUF[0], and return how many were stored.  Returns 0 only if I am
+     * exhausted or BUF is empty.
+     */
+    public int next(int[] buf) {
+        int n;
+        for (n = 0; n < buf.length && hasNext(); n += 1) {
+            buf[n] = nextInt();
+        }
+        return n;
+    }
+
+    /**
+     * Returns an IntIteration over A[FROM .. TO-1].  It reads A directly,
+     * so A must not change during the iteration.
+     */
+    static IntIteration of(int[] a, int from, int to) {
+        return new ArrayIteration(a, from, to);
+    }
+
+    /**
+     * Returns an IntIteration with no values.
+     */
+    static IntIteration empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns an IntIteration that delivers the values of IT.
+     */
+    static IntIteration of(Iterator<Integer> it) {
+        if (it instanceof IntIteration) {
+            return (IntIteration) it;
+        }
+        return new IntIteration() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public int nextInt() {
+                return it.next();
+            }
+        };
+    }
+
+    /**
+     * An iteration over a segment of an array.
+     */
+    private static class ArrayIteration extends IntIteration {
+        /**
+         * Iterates over A[FROM .. TO-1].
+         */
+        ArrayIteration(int[] a, int from, int to) {
+            _a = a;
+            _k = from;
+            _to = to;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _k < _to;
+        }
+
+        @Override
+        public int nextInt() {
+            if (_k >= _to) {
+                throw new NoSuchElementException();
+            }
+            _k += 1;
+            return _a[_k - 1];
+        }
+
+        @Override
+        public int next(int[] buf) {
+            int n = Math.min(buf.length, _to - _k);
+            System.arraycopy(_a, _k, buf, 0, n);
+            _k += n;
+            return n;
+        }
+
+        /**
+         * The array being traversed.
+         */
+        private final int[] _a;
+        /**
+         * The next position to deliver and the end of the segment.
+         */
+        private int _k, _to;
+    }
+
+    /**
+     * The empty IntIteration.  It has no state, so may be shared.
+     */
+    private static final IntIteration EMPTY =
+        new ArrayIteration(new int[0], 0, 0);
+}
@@ -0,0 +1,132 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+/**
+ * A first-in, first-out IntFringe, kept in a ring buffer that doubles
+ * when full.  Adding and removing at the ends take constant time;
+ * contains(v) and remove(v) scan the buffer.
+ *
+ * @author John Schulz
+ */
+public class IntQueue extends IntFringe {
+
+    /**
+     * An empty queue.
+     */
+    public IntQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * An empty queue with room for at least CAPACITY vertices before it
+     * must grow.
+     */
+    public IntQueue(int capacity) {
+        int n = DEFAULT_CAPACITY;
+        while (n < capacity) {
+            n *= 2;
+        }
+        _data = new int[n];
+    }
+
+    @Override
+    public void add(int v) {
+        if (_size == _data.length) {
+            _data = toArray(2 * _size);
+            _head = 0;
+        }
+        _data[(_head + _size) & (_data.length - 1)] = v;
+        _size += 1;
+    }
+
+    @Override
+    public int peek() {
+        if (_size == 0) {
+            throw empty();
+        }
+        return _data[_head];
+    }
+
+    @Override
+    public int remove() {
+        int v = peek();
+        _head = (_head + 1) & (_data.length - 1);
+        _size -= 1;
+        return v;
+    }
+
+    @Override
+    public boolean remove(int v) {
+        int mask = _data.length - 1;
+        for (int k = 0; k < _size; k += 1) {
+            if (_data[(_head + k) & mask] == v) {
+                for (; k < _size - 1; k += 1) {
+                    _data[(_head + k) & mask] = _data[(_head + k + 1) & mask];
+                }
+                _size -= 1;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean contains(int v) {
+        int mask = _data.length - 1;
+        for (int k = 0; k < _size; k += 1) {
+            if (_data[(_head + k) & mask] == v) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return _size;
+    }
+
+    @Override
+    public void clear() {
+        _head = _size = 0;
+    }
+
+    @Override
+    public int[] toArray() {
+        return toArray(_size);
+    }
+
+    /**
+     * Returns a new array of length N >= size() holding my vertices in
+     * order, starting at index 0.
+     */
+    private int[] toArray(int n) {
+        int[] result = new int[n];
+        int first = Math.min(_size, _data.length - _head);
+        System.arraycopy(_data, _head, result, 0, first);
+        System.arraycopy(_data, 0, result, first, _size - first);
+        return result;
+    }
+
+    /**
+     * Initial capacity (a power of 2).
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * My vertices are _data[_head], _data[_head + 1], ..., taken modulo
+     * _data.length, which is a power of 2.
+     */
+    private int[] _data;
+
+    /**
+     * The index of my first vertex.
+     */
+    private int _head;
+
+    /**
+     * My number of vertices.
+     */
+    private int _size;
+}
@@ -0,0 +1,110 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+
+/**
+ * A last-in, first-out IntFringe, kept in an array that doubles when
+ * full.  Adding and removing at the top take constant time;
+ * contains(v) and remove(v) scan the array.
+ *
+ * @author John Schulz
+ */
+public class IntStack extends IntFringe {
+
+    /**
+     * An empty stack.
+     */
+    public IntStack() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * An empty stack with room for CAPACITY vertices before it must
+     * grow.
+     */
+    public IntStack(int capacity) {
+        _data = new int[Math.max(1, capacity)];
+    }
+
+    @Override
+    public void add(int v) {
+        if (_size == _data.length) {
+            _data = Arrays.copyOf(_data, 2 * _size);
+        }
+        _data[_size] = v;
+        _size += 1;
+    }
+
+    @Override
+    public int peek() {
+        if (_size == 0) {
+            throw empty();
+        }
+        return _data[_size - 1];
+    }
+
+    @Override
+    public int remove() {
+        int v = peek();
+        _size -= 1;
+        return v;
+    }
+
+    @Override
+    public boolean remove(int v) {
+        for (int k = _size - 1; k >= 0; k -= 1) {
+            if (_data[k] == v) {
+                System.arraycopy(_data, k + 1, _data, k, _size - k - 1);
+                _size -= 1;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean contains(int v) {
+        for (int k = _size - 1; k >= 0; k -= 1) {
+            if (_data[k] == v) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return _size;
+    }
+
+    @Override
+    public void clear() {
+        _size = 0;
+    }
+
+    @Override
+    public int[] toArray() {
+        int[] result = new int[_size];
+        for (int k = 0; k < _size; k += 1) {
+            result[k] = _data[_size - 1 - k];
+        }
+        return result;
+    }
+
+    /**
+     * Initial capacity.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * My vertices are _data[0 .. _size-1], the top being last.
+     */
+    private int[] _data;
+
+    /**
+     * My number of vertices.
+     */
+    private int _size;
+}
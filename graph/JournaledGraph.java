@@ -0,0 +1,301 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.ArrayList;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * A Graph that records each change made through it, so that caches and
+ * incremental algorithms built on the graph can process just what has
+ * changed instead of starting over.  Every change (adding or removing a
+ * vertex or an edge) gets the next in a series of sequence numbers,
+ * starting at 0, and goes into a journal that holds the most recent
+ * changes, up to a fixed capacity, in a ring of primitive arrays.  A
+ * client remembers sequence() when it has caught up, and later calls
+ * replay with that number to receive the changes made since, or learns
+ * that some have already been overwritten, in which case it must
+ * recompute from scratch.  Clients that must react at once may instead
+ * register a Listener, which is called synchronously after each change.
+ * <p>
+ * Only actual changes are recorded: adding an edge that is present or
+ * removing one that is not records nothing.  Removing a vertex records
+ * the removal of each of its edges, followed by the removal of the
+ * vertex.  Changes made directly to the underlying graph are not seen.
+ *
+ * @author John Schulz
+ */
+public class JournaledGraph extends GraphFilter {
+
+    /**
+     * The kinds of change recorded.
+     */
+    public enum Change {
+        /**
+         * A vertex was added.
+         */
+        ADD_VERTEX,
+        /**
+         * A vertex was removed.
+         */
+        REMOVE_VERTEX,
+        /**
+         * An edge was added.
+         */
+        ADD_EDGE,
+        /**
+         * An edge was removed.
+         */
+        REMOVE_EDGE
+    }
+
+    /**
+     * A recipient of changes, either as they happen or from replay.
+     */
+    public interface Listener {
+        /**
+         * Process the change numbered SEQUENCE, of the given KIND.  For an
+         * edge change, the edge runs from U to V; for a vertex change, U
+         * is the vertex and V is 0.
+         */
+        void changed(long sequence, Change kind, int u, int v);
+    }
+
+    /**
+     * A journaled view of G that remembers its last DEFAULT_CAPACITY
+     * changes.
+     */
+    public JournaledGraph(Graph G) {
+        this(G, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * A journaled view of G that remembers its last CAPACITY changes.
+     * CAPACITY must be positive.
+     */
+    public JournaledGraph(Graph G, int capacity) {
+        super(G);
+        _G = G;
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        _kinds = new byte[capacity];
+        _sources = new int[capacity];
+        _targets = new int[capacity];
+    }
+
+    /**
+     * Returns the sequence number the next change will get, which is the
+     * number of changes made through me so far.
+     */
+    public long sequence() {
+        return _sequence;
+    }
+
+    /**
+     * Returns the sequence number of the oldest change still in my
+     * journal (equal to sequence() if it is empty).
+     */
+    public long oldestSequence() {
+        return Math.max(0, _sequence - _kinds.length);
+    }
+
+    /**
+     * Deliver to LISTENER, in order, each change in my journal whose
+     * sequence number is at least SINCE, and return true.  If SINCE is
+     * less than oldestSequence(), so that some of those changes are no
+     * longer available, deliver nothing and return false.
+     */
+    public boolean replay(long since, Listener listener) {
+        if (since < oldestSequence()) {
+            return false;
+        }
+        for (long s = since; s < _sequence; s += 1) {
+            int k = (int) (s % _kinds.length);
+            listener.changed(s, CHANGES[_kinds[k]], _sources[k],
+                             _targets[k]);
+        }
+        return true;
+    }
+
+    /**
+     * Call LISTENER after each future change, after any listeners already
+     * added.
+     */
+    public void addListener(Listener listener) {
+        _listeners.add(listener);
+    }
+
+    /**
+     * Stop calling LISTENER on changes.
+     */
+    public void removeListener(Listener listener) {
+        _listeners.remove(listener);
+    }
+
+    @Override
+    public int add() {
+        int v = super.add();
+        record(Change.ADD_VERTEX, v, 0);
+        return v;
+    }
+
+    @Override
+    public int add(int u, int v) {
+        boolean present = contains(u, v);
+        int e = super.add(u, v);
+        if (!present) {
+            record(Change.ADD_EDGE, u, v);
+        }
+        return e;
+    }
+
+    @Override
+    public void remove(int v) {
+        if (!contains(v)) {
+            super.remove(v);
+            return;
+        }
+        int[] ends = new int[2 * outDegree(v) + 2 * inDegree(v)];
+        int n = 0;
+        IntIteration succ = intSuccessors(v);
+        while (succ.hasNext()) {
+            ends[n] = v;
+            ends[n + 1] = succ.nextInt();
+            n += 2;
+        }
+        if (isDirected()) {
+            IntIteration pred = intPredecessors(v);
+            while (pred.hasNext()) {
+                int u = pred.nextInt();
+                if (u != v) {
+                    ends[n] = u;
+                    ends[n + 1] = v;
+                    n += 2;
+                }
+            }
+        }
+        super.remove(v);
+        for (int k = 0; k < n; k += 2) {
+            record(Change.REMOVE_EDGE, ends[k], ends[k + 1]);
+        }
+        record(Change.REMOVE_VERTEX, v, 0);
+    }
+
+    @Override
+    public void remove(int u, int v) {
+        if (contains(u, v)) {
+            super.remove(u, v);
+            record(Change.REMOVE_EDGE, u, v);
+        }
+    }
+
+    @Override
+    public IntIteration intVertices() {
+        return _G.intVertices();
+    }
+
+    @Override
+    public IntIteration intSuccessors(int v) {
+        return _G.intSuccessors(v);
+    }
+
+    @Override
+    public IntIteration intPredecessors(int v) {
+        return _G.intPredecessors(v);
+    }
+
+    @Override
+    public IntStream vertexStream() {
+        return _G.vertexStream();
+    }
+
+    @Override
+    public IntStream successorStream(int v) {
+        return _G.successorStream(v);
+    }
+
+    @Override
+    public IntStream predecessorStream(int v) {
+        return _G.predecessorStream(v);
+    }
+
+    @Override
+    public EdgeCursor edgeCursor() {
+        return _G.edgeCursor();
+    }
+
+    @Override
+    public LongStream edgeStream() {
+        return _G.edgeStream();
+    }
+
+    @Override
+    public void unionSuccessors(int v, long[] set) {
+        _G.unionSuccessors(v, set);
+    }
+
+    @Override
+    public void intersectSuccessors(int v, long[] set) {
+        _G.intersectSuccessors(v, set);
+    }
+
+    @Override
+    public void removeSuccessors(int v, long[] set) {
+        _G.removeSuccessors(v, set);
+    }
+
+    /**
+     * Record a change of the given KIND to U and V, as described for
+     * Listener.changed, and notify my listeners.
+     */
+    private void record(Change kind, int u, int v) {
+        long s = _sequence;
+        int k = (int) (s % _kinds.length);
+        _kinds[k] = (byte) kind.ordinal();
+        _sources[k] = u;
+        _targets[k] = v;
+        _sequence = s + 1;
+        for (Listener listener : _listeners) {
+            listener.changed(s, kind, u, v);
+        }
+    }
+
+    /**
+     * Number of changes remembered by default.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    /**
+     * The Change values, indexed by ordinal.
+     */
+    private static final Change[] CHANGES = Change.values();
+
+    /**
+     * The graph whose changes I record.
+     */
+    private final Graph _G;
+
+    /**
+     * The change numbered S is recorded at index S % capacity of the
+     * journal arrays.  This one holds the ordinal of its kind.
+     */
+    private final byte[] _kinds;
+
+    /**
+     * The journal arrays holding the two vertices of each change, as
+     * passed to Listener.changed.
+     */
+    private final int[] _sources, _targets;
+
+    /**
+     * The sequence number of the next change.
+     */
+    private long _sequence;
+
+    /**
+     * My listeners, in order of registration.
+     */
+    private final ArrayList<Listener> _listeners = new ArrayList<>();
+}
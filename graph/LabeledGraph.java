@@ -3,6 +3,8 @@ package graph;
 /* See restrictions in Graph.java. */
 
 import java.util.ArrayList;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 /**
  * A Graph whose vertices are labeled with type VL and whose edges are
@@ -20,6 +22,7 @@ public class LabeledGraph<VL, EL> extends GraphFilter {
      */
     public LabeledGraph(Graph G) {
         super(G);
+        _G = G;
     }
 
     /**
@@ -49,7 +52,9 @@ public class LabeledGraph<VL, EL> extends GraphFilter {
      * label EL, returns an arbitrary one of them.
      */
     public int getSuccessor(int u, EL lab) {
-        for (int v : successors(u)) {
+        IntIteration successors = intSuccessors(u);
+        while (successors.hasNext()) {
+            int v = successors.nextInt();
             if (lab.equals(getLabel(u, v))) {
                 return v;
             }
@@ -107,8 +112,28 @@ public class LabeledGraph<VL, EL> extends GraphFilter {
         return e;
     }
 
+    /**
+     * Returns a new column of double-valued labels on my edges, all
+     * initially 0, kept off the Java heap.  Removing an edge from me
+     * resets its value in each of my open columns to 0.  The column
+     * should be closed once no longer needed.
+     */
+    public EdgeColumn newEdgeColumn() {
+        EdgeColumn result = new EdgeColumn(this);
+        _columns.add(result);
+        return result;
+    }
+
     @Override
     public void remove(int v) {
+        if (contains(v)) {
+            for (int w : successors(v)) {
+                clearLabel(v, w);
+            }
+            for (int w : predecessors(v)) {
+                clearLabel(w, v);
+            }
+        }
         super.remove(v);
         if (v < _vlabel.size()) {
             _vlabel.set(v, null);
@@ -120,9 +145,86 @@ public class LabeledGraph<VL, EL> extends GraphFilter {
         int e = edgeId(u, v);
         if (e != 0) {
             super.remove(u, v);
-            if (e < _elabel.size()) {
-                _elabel.set(e, null);
-            }
+            clearLabel(e);
+        }
+    }
+
+    @Override
+    public IntIteration intVertices() {
+        return _G.intVertices();
+    }
+
+    @Override
+    public IntIteration intSuccessors(int v) {
+        return _G.intSuccessors(v);
+    }
+
+    @Override
+    public IntIteration intPredecessors(int v) {
+        return _G.intPredecessors(v);
+    }
+
+    @Override
+    public IntStream vertexStream() {
+        return _G.vertexStream();
+    }
+
+    @Override
+    public IntStream successorStream(int v) {
+        return _G.successorStream(v);
+    }
+
+    @Override
+    public IntStream predecessorStream(int v) {
+        return _G.predecessorStream(v);
+    }
+
+    @Override
+    public EdgeCursor edgeCursor() {
+        return _G.edgeCursor();
+    }
+
+    @Override
+    public LongStream edgeStream() {
+        return _G.edgeStream();
+    }
+
+    @Override
+    public void unionSuccessors(int v, long[] set) {
+        _G.unionSuccessors(v, set);
+    }
+
+    @Override
+    public void intersectSuccessors(int v, long[] set) {
+        _G.intersectSuccessors(v, set);
+    }
+
+    @Override
+    public void removeSuccessors(int v, long[] set) {
+        _G.removeSuccessors(v, set);
+    }
+
+    /**
+     * Remove any label from edge (U, V), which must be one of my edges.
+     * Edge ids are reused once their edges are removed, so the labels of
+     * removed edges must not be left behind.
+     */
+    private void clearLabel(int u, int v) {
+        clearLabel(edgeId(u, v));
+    }
+
+    /**
+     * Remove any labels from the edge whose id is E, including its
+     * values in my columns, and forget any columns that have been
+     * closed.
+     */
+    private void clearLabel(int e) {
+        if (e < _elabel.size()) {
+            _elabel.set(e, null);
+        }
+        _columns.removeIf(EdgeColumn::isClosed);
+        for (EdgeColumn column : _columns) {
+            column.clear(e);
         }
     }
 
@@ -136,6 +238,10 @@ public class LabeledGraph<VL, EL> extends GraphFilter {
         }
     }
 
+    /**
+     * The graph I label.
+     */
+    private final Graph _G;
     /**
      * Mapping of vertex numbers to vertex labels.
      */
@@ -144,4 +250,9 @@ public class LabeledGraph<VL, EL> extends GraphFilter {
      * Mapping of unique edge ids to edge labels.
      */
     private final ArrayList<EL> _elabel = new ArrayList<>();
+    /**
+     * The columns created by newEdgeColumn that were open when last
+     * checked.
+     */
+    private final ArrayList<EdgeColumn> _columns = new ArrayList<>();
 }
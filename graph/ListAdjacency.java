@@ -0,0 +1,467 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * An Adjacency that keeps a separate array of adjacent vertices for
+ * each vertex, together with the ids of the corresponding edges.  This
+ * is the default storage for DirectedGraph and UndirectedGraph.  Each
+ * list is kept in increasing
+ * order as edges come and go, so that lookups are binary searches and
+ * the neighbors of a vertex can be delivered in order straight from
+ * the list, without copying or sorting.  Degrees are available in
+ * constant time.
+ * <p>
+ * Removing an edge does not shift the rest of its list.  Instead, the
+ * entry becomes a tombstone: it keeps its vertex (so the list stays
+ * sorted) but its edge id becomes 0.  Tombstones are reused when an
+ * edge is inserted next to or on top of one, and are squeezed out by
+ * compact, which GraphObj runs once they make up too large a fraction
+ * of all entries.
+ * <p>
+ * The lists are grouped into blocks of BLOCK_SIZE consecutive vertices,
+ * so that snapshot can hand out a frozen copy of the whole index by
+ * copying only the table of blocks.  Blocks are then shared between the
+ * index and its snapshots, and are copied, one at a time, the first
+ * time they are modified afterwards.  Thus a snapshot costs one pointer
+ * per block, plus the copying of those blocks that later change.
+ *
+ * @author John Schulz
+ */
+class ListAdjacency extends Adjacency {
+
+    /**
+     * An empty index.
+     */
+    ListAdjacency() {
+        _blocks = new Block[INITIAL_BLOCKS];
+    }
+
+    /**
+     * A frozen copy of ADJ that shares its blocks.
+     */
+    private ListAdjacency(ListAdjacency adj) {
+        _blocks = adj._blocks.clone();
+        _live = adj._live;
+        _dead = adj._dead;
+        _epoch = adj._epoch;
+    }
+
+    @Override
+    int degree(int v) {
+        Block b = block(v);
+        return b == null ? 0 : b._degrees[v & BLOCK_MASK];
+    }
+
+    /**
+     * Returns the number of entries, including tombstones, in the list
+     * for V.
+     */
+    private int slots(int v) {
+        Block b = block(v);
+        return b == null ? 0 : b._sizes[v & BLOCK_MASK];
+    }
+
+    /**
+     * Returns the vertex in entry K of the list for V, 0 <= K < slots(V).
+     */
+    private int get(int v, int k) {
+        return _blocks[v >>> BLOCK_SHIFT]._lists[v & BLOCK_MASK][k];
+    }
+
+    /**
+     * Returns the edge id in entry K of the list for V, or 0 if that
+     * entry is a tombstone.  0 <= K < slots(V).
+     */
+    private int id(int v, int k) {
+        return _blocks[v >>> BLOCK_SHIFT]._ids[v & BLOCK_MASK][k];
+    }
+
+    @Override
+    int find(int v, int w) {
+        int k = indexOf(v, w);
+        return k < 0 ? 0 : id(v, k);
+    }
+
+    @Override
+    void add(int v, int w, int e) {
+        Block b = writable(v);
+        int i = v & BLOCK_MASK;
+        int n = b._sizes[i];
+        int[] list = b._lists[i], ids = b._ids[i];
+        int k = n == 0 || list[n - 1] < w ? -1 - n
+            : Arrays.binarySearch(list, 0, n, w);
+        if (k >= 0) {
+            ids[k] = e;
+            revive(b, i);
+            return;
+        }
+        k = -1 - k;
+        if (k > 0 && ids[k - 1] == 0) {
+            list[k - 1] = w;
+            ids[k - 1] = e;
+            revive(b, i);
+            return;
+        }
+        if (k < n && ids[k] == 0) {
+            list[k] = w;
+            ids[k] = e;
+            revive(b, i);
+            return;
+        }
+        if (list == null) {
+            list = b._lists[i] = new int[INITIAL_DEGREE];
+            ids = b._ids[i] = new int[INITIAL_DEGREE];
+        } else if (n == list.length) {
+            list = b._lists[i] = Arrays.copyOf(list, 2 * n);
+            ids = b._ids[i] = Arrays.copyOf(ids, 2 * n);
+        }
+        System.arraycopy(list, k, list, k + 1, n - k);
+        System.arraycopy(ids, k, ids, k + 1, n - k);
+        list[k] = w;
+        ids[k] = e;
+        b._sizes[i] = n + 1;
+        b._degrees[i] += 1;
+        _live += 1;
+    }
+
+    @Override
+    void reserve(int v, int n) {
+        Block b = writable(v);
+        int i = v & BLOCK_MASK;
+        if (b._lists[i] == null || b._lists[i].length < n) {
+            int size = Math.max(n, INITIAL_DEGREE);
+            b._lists[i] = b._lists[i] == null ? new int[size]
+                : Arrays.copyOf(b._lists[i], size);
+            b._ids[i] = b._ids[i] == null ? new int[size]
+                : Arrays.copyOf(b._ids[i], size);
+        }
+    }
+
+    @Override
+    void append(int v, int w, int e) {
+        Block b = writable(v);
+        int i = v & BLOCK_MASK;
+        int n = b._sizes[i];
+        if (n == 0 || n == b._lists[i].length) {
+            reserve(v, 2 * n);
+        }
+        b._lists[i][n] = w;
+        b._ids[i][n] = e;
+        b._sizes[i] = n + 1;
+        b._degrees[i] += 1;
+        _live += 1;
+    }
+
+    @Override
+    int remove(int v, int w) {
+        int k = indexOf(v, w);
+        if (k < 0 || id(v, k) == 0) {
+            return 0;
+        }
+        Block b = writable(v);
+        int i = v & BLOCK_MASK;
+        int e = b._ids[i][k];
+        b._ids[i][k] = 0;
+        b._degrees[i] -= 1;
+        _live -= 1;
+        _dead += 1;
+        return e;
+    }
+
+    @Override
+    void clear(int v) {
+        if (slots(v) > 0) {
+            Block b = writable(v);
+            int i = v & BLOCK_MASK;
+            _live -= b._degrees[i];
+            _dead -= b._sizes[i] - b._degrees[i];
+            b._lists[i] = null;
+            b._ids[i] = null;
+            b._sizes[i] = b._degrees[i] = 0;
+        }
+    }
+
+    @Override
+    boolean isSparse() {
+        return _dead > MIN_COMPACT && _dead > COMPACT_RATIO * (_live + _dead);
+    }
+
+    @Override
+    void compact() {
+        for (int v = 0; v < _blocks.length * BLOCK_SIZE && _dead > 0;
+             v += 1) {
+            int n = slots(v);
+            if (n == degree(v)) {
+                continue;
+            }
+            Block b = writable(v);
+            int i = v & BLOCK_MASK;
+            int[] list = b._lists[i], ids = b._ids[i];
+            int j = 0;
+            for (int k = 0; k < n; k += 1) {
+                if (ids[k] != 0) {
+                    list[j] = list[k];
+                    ids[j] = ids[k];
+                    j += 1;
+                }
+            }
+            _dead -= n - j;
+            b._sizes[i] = j;
+        }
+    }
+
+    /**
+     * Returns a frozen copy of me that shares all my blocks.
+     */
+    @Override
+    Adjacency snapshot() {
+        Adjacency result = new ListAdjacency(this);
+        _epoch += 1;
+        return result;
+    }
+
+    @Override
+    IntIteration iteration(int v) {
+        int n = slots(v);
+        if (degree(v) == 0) {
+            return IntIteration.empty();
+        }
+        Block b = block(v);
+        int i = v & BLOCK_MASK;
+        if (b._degrees[i] == n) {
+            return IntIteration.of(b._lists[i], 0, n);
+        } else {
+            return new LiveIteration(b._lists[i], b._ids[i], n);
+        }
+    }
+
+    @Override
+    int entries(int v, int[] targets, int[] ids) {
+        int n = 0;
+        for (int k = 0; k < slots(v); k += 1) {
+            if (id(v, k) != 0) {
+                targets[n] = get(v, k);
+                ids[n] = id(v, k);
+                n += 1;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Note that a tombstone in list I of block B has been reused.
+     */
+    private void revive(Block b, int i) {
+        b._degrees[i] += 1;
+        _live += 1;
+        _dead -= 1;
+    }
+
+    /**
+     * Returns the position of W in the list for V (which may be a
+     * tombstone), or -1 if absent.
+     */
+    private int indexOf(int v, int w) {
+        int n = slots(v);
+        if (n == 0) {
+            return -1;
+        }
+        int[] list = _blocks[v >>> BLOCK_SHIFT]._lists[v & BLOCK_MASK];
+        int k = Arrays.binarySearch(list, 0, n, w);
+        return k >= 0 ? k : -1;
+    }
+
+    /**
+     * Returns the block containing the list for V, or null if there is
+     * none.
+     */
+    private Block block(int v) {
+        int j = v >>> BLOCK_SHIFT;
+        return j < _blocks.length ? _blocks[j] : null;
+    }
+
+    /**
+     * Returns the block containing the list for V, creating it if
+     * necessary, and first copying it if it may be shared with a
+     * snapshot.
+     */
+    private Block writable(int v) {
+        int j = v >>> BLOCK_SHIFT;
+        if (j >= _blocks.length) {
+            _blocks = Arrays.copyOf(_blocks,
+                                    Math.max(j + 1, 2 * _blocks.length));
+        }
+        Block b = _blocks[j];
+        if (b == null) {
+            b = _blocks[j] = new Block(_epoch);
+        } else if (b._epoch != _epoch) {
+            b = _blocks[j] = new Block(b, _epoch);
+        }
+        return b;
+    }
+
+    /**
+     * The lists of BLOCK_SIZE consecutive vertices.
+     */
+    private static class Block {
+        /**
+         * An empty block created during EPOCH.
+         */
+        Block(int epoch) {
+            _lists = new int[BLOCK_SIZE][];
+            _ids = new int[BLOCK_SIZE][];
+            _sizes = new int[BLOCK_SIZE];
+            _degrees = new int[BLOCK_SIZE];
+            _epoch = epoch;
+        }
+
+        /**
+         * A copy of B created during EPOCH, sharing nothing with it.
+         */
+        Block(Block b, int epoch) {
+            this(epoch);
+            for (int i = 0; i < BLOCK_SIZE; i += 1) {
+                int n = b._sizes[i];
+                if (n > 0) {
+                    _lists[i] = Arrays.copyOf(b._lists[i], n);
+                    _ids[i] = Arrays.copyOf(b._ids[i], n);
+                }
+            }
+            System.arraycopy(b._sizes, 0, _sizes, 0, BLOCK_SIZE);
+            System.arraycopy(b._degrees, 0, _degrees, 0, BLOCK_SIZE);
+        }
+
+        /**
+         * Adjacent vertices, indexed by vertex number modulo BLOCK_SIZE.
+         * Only the first _sizes[i] entries of _lists[i] are meaningful.
+         */
+        private final int[][] _lists;
+
+        /**
+         * The edge ids corresponding to the entries of _lists, with 0
+         * marking tombstones.
+         */
+        private final int[][] _ids;
+
+        /**
+         * The number of entries, live or not, in each list.
+         */
+        private final int[] _sizes;
+
+        /**
+         * The number of live entries in each list.
+         */
+        private final int[] _degrees;
+
+        /**
+         * The value of ListAdjacency._epoch when I was created.  I may be
+         * modified in place only while that is still the current epoch.
+         */
+        private final int _epoch;
+    }
+
+    /**
+     * An iteration over the live entries of a list containing tombstones.
+     */
+    private static class LiveIteration extends IntIteration {
+        /**
+         * Iterates over those LIST[k], 0 <= k < N, for which IDS[k] != 0.
+         */
+        LiveIteration(int[] list, int[] ids, int n) {
+            _list = list;
+            _ids = ids;
+            _n = n;
+            skip();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _k < _n;
+        }
+
+        @Override
+        public int nextInt() {
+            if (_k >= _n) {
+                throw new NoSuchElementException();
+            }
+            int w = _list[_k];
+            _k += 1;
+            skip();
+            return w;
+        }
+
+        /**
+         * Advance _k past any tombstones.
+         */
+        private void skip() {
+            while (_k < _n && _ids[_k] == 0) {
+                _k += 1;
+            }
+        }
+
+        /**
+         * The list being traversed and its edge ids.
+         */
+        private final int[] _list, _ids;
+        /**
+         * The next position to examine and the length of the list.
+         */
+        private int _k, _n;
+    }
+
+    /**
+     * Log base 2 of the number of vertices in a block.
+     */
+    private static final int BLOCK_SHIFT = 6;
+
+    /**
+     * Number of vertices in a block.
+     */
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+    /**
+     * Mask giving the position of a vertex within its block.
+     */
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+    /**
+     * Initial number of block slots.
+     */
+    private static final int INITIAL_BLOCKS = 4;
+
+    /**
+     * Initial capacity of an individual vertex's list.
+     */
+    private static final int INITIAL_DEGREE = 4;
+
+    /**
+     * Fraction of entries that may be tombstones before compaction.
+     */
+    private static final double COMPACT_RATIO = 0.25;
+
+    /**
+     * Number of tombstones below which compaction is not worthwhile.
+     */
+    private static final int MIN_COMPACT = 64;
+
+    /**
+     * The blocks of lists, indexed by vertex number divided by
+     * BLOCK_SIZE.  Null entries stand for blocks of empty lists.
+     */
+    private Block[] _blocks;
+
+    /**
+     * Total numbers of live entries and tombstones.
+     */
+    private long _live, _dead;
+
+    /**
+     * Incremented by each snapshot, so that blocks created before it are
+     * known to be shared.
+     */
+    private int _epoch;
+}
@@ -0,0 +1,92 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An OffHeapGraph mapped, read-only, from a file written by GraphFile,
+ * together with the file's string labels, if any.  Its queries read the
+ * mapped file directly, so nothing is parsed or copied when it is
+ * opened, and processes that map the same file share its pages in the
+ * operating system's cache.  Obtain one with GraphFile.map.
+ *
+ * @author John Schulz
+ */
+public class MappedGraph extends OffHeapGraph {
+
+    /**
+     * A graph with the given sizes, whose storage is ARRAYS (as for
+     * OffHeapGraph.arrays()), and whose vertex and edge labels are in the
+     * string pools VERTEXLABELS and EDGELABELS (null if unlabeled).  Each
+     * pool is a pair of arrays, as written by GraphFile.
+     */
+    MappedGraph(boolean directed, int vertexSize, int maxVertex,
+                int edgeSize, OffHeapArray[] arrays,
+                OffHeapArray[] vertexLabels, OffHeapArray[] edgeLabels) {
+        super(directed, vertexSize, maxVertex, edgeSize, arrays);
+        _vertexLabels = vertexLabels;
+        _edgeLabels = edgeLabels;
+    }
+
+    /**
+     * Returns true iff my file contained labels.
+     */
+    public boolean isLabeled() {
+        return _vertexLabels != null;
+    }
+
+    /**
+     * Returns the label on vertex V, which must be one of my vertices, or
+     * null if it has none.
+     */
+    public String getLabel(int v) {
+        checkMyVertex(v);
+        return isLabeled() ? label(_vertexLabels, v) : null;
+    }
+
+    /**
+     * Returns the label on the edge (U, V), which must be one of my
+     * edges, or null if it has none.
+     */
+    public String getLabel(int u, int v) {
+        int e = edgeId(u, v);
+        if (e == 0) {
+            throw new IllegalArgumentException("no such edge");
+        }
+        return isLabeled() ? label(_edgeLabels, e) : null;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        if (isLabeled()) {
+            for (OffHeapArray[] pool : new OffHeapArray[][] {
+                    _vertexLabels, _edgeLabels }) {
+                pool[0].close();
+                pool[1].close();
+            }
+        }
+    }
+
+    /**
+     * Returns string number K of POOL.
+     */
+    private static String label(OffHeapArray[] pool, long k) {
+        long start = pool[0].getLong(k), end = pool[0].getLong(k + 1);
+        if (start == end) {
+            return null;
+        }
+        byte[] bytes = new byte[(int) (end - start - 1)];
+        for (int i = 0; i < bytes.length; i += 1) {
+            bytes[i] = pool[1].getByte(start + 1 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * String pools holding my vertex labels, indexed by vertex, and my
+     * edge labels, indexed by edge id, or null if I am unlabeled.
+     */
+    private final OffHeapArray[] _vertexLabels, _edgeLabels;
+}
@@ -0,0 +1,333 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * An Adjacency that keeps the row of an adjacency matrix for each vertex
+ * as a bitset: bit W % 64 of word W / 64 of the row for V is set iff W is
+ * adjacent to V.  Testing for an edge is a single bit test, successors
+ * are enumerated a word at a time, and whole rows can be combined with
+ * other bitsets by the bulk operations.  The ids of the edges in a row
+ * are kept in a separate array in increasing order of the adjacent
+ * vertex, so the id for W is found by counting the bits before W in its
+ * row.  Rows take a bit for every possible vertex up to the largest
+ * adjacent one, so this suits small, dense graphs.
+ * <p>
+ * A snapshot shares all rows, each of which is copied the first time it
+ * is modified afterwards.
+ *
+ * @author John Schulz
+ */
+class MatrixAdjacency extends Adjacency {
+
+    /**
+     * An empty index.
+     */
+    MatrixAdjacency() {
+        _rows = new long[INITIAL_VERTICES][];
+        _ids = new int[INITIAL_VERTICES][];
+        _degrees = new int[INITIAL_VERTICES];
+        _epochs = new int[INITIAL_VERTICES];
+    }
+
+    /**
+     * A frozen copy of ADJ that shares its rows.
+     */
+    private MatrixAdjacency(MatrixAdjacency adj) {
+        _rows = adj._rows.clone();
+        _ids = adj._ids.clone();
+        _degrees = adj._degrees.clone();
+        _epochs = adj._epochs.clone();
+        _epoch = adj._epoch;
+    }
+
+    @Override
+    int degree(int v) {
+        return v < _degrees.length ? _degrees[v] : 0;
+    }
+
+    @Override
+    boolean contains(int v, int w) {
+        long[] row = v < _rows.length ? _rows[v] : null;
+        int i = w >>> WORD_SHIFT;
+        return row != null && i < row.length && (row[i] & (1L << w)) != 0;
+    }
+
+    @Override
+    int find(int v, int w) {
+        return contains(v, w) ? _ids[v][rank(_rows[v], w)] : 0;
+    }
+
+    @Override
+    void add(int v, int w, int e) {
+        writable(v, w);
+        long[] row = _rows[v];
+        row[w >>> WORD_SHIFT] |= 1L << w;
+        int n = _degrees[v], k = rank(row, w);
+        int[] ids = _ids[v];
+        if (n == ids.length) {
+            ids = _ids[v] = Arrays.copyOf(ids, Math.max(2 * n, 1));
+        }
+        System.arraycopy(ids, k, ids, k + 1, n - k);
+        ids[k] = e;
+        _degrees[v] = n + 1;
+    }
+
+    @Override
+    void reserve(int v, int n) {
+        ensureVertex(v);
+    }
+
+    @Override
+    void append(int v, int w, int e) {
+        add(v, w, e);
+    }
+
+    @Override
+    int remove(int v, int w) {
+        if (!contains(v, w)) {
+            return 0;
+        }
+        writable(v, w);
+        long[] row = _rows[v];
+        int n = _degrees[v], k = rank(row, w);
+        int[] ids = _ids[v];
+        int e = ids[k];
+        System.arraycopy(ids, k + 1, ids, k, n - k - 1);
+        row[w >>> WORD_SHIFT] &= ~(1L << w);
+        _degrees[v] = n - 1;
+        return e;
+    }
+
+    @Override
+    void clear(int v) {
+        if (v < _rows.length) {
+            _rows[v] = null;
+            _ids[v] = null;
+            _degrees[v] = 0;
+        }
+    }
+
+    /**
+     * Returns false: removals leave no waste to reclaim.
+     */
+    @Override
+    boolean isSparse() {
+        return false;
+    }
+
+    @Override
+    void compact() {
+    }
+
+    @Override
+    Adjacency snapshot() {
+        Adjacency result = new MatrixAdjacency(this);
+        _epoch += 1;
+        return result;
+    }
+
+    @Override
+    IntIteration iteration(int v) {
+        if (degree(v) == 0) {
+            return IntIteration.empty();
+        }
+        return new RowIteration(_rows[v]);
+    }
+
+    @Override
+    int entries(int v, int[] targets, int[] ids) {
+        int n = degree(v);
+        if (n > 0) {
+            new RowIteration(_rows[v]).next(targets);
+            System.arraycopy(_ids[v], 0, ids, 0, n);
+        }
+        return n;
+    }
+
+    @Override
+    void union(int v, long[] set) {
+        long[] row = v < _rows.length ? _rows[v] : null;
+        if (row != null) {
+            for (int i = Math.min(row.length, set.length) - 1; i >= 0;
+                 i -= 1) {
+                set[i] |= row[i];
+            }
+        }
+    }
+
+    @Override
+    void intersect(int v, long[] set) {
+        long[] row = v < _rows.length ? _rows[v] : null;
+        int n = row == null ? 0 : Math.min(row.length, set.length);
+        for (int i = 0; i < n; i += 1) {
+            set[i] &= row[i];
+        }
+        Arrays.fill(set, n, set.length, 0L);
+    }
+
+    @Override
+    void difference(int v, long[] set) {
+        long[] row = v < _rows.length ? _rows[v] : null;
+        if (row != null) {
+            for (int i = Math.min(row.length, set.length) - 1; i >= 0;
+                 i -= 1) {
+                set[i] &= ~row[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the number of set bits in ROW before bit W.
+     */
+    private static int rank(long[] row, int w) {
+        int i = w >>> WORD_SHIFT, result = 0;
+        for (int j = 0; j < i; j += 1) {
+            result += Long.bitCount(row[j]);
+        }
+        return result + Long.bitCount(row[i] & ((1L << w) - 1));
+    }
+
+    /**
+     * Make the row for V and its ids safe to modify and large enough to
+     * hold W, copying them if they may be shared with a snapshot.
+     */
+    private void writable(int v, int w) {
+        ensureVertex(v);
+        long[] row = _rows[v];
+        int words = (w >>> WORD_SHIFT) + 1;
+        if (row == null) {
+            _rows[v] = new long[words];
+            _ids[v] = new int[INITIAL_DEGREE];
+        } else if (_epochs[v] != _epoch) {
+            _rows[v] = Arrays.copyOf(row, Math.max(row.length, words));
+            _ids[v] = Arrays.copyOf(_ids[v],
+                                    Math.max(_degrees[v], INITIAL_DEGREE));
+        } else if (row.length < words) {
+            _rows[v] = Arrays.copyOf(row, Math.max(words, 2 * row.length));
+        }
+        _epochs[v] = _epoch;
+    }
+
+    /**
+     * Make sure there is room to record adjacencies of V.
+     */
+    private void ensureVertex(int v) {
+        if (v >= _rows.length) {
+            int n = Math.max(v + 1, 2 * _rows.length);
+            _rows = Arrays.copyOf(_rows, n);
+            _ids = Arrays.copyOf(_ids, n);
+            _degrees = Arrays.copyOf(_degrees, n);
+            _epochs = Arrays.copyOf(_epochs, n);
+        }
+    }
+
+    /**
+     * An iteration over the set bits of a row, a word at a time.
+     */
+    private static class RowIteration extends IntIteration {
+        /**
+         * Iterates over the set bits of ROW.
+         */
+        RowIteration(long[] row) {
+            _row = row;
+            _word = row.length == 0 ? 0 : row[0];
+            skip();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _word != 0;
+        }
+
+        @Override
+        public int nextInt() {
+            if (_word == 0) {
+                throw new NoSuchElementException();
+            }
+            int w = (_i << WORD_SHIFT) + Long.numberOfTrailingZeros(_word);
+            _word &= _word - 1;
+            skip();
+            return w;
+        }
+
+        @Override
+        public int next(int[] buf) {
+            int n = 0;
+            while (n < buf.length && _word != 0) {
+                buf[n] = (_i << WORD_SHIFT)
+                    + Long.numberOfTrailingZeros(_word);
+                n += 1;
+                _word &= _word - 1;
+                skip();
+            }
+            return n;
+        }
+
+        /**
+         * If the current word is exhausted, advance to the next nonzero
+         * one, if any.
+         */
+        private void skip() {
+            while (_word == 0 && _i + 1 < _row.length) {
+                _i += 1;
+                _word = _row[_i];
+            }
+        }
+
+        /**
+         * The row being traversed.
+         */
+        private final long[] _row;
+        /**
+         * The index in _row of the current word.
+         */
+        private int _i;
+        /**
+         * The bits of the current word not yet delivered.
+         */
+        private long _word;
+    }
+
+    /**
+     * Initial number of vertex slots.
+     */
+    private static final int INITIAL_VERTICES = 16;
+
+    /**
+     * Initial capacity of a row's id array.
+     */
+    private static final int INITIAL_DEGREE = 4;
+
+    /**
+     * The rows, indexed by vertex number (null for an empty row).
+     */
+    private long[][] _rows;
+
+    /**
+     * The ids of the edges in each row, in increasing order of the
+     * adjacent vertex.  Only the first _degrees[v] entries of _ids[v]
+     * are meaningful.
+     */
+    private int[][] _ids;
+
+    /**
+     * The number of bits set in each row.
+     */
+    private int[] _degrees;
+
+    /**
+     * The value of _epoch when each row was last copied or created.  A
+     * row may be modified in place only during that epoch.
+     */
+    private int[] _epochs;
+
+    /**
+     * Incremented by each snapshot, so that rows written before it are
+     * known to be shared.
+     */
+    private int _epoch;
+}
@@ -0,0 +1,202 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * A fixed-size array of primitive values stored outside the Java heap,
+ * so that it adds nothing to the work of the garbage collector.  It is
+ * either allocated in zero-initialized direct ByteBuffers or mapped,
+ * read-only, from part of a file.  The same storage may be
+ * accessed as ints, longs, or doubles, indexed in units of the type
+ * used.  Its size may exceed the two-gigabyte limit of a single buffer:
+ * it is divided into chunks of CHUNK_SIZE bytes, each a multiple of
+ * eight, so that no value straddles two chunks.  Values are always
+ * little-endian, so that an array written to a file may be mapped back
+ * in on any machine.
+ * <p>
+ * After close, any further access throws IllegalStateException.  The
+ * JVM returns the storage to the system once the buffers become
+ * unreachable.  Direct storage is limited to the JVM's
+ * -XX:MaxDirectMemorySize, which defaults to the maximum heap size.
+ *
+ * @author John Schulz
+ */
+class OffHeapArray {
+
+    /**
+     * An array of BYTES bytes, all 0.
+     */
+    OffHeapArray(long bytes) {
+        _size = bytes;
+        int n = (int) ((bytes + CHUNK_SIZE - 1) >>> CHUNK_SHIFT);
+        _chunks = new ByteBuffer[n];
+        for (int i = 0; i < n; i += 1) {
+            long start = (long) i << CHUNK_SHIFT;
+            long size = Math.min(CHUNK_SIZE, bytes - start);
+            _chunks[i] = ByteBuffer.allocateDirect((int) size)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /**
+     * A read-only array that maps the BYTES bytes starting at POSITION
+     * in the file open on CHANNEL.  The mapping remains valid after
+     * CHANNEL is closed.
+     */
+    OffHeapArray(FileChannel channel, long position, long bytes)
+        throws IOException {
+        _size = bytes;
+        int n = (int) ((bytes + CHUNK_SIZE - 1) >>> CHUNK_SHIFT);
+        _chunks = new ByteBuffer[n];
+        for (int i = 0; i < n; i += 1) {
+            long start = (long) i << CHUNK_SHIFT;
+            long size = Math.min(CHUNK_SIZE, bytes - start);
+            _chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                                     position + start, size)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /**
+     * Returns my size in bytes.
+     */
+    long size() {
+        return _size;
+    }
+
+    /**
+     * Returns byte number K.
+     */
+    byte getByte(long k) {
+        return chunk(k).get((int) (k & CHUNK_MASK));
+    }
+
+    /**
+     * Returns int number K.
+     */
+    int getInt(long k) {
+        long p = k << INT_SHIFT;
+        return chunk(p).getInt((int) (p & CHUNK_MASK));
+    }
+
+    /**
+     * Set int number K to X.
+     */
+    void putInt(long k, int x) {
+        long p = k << INT_SHIFT;
+        chunk(p).putInt((int) (p & CHUNK_MASK), x);
+    }
+
+    /**
+     * Returns long number K.
+     */
+    long getLong(long k) {
+        long p = k << LONG_SHIFT;
+        return chunk(p).getLong((int) (p & CHUNK_MASK));
+    }
+
+    /**
+     * Set long number K to X.
+     */
+    void putLong(long k, long x) {
+        long p = k << LONG_SHIFT;
+        chunk(p).putLong((int) (p & CHUNK_MASK), x);
+    }
+
+    /**
+     * Returns double number K.
+     */
+    double getDouble(long k) {
+        long p = k << LONG_SHIFT;
+        return chunk(p).getDouble((int) (p & CHUNK_MASK));
+    }
+
+    /**
+     * Set double number K to X.
+     */
+    void putDouble(long k, double x) {
+        long p = k << LONG_SHIFT;
+        chunk(p).putDouble((int) (p & CHUNK_MASK), x);
+    }
+
+    /**
+     * Copy my first min(size(), TO.size()) bytes into TO.
+     */
+    void copyTo(OffHeapArray to) {
+        long n = Math.min(_size, to._size);
+        for (long p = 0; p < n; p += CHUNK_SIZE) {
+            ByteBuffer src = chunk(p).duplicate();
+            src.position(0).limit((int) Math.min(CHUNK_SIZE, n - p));
+            to.chunk(p).duplicate().put(src);
+        }
+    }
+
+    /**
+     * Write all my bytes to CHANNEL at its current position.
+     */
+    void write(FileChannel channel) throws IOException {
+        for (long p = 0; p < _size; p += CHUNK_SIZE) {
+            ByteBuffer src = chunk(p).duplicate();
+            src.position(0);
+            while (src.hasRemaining()) {
+                channel.write(src);
+            }
+        }
+    }
+
+    /**
+     * Drop my references to my storage, which is freed once it is
+     * collected.
+     */
+    void close() {
+        _chunks = null;
+    }
+
+    /**
+     * Returns true iff I have been closed.
+     */
+    boolean isClosed() {
+        return _chunks == null;
+    }
+
+    /**
+     * Returns the chunk containing byte P.
+     */
+    private ByteBuffer chunk(long p) {
+        if (_chunks == null) {
+            throw new IllegalStateException("off-heap storage is closed");
+        }
+        return _chunks[(int) (p >>> CHUNK_SHIFT)];
+    }
+
+    /**
+     * Log base 2 of the number of bytes in a chunk.
+     */
+    private static final int CHUNK_SHIFT = 30;
+    /**
+     * Number of bytes in a full chunk.
+     */
+    private static final long CHUNK_SIZE = 1L << CHUNK_SHIFT;
+    /**
+     * Mask giving the position of a byte within its chunk.
+     */
+    private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+    /**
+     * Log base 2 of the sizes of ints and of longs and doubles.
+     */
+    private static final int INT_SHIFT = 2, LONG_SHIFT = 3;
+
+    /**
+     * My size in bytes.
+     */
+    private final long _size;
+    /**
+     * My storage, or null once closed.
+     */
+    private ByteBuffer[] _chunks;
+}
@@ -0,0 +1,545 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable Graph in compressed sparse row form, like CompactGraph,
+ * whose arrays (vertex set, row offsets, successors and, if directed,
+ * predecessors) live outside the Java heap in OffHeapArrays.  It is
+ * meant for graphs with hundreds of millions of edges: the garbage
+ * collector never scans or copies its storage, and its arrays are not
+ * limited to 2^31 entries.  Edge ids must still fit in an int, however,
+ * so the rows together may hold fewer than 2^31 - 1 entries.
+ * <p>
+ * An OffHeapGraph should be closed once no longer needed, as in
+ * try (OffHeapGraph g = builder.buildOffHeap()) {
+ * ...
+ * }
+ * Closing only invalidates it: afterwards, any query throws
+ * IllegalStateException.  Its storage is in direct ByteBuffers, which
+ * the JVM returns to the system once the garbage collector finds them
+ * unreachable, not at close.  Their total is limited by the JVM's
+ * -XX:MaxDirectMemorySize, which defaults to the maximum heap size, so
+ * to hold a graph larger than the heap, that limit must be raised (for
+ * example, java -XX:MaxDirectMemorySize=64g ...).
+ * Any attempt to add or remove vertices or edges throws
+ * UnsupportedOperationException.
+ *
+ * @author John Schulz
+ */
+public class OffHeapGraph extends Graph implements AutoCloseable {
+
+    /**
+     * A copy of the current vertices and edges of G, which may be any
+     * kind of Graph.
+     */
+    public OffHeapGraph(Graph G) {
+        _directed = G.isDirected();
+        _maxVertex = G.maxVertex();
+        _vertexSize = G.vertexSize();
+        _edgeSize = G.edgeSize();
+        _vertices = new OffHeapArray(words(_maxVertex) * Long.BYTES);
+        _outStart = new OffHeapArray((_maxVertex + 2L) * Long.BYTES);
+        for (int v : G.vertices()) {
+            setVertex(v);
+            _outStart.putLong(v + 1, G.outDegree(v));
+        }
+        long entries = prefixSums(_outStart, _maxVertex + 2);
+        checkEntries(entries);
+        _outTargets = new OffHeapArray(entries * Integer.BYTES);
+        int[] row = new int[0];
+        for (int v : G.vertices()) {
+            row = Arrays.copyOf(row, Math.max(row.length, G.outDegree(v)));
+            int n = G.intSuccessors(v).next(row);
+            Arrays.sort(row, 0, n);
+            long k = _outStart.getLong(v);
+            for (int i = 0; i < n; i += 1) {
+                _outTargets.putInt(k + i, row[i]);
+            }
+        }
+        if (_directed) {
+            _inStart = new OffHeapArray((_maxVertex + 2L) * Long.BYTES);
+            _inSources = transpose(_outStart, _outTargets, _inStart,
+                                   _maxVertex + 1);
+        } else {
+            _inStart = _outStart;
+            _inSources = _outTargets;
+        }
+    }
+
+    /**
+     * A graph with vertices 1 through N and edges KEYS[0 .. M-1], which
+     * must be distinct and in increasing order, packed as for
+     * GraphObj.load.  This is the bulk loading path used by GraphBuilder.
+     */
+    OffHeapGraph(boolean directed, int n, long[] keys, int m) {
+        _directed = directed;
+        _maxVertex = _vertexSize = n;
+        _edgeSize = m;
+        _vertices = new OffHeapArray(words(n) * Long.BYTES);
+        for (int v = 1; v <= n; v += 1) {
+            setVertex(v);
+        }
+        _outStart = new OffHeapArray((n + 2L) * Long.BYTES);
+        for (int i = 0; i < m; i += 1) {
+            int u = GraphObj.source(keys[i]), v = GraphObj.target(keys[i]);
+            increment(_outStart, u + 1);
+            if (!directed && u != v) {
+                increment(_outStart, v + 1);
+            }
+        }
+        long entries = prefixSums(_outStart, n + 2);
+        checkEntries(entries);
+        _outTargets = new OffHeapArray(entries * Integer.BYTES);
+        OffHeapArray fill = new OffHeapArray((n + 1L) * Long.BYTES);
+        _outStart.copyTo(fill);
+        if (!directed) {
+            for (int i = 0; i < m; i += 1) {
+                int u = GraphObj.source(keys[i]),
+                    v = GraphObj.target(keys[i]);
+                if (u != v) {
+                    _outTargets.putInt(fill.getLong(v), u);
+                    increment(fill, v);
+                }
+            }
+        }
+        for (int i = 0; i < m; i += 1) {
+            int u = GraphObj.source(keys[i]);
+            _outTargets.putInt(fill.getLong(u), GraphObj.target(keys[i]));
+            increment(fill, u);
+        }
+        fill.close();
+        if (_directed) {
+            _inStart = new OffHeapArray((n + 2L) * Long.BYTES);
+            _inSources = transpose(_outStart, _outTargets, _inStart, n + 1);
+        } else {
+            _inStart = _outStart;
+            _inSources = _outTargets;
+        }
+    }
+
+    /**
+     * A graph with the given sizes whose storage is the ARRAYS, in the
+     * order returned by arrays().  This is how GraphFile maps a graph
+     * in from a file.
+     */
+    OffHeapGraph(boolean directed, int vertexSize, int maxVertex,
+                 int edgeSize, OffHeapArray[] arrays) {
+        _directed = directed;
+        _vertexSize = vertexSize;
+        _maxVertex = maxVertex;
+        _edgeSize = edgeSize;
+        _vertices = arrays[0];
+        _outStart = arrays[1];
+        _outTargets = arrays[2];
+        _inStart = arrays[3];
+        _inSources = arrays[4];
+    }
+
+    /**
+     * Returns my storage: the vertex bitset, successor row offsets and
+     * rows, and predecessor row offsets and rows, in that order.
+     */
+    OffHeapArray[] arrays() {
+        return new OffHeapArray[] {
+            _vertices, _outStart, _outTargets, _inStart, _inSources
+        };
+    }
+
+    /**
+     * Invalidate me, so that I may not be used afterwards, and drop my
+     * references to my off-heap storage, which is freed once it is
+     * collected.  Has no effect if I am already closed.
+     */
+    @Override
+    public void close() {
+        _vertices.close();
+        _outStart.close();
+        _outTargets.close();
+        _inStart.close();
+        _inSources.close();
+    }
+
+    /**
+     * Returns true iff I have been closed.
+     */
+    public boolean isClosed() {
+        return _vertices.isClosed();
+    }
+
+    @Override
+    public int vertexSize() {
+        return _vertexSize;
+    }
+
+    @Override
+    public int maxVertex() {
+        return _maxVertex;
+    }
+
+    @Override
+    public int edgeSize() {
+        return _edgeSize;
+    }
+
+    @Override
+    public boolean isDirected() {
+        return _directed;
+    }
+
+    @Override
+    public int outDegree(int v) {
+        if (!contains(v)) {
+            return 0;
+        }
+        return (int) (_outStart.getLong(v + 1) - _outStart.getLong(v));
+    }
+
+    @Override
+    public int inDegree(int v) {
+        if (!contains(v)) {
+            return 0;
+        }
+        return (int) (_inStart.getLong(v + 1) - _inStart.getLong(v));
+    }
+
+    @Override
+    public boolean contains(int u) {
+        return u > 0 && u <= _maxVertex
+            && (_vertices.getLong(u >>> WORD_SHIFT) & (1L << u)) != 0;
+    }
+
+    @Override
+    public boolean contains(int u, int v) {
+        return edgeId(u, v) != 0;
+    }
+
+    @Override
+    public int add() {
+        throw new UnsupportedOperationException("OffHeapGraph is immutable");
+    }
+
+    @Override
+    public int add(int u, int v) {
+        throw new UnsupportedOperationException("OffHeapGraph is immutable");
+    }
+
+    @Override
+    public void remove(int v) {
+        throw new UnsupportedOperationException("OffHeapGraph is immutable");
+    }
+
+    @Override
+    public void remove(int u, int v) {
+        throw new UnsupportedOperationException("OffHeapGraph is immutable");
+    }
+
+    /**
+     * Returns me, since I never change.
+     */
+    @Override
+    public Graph snapshot() {
+        return this;
+    }
+
+    @Override
+    public Iteration<Integer> vertices() {
+        return intVertices();
+    }
+
+    @Override
+    public Iteration<Integer> successors(int v) {
+        return intSuccessors(v);
+    }
+
+    @Override
+    public Iteration<Integer> predecessors(int v) {
+        return intPredecessors(v);
+    }
+
+    @Override
+    public IntIteration intVertices() {
+        return new IntIteration() {
+            @Override
+            public boolean hasNext() {
+                return _next != 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (_next == 0) {
+                    throw new NoSuchElementException();
+                }
+                int v = _next;
+                _next = nextVertex(v + 1);
+                return v;
+            }
+
+            /**
+             * The next vertex to deliver, or 0 if there is none.
+             */
+            private int _next = nextVertex(1);
+        };
+    }
+
+    @Override
+    public IntIteration intSuccessors(int v) {
+        if (!contains(v)) {
+            return IntIteration.empty();
+        }
+        return new RowIteration(_outTargets, _outStart.getLong(v),
+                                _outStart.getLong(v + 1));
+    }
+
+    @Override
+    public IntIteration intPredecessors(int v) {
+        if (!contains(v)) {
+            return IntIteration.empty();
+        }
+        return new RowIteration(_inSources, _inStart.getLong(v),
+                                _inStart.getLong(v + 1));
+    }
+
+    @Override
+    public Iteration<int[]> edges() {
+        return new Iteration<int[]>() {
+            @Override
+            public boolean hasNext() {
+                advance();
+                return _edge[0] != 0;
+            }
+
+            @Override
+            public int[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                _edge[1] = _outTargets.getInt(_k);
+                _k += 1;
+                return _edge;
+            }
+
+            /**
+             * Move _edge[0] and _k to the next entry to deliver, skipping
+             * the second copies of undirected edges, and setting _edge[0]
+             * to 0 if there is none.
+             */
+            private void advance() {
+                while (_edge[0] != 0) {
+                    long end = _outStart.getLong(_edge[0] + 1);
+                    while (_k < end && !_directed
+                           && _outTargets.getInt(_k) < _edge[0]) {
+                        _k += 1;
+                    }
+                    if (_k < end) {
+                        return;
+                    }
+                    _edge[0] = nextVertex(_edge[0] + 1);
+                    _k = _edge[0] == 0 ? 0 : _outStart.getLong(_edge[0]);
+                }
+            }
+
+            /**
+             * The array returned by next(), holding the current source.
+             */
+            private final int[] _edge = { nextVertex(1), 0 };
+            /**
+             * Position in _outTargets of the next entry to examine.
+             */
+            private long _k = _edge[0] == 0 ? 0 : _outStart.getLong(_edge[0]);
+        };
+    }
+
+    /**
+     * Returns a unique identifier for edge (U, V) between 1 and the number
+     * of entries in my successor rows, or 0 if there is no such edge.  An
+     * undirected edge is identified by its entry in the row of its smaller
+     * end.
+     */
+    @Override
+    protected int edgeId(int u, int v) {
+        if (!contains(u) || !contains(v)) {
+            return 0;
+        }
+        if (!_directed && u > v) {
+            return edgeId(v, u);
+        }
+        long lo = _outStart.getLong(u), hi = _outStart.getLong(u + 1) - 1;
+        while (lo <= hi) {
+            long mid = (lo + hi) >>> 1;
+            int w = _outTargets.getInt(mid);
+            if (w < v) {
+                lo = mid + 1;
+            } else if (w > v) {
+                hi = mid - 1;
+            } else {
+                return (int) (mid + 1);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the smallest vertex >= V, or 0 if there is none.
+     */
+    private int nextVertex(int v) {
+        if (v > _maxVertex) {
+            return 0;
+        }
+        int i = v >>> WORD_SHIFT, n = words(_maxVertex);
+        long word = _vertices.getLong(i) & (-1L << v);
+        while (word == 0) {
+            i += 1;
+            if (i >= n) {
+                return 0;
+            }
+            word = _vertices.getLong(i);
+        }
+        return (i << WORD_SHIFT) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Add V to my vertex set.
+     */
+    private void setVertex(int v) {
+        int i = v >>> WORD_SHIFT;
+        _vertices.putLong(i, _vertices.getLong(i) | (1L << v));
+    }
+
+    /**
+     * Returns the number of words in a bitset holding 0 .. MAX.
+     */
+    private static int words(int max) {
+        return (max >>> WORD_SHIFT) + 1;
+    }
+
+    /**
+     * Add 1 to long number K of A.
+     */
+    private static void increment(OffHeapArray a, long k) {
+        a.putLong(k, a.getLong(k) + 1);
+    }
+
+    /**
+     * Replace each of the first N longs of A with the sum of it and all
+     * the longs before it, and return the last sum.
+     */
+    private static long prefixSums(OffHeapArray a, int n) {
+        long sum = 0;
+        for (int k = 0; k < n; k += 1) {
+            sum += a.getLong(k);
+            a.putLong(k, sum);
+        }
+        return sum;
+    }
+
+    /**
+     * Throw an exception if ENTRIES row entries are too many for their
+     * positions to serve as edge ids.
+     */
+    private static void checkEntries(long entries) {
+        if (entries >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("too many edges");
+        }
+    }
+
+    /**
+     * Given the N + 1 row offsets START and the rows TARGETS of a directed
+     * graph with vertices less than N, fill in TSTART with the row offsets
+     * of its transpose and return the corresponding row contents.  The
+     * rows of the transpose come out sorted because the rows of the
+     * original are visited in order.
+     */
+    private static OffHeapArray transpose(OffHeapArray start,
+                                          OffHeapArray targets,
+                                          OffHeapArray tStart, int n) {
+        long entries = start.getLong(n);
+        for (long k = 0; k < entries; k += 1) {
+            increment(tStart, targets.getInt(k) + 1);
+        }
+        prefixSums(tStart, n + 1);
+        OffHeapArray sources = new OffHeapArray(entries * Integer.BYTES);
+        OffHeapArray fill = new OffHeapArray(n * (long) Long.BYTES);
+        tStart.copyTo(fill);
+        for (int u = 0; u < n; u += 1) {
+            long end = start.getLong(u + 1);
+            for (long k = start.getLong(u); k < end; k += 1) {
+                int w = targets.getInt(k);
+                sources.putInt(fill.getLong(w), u);
+                increment(fill, w);
+            }
+        }
+        fill.close();
+        return sources;
+    }
+
+    /**
+     * An iteration over a range of the ints in an OffHeapArray.
+     */
+    private static class RowIteration extends IntIteration {
+        /**
+         * Iterates over ints FROM .. TO-1 of A.
+         */
+        RowIteration(OffHeapArray a, long from, long to) {
+            _a = a;
+            _k = from;
+            _to = to;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _k < _to;
+        }
+
+        @Override
+        public int nextInt() {
+            if (_k >= _to) {
+                throw new NoSuchElementException();
+            }
+            _k += 1;
+            return _a.getInt(_k - 1);
+        }
+
+        /**
+         * The array being traversed.
+         */
+        private final OffHeapArray _a;
+        /**
+         * The next position to deliver and the end of the range.
+         */
+        private long _k, _to;
+    }
+
+    /**
+     * Log base 2 of the number of bits in a word of _vertices.
+     */
+    private static final int WORD_SHIFT = 6;
+
+    /**
+     * True iff I am directed.
+     */
+    private final boolean _directed;
+    /**
+     * My number of vertices, largest vertex number, and number of edges.
+     */
+    private final int _vertexSize, _maxVertex, _edgeSize;
+    /**
+     * Bitset of my vertex numbers, as longs.
+     */
+    private final OffHeapArray _vertices;
+    /**
+     * The successors of vertex V are ints _outStart[V] ..
+     * _outStart[V+1]-1 of _outTargets, in increasing order.  _outStart
+     * holds longs.
+     */
+    private final OffHeapArray _outStart, _outTargets;
+    /**
+     * The predecessors of vertex V are ints _inStart[V] ..
+     * _inStart[V+1]-1 of _inSources, in increasing order.  These are the
+     * same arrays as _outStart and _outTargets if I am undirected.
+     */
+    private final OffHeapArray _inStart, _inSources;
+}
@@ -0,0 +1,422 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * An Adjacency that stores all its lists, compressed, in one shared
+ * byte array (the heap).  Each list is a sequence of entries, one per
+ * adjacent vertex in increasing order, and each entry holds two
+ * variable-length integers: the difference between its vertex and the
+ * previous one, and the difference between its edge id and the previous
+ * one (zigzag-encoded, since ids are not sorted).  Both are usually small,
+ * so that a typical entry takes two to four bytes, against eight in a
+ * ListAdjacency.  Lists are decoded on the fly as they are read.
+ * <p>
+ * Each list occupies a region of the heap that may have room to spare,
+ * so that appending to a list seldom moves it.  A list that must grow
+ * beyond its region, or that is shared with a snapshot and must change
+ * other than by appending, is rewritten at the end of the heap, leaving
+ * its old region as waste.  Compaction rewrites the heap without waste
+ * once it makes up too much of the total.
+ * <p>
+ * A snapshot shares the heap, copying only the per-vertex tables.  The
+ * bytes of a list as the snapshot sees it are never overwritten: lists
+ * written before the most recent snapshot are changed in place only by
+ * appending beyond their old ends, and compaction builds a new heap.
+ *
+ * @author John Schulz
+ */
+class PackedAdjacency extends Adjacency {
+
+    /**
+     * An empty index.
+     */
+    PackedAdjacency() {
+        _heap = new byte[INITIAL_HEAP];
+        _offsets = new int[INITIAL_VERTICES];
+        _lengths = new int[INITIAL_VERTICES];
+        _capacities = new int[INITIAL_VERTICES];
+        _degrees = new int[INITIAL_VERTICES];
+        _lasts = new int[INITIAL_VERTICES];
+        _lastIds = new int[INITIAL_VERTICES];
+    }
+
+    /**
+     * A frozen copy of ADJ that shares its heap.
+     */
+    private PackedAdjacency(PackedAdjacency adj) {
+        _heap = adj._heap;
+        _top = adj._top;
+        _used = adj._used;
+        _offsets = adj._offsets.clone();
+        _lengths = adj._lengths.clone();
+        _capacities = adj._capacities.clone();
+        _degrees = adj._degrees.clone();
+        _lasts = adj._lasts.clone();
+        _lastIds = adj._lastIds.clone();
+        _frozenTop = _top;
+    }
+
+    @Override
+    int degree(int v) {
+        return v < _degrees.length ? _degrees[v] : 0;
+    }
+
+    @Override
+    int find(int v, int w) {
+        if (degree(v) == 0 || w > _lasts[v]) {
+            return 0;
+        }
+        ListIteration entries = new ListIteration(v);
+        while (entries.hasNext()) {
+            int x = entries.nextInt();
+            if (x >= w) {
+                return x == w ? entries.id() : 0;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    void add(int v, int w, int e) {
+        if (degree(v) == 0 || w > _lasts[v]) {
+            append(v, w, e);
+            return;
+        }
+        int n = _degrees[v];
+        int[] targets = new int[n + 1], ids = new int[n + 1];
+        entries(v, targets, ids);
+        int k = -1 - Arrays.binarySearch(targets, 0, n, w);
+        System.arraycopy(targets, k, targets, k + 1, n - k);
+        System.arraycopy(ids, k, ids, k + 1, n - k);
+        targets[k] = w;
+        ids[k] = e;
+        rewrite(v, targets, ids, n + 1);
+    }
+
+    @Override
+    void reserve(int v, int n) {
+        ensureVertex(v);
+        int size = n * ENTRY_ESTIMATE;
+        if (_capacities[v] < size) {
+            move(v, size);
+        }
+    }
+
+    @Override
+    void append(int v, int w, int e) {
+        ensureVertex(v);
+        int size = encode(_entry, 0, w - _lasts[v], e - _lastIds[v]);
+        int length = _lengths[v];
+        if (length + size > _capacities[v]) {
+            move(v, Math.max(2 * (length + size), MIN_CAPACITY));
+        }
+        System.arraycopy(_entry, 0, _heap, _offsets[v] + length, size);
+        _lengths[v] = length + size;
+        _used += size;
+        _degrees[v] += 1;
+        _lasts[v] = w;
+        _lastIds[v] = e;
+    }
+
+    @Override
+    int remove(int v, int w) {
+        int n = degree(v);
+        if (n == 0 || w > _lasts[v]) {
+            return 0;
+        }
+        int[] targets = new int[n], ids = new int[n];
+        entries(v, targets, ids);
+        int k = Arrays.binarySearch(targets, 0, n, w);
+        if (k < 0) {
+            return 0;
+        }
+        int e = ids[k];
+        System.arraycopy(targets, k + 1, targets, k, n - k - 1);
+        System.arraycopy(ids, k + 1, ids, k, n - k - 1);
+        rewrite(v, targets, ids, n - 1);
+        return e;
+    }
+
+    @Override
+    void clear(int v) {
+        if (v < _degrees.length) {
+            _used -= _lengths[v];
+            _offsets[v] = _lengths[v] = _capacities[v] = 0;
+            _degrees[v] = _lasts[v] = _lastIds[v] = 0;
+        }
+    }
+
+    /**
+     * Returns true iff more than half of my heap is not in use by lists.
+     */
+    @Override
+    boolean isSparse() {
+        return _top - _used > MIN_COMPACT && _top - _used > _used;
+    }
+
+    /**
+     * Rewrite my heap so that each list occupies exactly the space it
+     * needs.
+     */
+    @Override
+    void compact() {
+        byte[] heap = new byte[Math.max(_used, INITIAL_HEAP)];
+        int top = 0;
+        for (int v = 0; v < _degrees.length; v += 1) {
+            System.arraycopy(_heap, _offsets[v], heap, top, _lengths[v]);
+            _offsets[v] = top;
+            _capacities[v] = _lengths[v];
+            top += _lengths[v];
+        }
+        _heap = heap;
+        _top = top;
+        _frozenTop = 0;
+    }
+
+    @Override
+    Adjacency snapshot() {
+        PackedAdjacency result = new PackedAdjacency(this);
+        _frozenTop = _top;
+        return result;
+    }
+
+    @Override
+    IntIteration iteration(int v) {
+        if (degree(v) == 0) {
+            return IntIteration.empty();
+        }
+        return new ListIteration(v);
+    }
+
+    @Override
+    int entries(int v, int[] targets, int[] ids) {
+        int n = 0;
+        if (degree(v) > 0) {
+            ListIteration entries = new ListIteration(v);
+            while (entries.hasNext()) {
+                targets[n] = entries.nextInt();
+                ids[n] = entries.id();
+                n += 1;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Replace the list for V with the N entries TARGETS[0 .. N-1], which
+     * must be increasing, and IDS[0 .. N-1].
+     */
+    private void rewrite(int v, int[] targets, int[] ids, int n) {
+        byte[] buf = new byte[n * MAX_ENTRY];
+        int size = 0;
+        for (int k = 0; k < n; k += 1) {
+            int gap = k == 0 ? targets[k] : targets[k] - targets[k - 1];
+            int delta = k == 0 ? ids[k] : ids[k] - ids[k - 1];
+            size = encode(buf, size, gap, delta);
+        }
+        _used -= _lengths[v];
+        _lengths[v] = 0;
+        if (size > _capacities[v] || _offsets[v] < _frozenTop) {
+            move(v, size);
+        }
+        System.arraycopy(buf, 0, _heap, _offsets[v], size);
+        _lengths[v] = size;
+        _used += size;
+        _degrees[v] = n;
+        _lasts[v] = n == 0 ? 0 : targets[n - 1];
+        _lastIds[v] = n == 0 ? 0 : ids[n - 1];
+    }
+
+    /**
+     * Move the list for V to a new region of CAPACITY bytes at the end
+     * of my heap.
+     */
+    private void move(int v, int capacity) {
+        if (_top + capacity > _heap.length) {
+            _heap = Arrays.copyOf(_heap,
+                                  Math.max(_top + capacity, 2 * _heap.length));
+        }
+        System.arraycopy(_heap, _offsets[v], _heap, _top, _lengths[v]);
+        _offsets[v] = _top;
+        _capacities[v] = capacity;
+        _top += capacity;
+    }
+
+    /**
+     * Encode the entry (GAP, DELTA) into BUF starting at POS, and return
+     * the position after it.
+     */
+    private static int encode(byte[] buf, int pos, int gap, int delta) {
+        pos = writeVarint(buf, pos, gap);
+        return writeVarint(buf, pos, (delta << 1) ^ (delta >> 31));
+    }
+
+    /**
+     * Write X into BUF as a variable-length integer, seven bits per byte,
+     * least significant first, starting at POS.  Returns the position
+     * after it.
+     */
+    private static int writeVarint(byte[] buf, int pos, int x) {
+        while ((x & ~VARINT_MASK) != 0) {
+            buf[pos] = (byte) (x & VARINT_MASK | VARINT_MORE);
+            pos += 1;
+            x >>>= VARINT_SHIFT;
+        }
+        buf[pos] = (byte) x;
+        return pos + 1;
+    }
+
+    /**
+     * Make sure there is room to record adjacencies of V.
+     */
+    private void ensureVertex(int v) {
+        if (v >= _degrees.length) {
+            int n = Math.max(v + 1, 2 * _degrees.length);
+            _offsets = Arrays.copyOf(_offsets, n);
+            _lengths = Arrays.copyOf(_lengths, n);
+            _capacities = Arrays.copyOf(_capacities, n);
+            _degrees = Arrays.copyOf(_degrees, n);
+            _lasts = Arrays.copyOf(_lasts, n);
+            _lastIds = Arrays.copyOf(_lastIds, n);
+        }
+    }
+
+    /**
+     * An iteration that decodes one of my lists, delivering its vertices
+     * and making the corresponding edge ids available through id().
+     */
+    private class ListIteration extends IntIteration {
+        /**
+         * Iterates over the list for V.
+         */
+        ListIteration(int v) {
+            _bytes = _heap;
+            _pos = _offsets[v];
+            _end = _pos + _lengths[v];
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _pos < _end;
+        }
+
+        @Override
+        public int nextInt() {
+            if (_pos >= _end) {
+                throw new NoSuchElementException();
+            }
+            _target += readVarint();
+            int zigzag = readVarint();
+            _id += (zigzag >>> 1) ^ -(zigzag & 1);
+            return _target;
+        }
+
+        /**
+         * Returns the id of the edge to the vertex last delivered.
+         */
+        int id() {
+            return _id;
+        }
+
+        /**
+         * Decode the variable-length integer at _pos and advance past it.
+         */
+        private int readVarint() {
+            int x = 0;
+            for (int shift = 0; ; shift += VARINT_SHIFT) {
+                byte b = _bytes[_pos];
+                _pos += 1;
+                x |= (b & VARINT_MASK) << shift;
+                if (b >= 0) {
+                    return x;
+                }
+            }
+        }
+
+        /**
+         * The heap being read.
+         */
+        private final byte[] _bytes;
+        /**
+         * Position of the next entry and the end of the list.
+         */
+        private int _pos, _end;
+        /**
+         * The last vertex and edge id decoded.
+         */
+        private int _target, _id;
+    }
+
+    /**
+     * Number of value bits per byte of a variable-length integer.
+     */
+    private static final int VARINT_SHIFT = 7;
+    /**
+     * Mask for the value bits of a byte of a variable-length integer.
+     */
+    private static final int VARINT_MASK = 0x7f;
+    /**
+     * Flag marking a byte that is not the last of its integer.
+     */
+    private static final int VARINT_MORE = 0x80;
+    /**
+     * The largest number of bytes an entry can take.
+     */
+    private static final int MAX_ENTRY = 10;
+    /**
+     * Bytes per entry to set aside when reserving space for a list.
+     */
+    private static final int ENTRY_ESTIMATE = 4;
+    /**
+     * Smallest region given to a list that must move to grow.
+     */
+    private static final int MIN_CAPACITY = 8;
+    /**
+     * Initial heap size.
+     */
+    private static final int INITIAL_HEAP = 64;
+    /**
+     * Initial number of vertex slots.
+     */
+    private static final int INITIAL_VERTICES = 16;
+    /**
+     * Number of wasted bytes below which compaction is not worthwhile.
+     */
+    private static final int MIN_COMPACT = 1024;
+
+    /**
+     * The encoded lists.  Only the first _top bytes have been allocated.
+     */
+    private byte[] _heap;
+    /**
+     * The number of bytes of _heap allocated to lists, and the total
+     * length of those lists.
+     */
+    private int _top, _used;
+    /**
+     * Lists starting below this point in _heap may be shared with a
+     * snapshot.
+     */
+    private int _frozenTop;
+    /**
+     * The list for V occupies the first _lengths[V] bytes of the region
+     * of _capacities[V] bytes starting at _offsets[V] in _heap.
+     */
+    private int[] _offsets, _lengths, _capacities;
+    /**
+     * The number of entries in each list.
+     */
+    private int[] _degrees;
+    /**
+     * The vertex and edge id in the last entry of each list (0 if empty).
+     */
+    private int[] _lasts, _lastIds;
+    /**
+     * Scratch space for encoding one entry.
+     */
+    private final byte[] _entry = new byte[MAX_ENTRY];
+}
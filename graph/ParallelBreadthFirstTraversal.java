@@ -0,0 +1,435 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A breadth-first traversal of a graph that expands each level of the
+ * search in parallel.  The vertices at depth D (the "frontier") are
+ * divided into chunks, which fork/join workers expand at once; each
+ * chunk collects the newly reached vertices at depth D + 1 in its own
+ * buffer, and the buffers together form the next frontier.  A vertex is
+ * claimed by the first worker to set its bit in a shared atomic bitset,
+ * so that each reachable vertex is reached exactly once.  The traversal
+ * records the depth of each vertex reached (its distance in edges from
+ * the nearest starting vertex) and its parent: the vertex at the
+ * previous depth from which it was reached.  When several vertices at
+ * that depth are adjacent to it, which one becomes its parent depends
+ * on timing.
+ * <p>
+ * A client may extend this class and override visit, which is called
+ * once for each vertex reached, by the thread that claims it.  Visits
+ * of vertices at the same depth may run concurrently on different
+ * threads, in any order, so visit must be thread-safe; however, all
+ * visits of vertices at depth D finish before any visit of a vertex at
+ * depth D + 1 begins.  The graph must not be changed during a
+ * traversal, and its intSuccessors queries must be safe for concurrent
+ * readers, as they are for all graphs in this package while unchanged.
+ * <p>
+ * As with Traversal, traversals may be restarted, remembering the
+ * previously reached vertices, until clear() is called.  If a visit
+ * stops a traversal, the next call to traverse first finishes it,
+ * expanding the level that was interrupted and those beyond it, and
+ * then starts from its own vertices at depth 0.
+ *
+ * @author John Schulz
+ */
+public class ParallelBreadthFirstTraversal {
+
+    /**
+     * A parallel breadth-first traversal of G, using the common fork/join
+     * pool.
+     */
+    public ParallelBreadthFirstTraversal(Graph G) {
+        this(G, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * A parallel breadth-first traversal of G, whose levels are expanded
+     * by the workers of POOL.
+     */
+    public ParallelBreadthFirstTraversal(Graph G, ForkJoinPool pool) {
+        _G = G;
+        _pool = pool;
+        clear();
+    }
+
+    /**
+     * Forget all previously reached vertices.
+     */
+    public void clear() {
+        int n = _G.maxVertex() + 1;
+        _visited = new AtomicLongArray((n + Long.SIZE - 1) >>> WORD_SHIFT);
+        _depths = new int[n];
+        Arrays.fill(_depths, -1);
+        _parents = new int[n];
+        _stopped = false;
+        _frontierSize = _carrySize = 0;
+    }
+
+    /**
+     * Traverse from V0, at depth 0.
+     */
+    public void traverse(int v0) {
+        traverse(Arrays.<Integer>asList(v0));
+    }
+
+    /**
+     * Traverse from the vertices in V0, all at depth 0, after finishing
+     * any traversal stopped by a visit.  Vertices already reached by an
+     * earlier traversal are not reached again, and values in V0 that are
+     * not vertices of the graph are ignored.
+     */
+    public void traverse(Collection<Integer> V0) {
+        grow();
+        _stopped = false;
+        if (!finish()) {
+            return;
+        }
+        _depth = 1;
+        for (int v : V0) {
+            if (_G.contains(v) && claim(v)) {
+                _depths[v] = 0;
+                _parents[v] = 0;
+                addToFrontier(v);
+                if (!visit(v)) {
+                    _stopped = true;
+                    return;
+                }
+            }
+        }
+        finish();
+    }
+
+    /**
+     * Returns the depth at which V was reached, or -1 if it has not been.
+     */
+    public int depth(int v) {
+        return v > 0 && v < _depths.length ? _depths[v] : -1;
+    }
+
+    /**
+     * Returns the vertex from which V was reached, or 0 if V was a
+     * starting vertex or has not been reached.
+     */
+    public int parent(int v) {
+        return v > 0 && v < _parents.length ? _parents[v] : 0;
+    }
+
+    /**
+     * Returns a new array whose element V is depth(V), for all vertex
+     * numbers V up to the graph's maxVertex() when last traversed.
+     */
+    public int[] depths() {
+        return _depths.clone();
+    }
+
+    /**
+     * Returns a new array whose element V is parent(V), for all vertex
+     * numbers V up to the graph's maxVertex() when last traversed.
+     */
+    public int[] parents() {
+        return _parents.clone();
+    }
+
+    /**
+     * Returns true iff V has been reached.
+     */
+    public boolean reached(int v) {
+        return depth(v) >= 0;
+    }
+
+    /**
+     * Perform a visit on vertex V, which has just been reached.  Returns
+     * false iff the traversal is to terminate.  It then stops as soon as
+     * it can: visits already under way finish, a few more at the same
+     * depth may be made, and none are made at greater depths.  May be
+     * called concurrently from several threads, as described above.
+     * Does nothing by default.
+     */
+    protected boolean visit(int v) {
+        return true;
+    }
+
+    /**
+     * Returns the graph being traversed.
+     */
+    protected Graph getG() {
+        return _G;
+    }
+
+    /**
+     * Expand levels, starting with the current frontier, until none
+     * remain or a visit stops the traversal.  Returns false iff stopped.
+     */
+    private boolean finish() {
+        while (_frontierSize > 0) {
+            expandLevel(_depth);
+            if (_stopped) {
+                return false;
+            }
+            _depth += 1;
+        }
+        return true;
+    }
+
+    /**
+     * Reach the vertices at DEPTH from the current frontier, which is at
+     * DEPTH - 1, and make them the new frontier.  If a visit stops the
+     * traversal, instead keep the current frontier, so that it may be
+     * expanded again later, and keep the vertices reached so far at
+     * DEPTH in _carry, to be added to the next frontier when it is.
+     */
+    private void expandLevel(int depth) {
+        int chunks = (_frontierSize + GRAIN - 1) / GRAIN;
+        if (_buffers.length < chunks) {
+            _buffers = Arrays.copyOf(_buffers, Math.max(chunks,
+                                                        2 * _buffers.length));
+            _bufferSizes = new int[_buffers.length];
+        }
+        if (chunks == 1) {
+            expand(0, depth);
+        } else {
+            _pool.invoke(new Level(0, chunks, depth));
+        }
+        int total = _carrySize;
+        for (int k = 0; k < chunks; k += 1) {
+            total += _bufferSizes[k];
+        }
+        if (_next.length < total) {
+            _next = new int[Math.max(total, 2 * _next.length)];
+        }
+        System.arraycopy(_carry, 0, _next, 0, _carrySize);
+        int n = _carrySize;
+        for (int k = 0; k < chunks; k += 1) {
+            System.arraycopy(_buffers[k], 0, _next, n, _bufferSizes[k]);
+            n += _bufferSizes[k];
+        }
+        int[] next = _next;
+        if (_stopped) {
+            _next = _carry;
+            _carry = next;
+            _carrySize = total;
+        } else {
+            _next = _frontier;
+            _frontier = next;
+            _frontierSize = total;
+            _carrySize = 0;
+        }
+    }
+
+    /**
+     * Expand chunk K of the current frontier, reaching vertices at DEPTH
+     * and collecting them in _buffers[K].
+     */
+    private void expand(int k, int depth) {
+        int[] buffer = _buffers[k];
+        if (buffer == null) {
+            buffer = new int[GRAIN];
+        }
+        int n = 0;
+        int end = Math.min(_frontierSize, (k + 1) * GRAIN);
+        for (int i = k * GRAIN; i < end && !_stopped; i += 1) {
+            int u = _frontier[i];
+            IntIteration successors = _G.intSuccessors(u);
+            while (successors.hasNext()) {
+                int v = successors.nextInt();
+                if (claim(v)) {
+                    _depths[v] = depth;
+                    _parents[v] = u;
+                    if (n == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, 2 * n);
+                    }
+                    buffer[n] = v;
+                    n += 1;
+                    if (!visit(v)) {
+                        _stopped = true;
+                    }
+                }
+            }
+        }
+        _buffers[k] = buffer;
+        _bufferSizes[k] = n;
+    }
+
+    /**
+     * The expansion of chunks [LO .. HI-1] of the current frontier.
+     */
+    private class Level extends RecursiveAction {
+        /**
+         * Expansion of chunks LO through HI-1, reaching vertices at DEPTH.
+         */
+        Level(int lo, int hi, int depth) {
+            _lo = lo;
+            _hi = hi;
+            _depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            if (_hi - _lo == 1) {
+                expand(_lo, _depth);
+            } else {
+                int mid = (_lo + _hi) >>> 1;
+                invokeAll(new Level(_lo, mid, _depth),
+                          new Level(mid, _hi, _depth));
+            }
+        }
+
+        /**
+         * The range of chunks I expand.
+         */
+        private final int _lo, _hi;
+        /**
+         * The depth of the vertices I reach.
+         */
+        private final int _depth;
+
+        /**
+         * Serialization version, as required of RecursiveActions.
+         */
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * Mark V as reached, returning true iff this call is the one that
+     * did so.
+     */
+    private boolean claim(int v) {
+        int i = v >>> WORD_SHIFT;
+        long bit = 1L << v;
+        long word = _visited.get(i);
+        while ((word & bit) == 0) {
+            if (_visited.compareAndSet(i, word, word | bit)) {
+                return true;
+            }
+            word = _visited.get(i);
+        }
+        return false;
+    }
+
+    /**
+     * Add V to the current frontier.
+     */
+    private void addToFrontier(int v) {
+        if (_frontierSize == _frontier.length) {
+            _frontier = Arrays.copyOf(_frontier, 2 * _frontierSize);
+        }
+        _frontier[_frontierSize] = v;
+        _frontierSize += 1;
+    }
+
+    /**
+     * Enlarge my per-vertex tables if vertices have been added to the
+     * graph since they were made.
+     */
+    private void grow() {
+        int n = _G.maxVertex() + 1;
+        if (n <= _depths.length) {
+            return;
+        }
+        int old = _depths.length;
+        _depths = Arrays.copyOf(_depths, n);
+        Arrays.fill(_depths, old, n, -1);
+        _parents = Arrays.copyOf(_parents, n);
+        int words = (n + Long.SIZE - 1) >>> WORD_SHIFT;
+        if (words > _visited.length()) {
+            AtomicLongArray visited = new AtomicLongArray(words);
+            for (int i = 0; i < _visited.length(); i += 1) {
+                visited.set(i, _visited.get(i));
+            }
+            _visited = visited;
+        }
+    }
+
+    /**
+     * Log base 2 of the number of bits in a word of _visited.
+     */
+    private static final int WORD_SHIFT = 6;
+
+    /**
+     * The number of frontier vertices expanded by each task.
+     */
+    static final int GRAIN = 512;
+
+    /**
+     * The graph being traversed.
+     */
+    private final Graph _G;
+
+    /**
+     * The pool whose workers expand each level.
+     */
+    private final ForkJoinPool _pool;
+
+    /**
+     * Bit V % 64 of word V / 64 is set iff vertex V has been reached.
+     */
+    private AtomicLongArray _visited;
+
+    /**
+     * The depths of the vertices, indexed by vertex number, or -1 for
+     * vertices not reached.
+     */
+    private int[] _depths;
+
+    /**
+     * The parents of the vertices, indexed by vertex number.
+     */
+    private int[] _parents;
+
+    /**
+     * The current frontier is _frontier[0 .. _frontierSize-1].
+     */
+    private int[] _frontier = new int[GRAIN];
+
+    /**
+     * The number of vertices in the current frontier.
+     */
+    private int _frontierSize;
+
+    /**
+     * The depth of the vertices reached by expanding the current
+     * frontier.
+     */
+    private int _depth;
+
+    /**
+     * After a visit stops a traversal, the vertices already reached at
+     * _depth are _carry[0 .. _carrySize-1].
+     */
+    private int[] _carry = new int[GRAIN];
+
+    /**
+     * The number of vertices in _carry.
+     */
+    private int _carrySize;
+
+    /**
+     * Space for the next frontier, which is exchanged with _frontier
+     * after each level.
+     */
+    private int[] _next = new int[GRAIN];
+
+    /**
+     * _buffers[K][0 .. _bufferSizes[K]-1] are the vertices reached by
+     * the task that expanded chunk K of the current frontier.  Buffers
+     * are kept from level to level.
+     */
+    private int[][] _buffers = new int[1][];
+
+    /**
+     * The number of vertices in each of _buffers.
+     */
+    private int[] _bufferSizes = new int[1];
+
+    /**
+     * Set when a visit asks that the traversal terminate.
+     */
+    private volatile boolean _stopped;
+}
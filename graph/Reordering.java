@@ -0,0 +1,303 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+
+/**
+ * A renumbering of the vertices of a Graph, chosen so that vertices
+ * that are adjacent tend to get nearby numbers.  Graphs in this package
+ * keep per-vertex data in arrays indexed by vertex number, so after
+ * renumbering, a scan of a vertex's neighbors, and of the per-vertex
+ * data of algorithms such as Traversal and ShortestPaths, touches fewer
+ * distinct parts of memory.  A Reordering holds the forward map from
+ * old vertex numbers to new ones, which are 1 through vertexSize(), and
+ * the inverse map, and can apply itself to the graph it was computed
+ * from, producing a relabeled copy.  For example,
+ * Reordering r = new Reordering(G, Reordering.Order.RCM);
+ * Graph H = r.apply(G);
+ * ... run algorithms on H, then map results back with r.oldVertex ...
+ * <p>
+ * In computing the order, edges are treated as undirected.
+ *
+ * @author John Schulz
+ */
+public class Reordering {
+
+    /**
+     * The available orders.
+     */
+    public enum Order {
+        /**
+         * Breadth-first order, starting from each not-yet-numbered vertex
+         * in turn in increasing order.
+         */
+        BFS,
+        /**
+         * Reverse Cuthill-McKee: breadth-first order in which each
+         * search starts at an unnumbered vertex of least degree and
+         * visits neighbors in increasing order of degree, reversed.  It
+         * tends to keep each vertex's neighbors within a narrow band of
+         * numbers.
+         */
+        RCM,
+        /**
+         * Decreasing order of degree, so that the most heavily shared
+         * vertices come first and share cache lines.  Ties keep their
+         * original order.
+         */
+        DEGREE
+    }
+
+    /**
+     * A reordering of the vertices of G in the given ORDER.
+     */
+    public Reordering(Graph G, Order order) {
+        _oldVertexSize = G.vertexSize();
+        int[] vertices = new int[_oldVertexSize];
+        IntIteration it = G.intVertices();
+        for (int n = 0; it.hasNext(); n += 1) {
+            vertices[n] = it.nextInt();
+        }
+        switch (order) {
+        case BFS:
+            _inverse = breadthFirst(G, vertices, false);
+            break;
+        case RCM:
+            _inverse = breadthFirst(G, vertices, true);
+            reverse(_inverse);
+            break;
+        default:
+            _inverse = byDegree(G, vertices);
+            break;
+        }
+        _forward = new int[G.maxVertex() + 1];
+        for (int v = 1; v < _inverse.length; v += 1) {
+            _forward[_inverse[v]] = v;
+        }
+    }
+
+    /**
+     * Returns the number of vertices renumbered.
+     */
+    public int vertexSize() {
+        return _inverse.length - 1;
+    }
+
+    /**
+     * Returns the new number of vertex V of the original graph, or 0 if V
+     * was not one of its vertices.
+     */
+    public int newVertex(int v) {
+        return v > 0 && v < _forward.length ? _forward[v] : 0;
+    }
+
+    /**
+     * Returns the original number of the vertex numbered V in the
+     * relabeled graph, where 1 <= V <= vertexSize().
+     */
+    public int oldVertex(int v) {
+        return _inverse[v];
+    }
+
+    /**
+     * Returns the forward map as an array indexed by original vertex
+     * number, with 0 for numbers that were not vertices.
+     */
+    public int[] forward() {
+        return _forward.clone();
+    }
+
+    /**
+     * Returns the inverse map as an array indexed by new vertex number,
+     * from 1 through vertexSize(); element 0 is unused.
+     */
+    public int[] inverse() {
+        return _inverse.clone();
+    }
+
+    /**
+     * Returns a new Graph with the edges of G, which must have the same
+     * vertices as the Graph I was computed from, with each vertex V
+     * renumbered to newVertex(V).  The result is built by GraphBuilder,
+     * so it is a DirectedGraph or UndirectedGraph as G is directed or
+     * not, with edges numbered as GraphBuilder.build numbers them.
+     */
+    public Graph apply(Graph G) {
+        return builder(G, null).build();
+    }
+
+    /**
+     * Returns a new LabeledGraph renumbered from G as for apply(Graph),
+     * with each vertex and edge label of G on the corresponding vertex
+     * or edge of the result.
+     */
+    public <VL, EL> LabeledGraph<VL, EL> apply(LabeledGraph<VL, EL> G) {
+        GraphBuilder<VL, EL> builder = builder(G, G);
+        return builder.label(new LabeledGraph<VL, EL>(builder.build()));
+    }
+
+    /**
+     * Returns a GraphBuilder holding G, renumbered, with the labels of
+     * LABELS (which is G or null if G is unlabeled).
+     */
+    private <VL, EL> GraphBuilder<VL, EL>
+        builder(Graph G, LabeledGraph<VL, EL> labels) {
+        if (G.vertexSize() != _oldVertexSize) {
+            throw new IllegalArgumentException("graph was not reordered");
+        }
+        GraphBuilder<VL, EL> result = new GraphBuilder<>(G.isDirected());
+        for (int v = 1; v <= vertexSize(); v += 1) {
+            if (labels == null) {
+                result.add();
+            } else {
+                result.add(labels.getLabel(_inverse[v]));
+            }
+        }
+        EdgeCursor e = G.edgeCursor();
+        while (e.next()) {
+            int u = newVertex(e.source()), v = newVertex(e.target());
+            if (u == 0 || v == 0) {
+                throw new IllegalArgumentException("graph was not reordered");
+            }
+            if (labels == null) {
+                result.add(u, v);
+            } else {
+                result.add(u, v, labels.getLabel(e.source(), e.target()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the inverse map (indexed from 1) for a breadth-first
+     * numbering of VERTICES, the vertices of G.  Each search begins at
+     * the first unnumbered vertex of VERTICES, or if CUTHILLMCKEE, at an
+     * unnumbered vertex of least degree, and in that case also adds the
+     * neighbors of each vertex in increasing order of degree.
+     */
+    private static int[] breadthFirst(Graph G, int[] vertices,
+                                      boolean cuthillMcKee) {
+        int n = vertices.length;
+        int[] queue = new int[n + 1];
+        boolean[] numbered = new boolean[G.maxVertex() + 1];
+        int[] starts = cuthillMcKee ? byDegree(G, vertices) : null;
+        long[] keys = cuthillMcKee ? new long[n] : null;
+        int tail = 0;
+        for (int i = 0; i < n; i += 1) {
+            int s = cuthillMcKee ? starts[n - i] : vertices[i];
+            if (numbered[s]) {
+                continue;
+            }
+            numbered[s] = true;
+            tail += 1;
+            queue[tail] = s;
+            for (int head = tail; head <= tail; head += 1) {
+                int first = tail + 1;
+                int u = queue[head];
+                tail = addNeighbors(G.intSuccessors(u), numbered, queue,
+                                    tail);
+                if (G.isDirected()) {
+                    tail = addNeighbors(G.intPredecessors(u), numbered,
+                                        queue, tail);
+                }
+                if (cuthillMcKee && tail >= first + 1) {
+                    sortByDegree(G, queue, first, tail + 1, keys);
+                }
+            }
+        }
+        return queue;
+    }
+
+    /**
+     * Append the vertices delivered by ADJACENT that are not yet
+     * NUMBERED to QUEUE after position TAIL, marking them NUMBERED, and
+     * return the new last position.
+     */
+    private static int addNeighbors(IntIteration adjacent,
+                                    boolean[] numbered, int[] queue,
+                                    int tail) {
+        while (adjacent.hasNext()) {
+            int w = adjacent.nextInt();
+            if (!numbered[w]) {
+                numbered[w] = true;
+                tail += 1;
+                queue[tail] = w;
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * Sort A[FROM .. TO-1], which are vertices of G, into increasing order
+     * of degree, breaking ties by vertex number, using KEYS as scratch.
+     */
+    private static void sortByDegree(Graph G, int[] a, int from, int to,
+                                     long[] keys) {
+        for (int k = from; k < to; k += 1) {
+            keys[k - from] = ((long) degree(G, a[k]) << Integer.SIZE)
+                | a[k];
+        }
+        Arrays.sort(keys, 0, to - from);
+        for (int k = from; k < to; k += 1) {
+            a[k] = (int) keys[k - from];
+        }
+    }
+
+    /**
+     * Returns the inverse map (indexed from 1) that numbers VERTICES, the
+     * vertices of G, in decreasing order of degree, breaking ties by
+     * vertex number.
+     */
+    private static int[] byDegree(Graph G, int[] vertices) {
+        int n = vertices.length;
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i += 1) {
+            keys[i] = ((long) -degree(G, vertices[i]) << Integer.SIZE)
+                | vertices[i];
+        }
+        Arrays.sort(keys);
+        int[] result = new int[n + 1];
+        for (int i = 0; i < n; i += 1) {
+            result[i + 1] = (int) keys[i];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of edges incident on V in G, counting both
+     * directions for a directed graph.
+     */
+    private static int degree(Graph G, int v) {
+        return G.isDirected() ? G.outDegree(v) + G.inDegree(v)
+            : G.outDegree(v);
+    }
+
+    /**
+     * Reverse A[1 .. A.length-1].
+     */
+    private static void reverse(int[] a) {
+        for (int i = 1, j = a.length - 1; i < j; i += 1, j -= 1) {
+            int t = a[i];
+            a[i] = a[j];
+            a[j] = t;
+        }
+    }
+
+    /**
+     * The number of vertices in the graph I was computed from.
+     */
+    private final int _oldVertexSize;
+
+    /**
+     * The new number of original vertex V is _forward[V] (0 if V was not
+     * a vertex).
+     */
+    private final int[] _forward;
+
+    /**
+     * The original number of new vertex V is _inverse[V], 1 <= V <=
+     * vertexSize().
+     */
+    private final int[] _inverse;
+}
@@ -7,10 +7,6 @@ package graph;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Collections;
-import java.util.TreeSet;
-import java.util.Comparator;
-import java.util.AbstractQueue;
-import java.util.Iterator;
 
 /**
  * The shortest paths through an edge-weighted graph.
@@ -46,9 +42,9 @@ public abstract class ShortestPaths {
      */
     public void setPaths() {
         ArrayList<Integer> vertices = new ArrayList<>();
-        Iteration<Integer> ourVertices = _G.vertices();
+        IntIteration ourVertices = _G.intVertices();
         while (ourVertices.hasNext()) {
-            int nextVertice = ourVertices.next();
+            int nextVertice = ourVertices.nextInt();
             vertices.add(nextVertice);
             if (nextVertice == getSource()) {
                 continue;
@@ -57,6 +53,8 @@ public abstract class ShortestPaths {
             }
         }
         setWeight(getSource(), 0.0);
+        _traversal.clear();
+        _traversal.getIntFringe().clear();
         _traversal.traverse(vertices);
 
     }
@@ -173,67 +171,17 @@ public abstract class ShortestPaths {
 
 
     /**
-     * The comparator to be used to implement our treeset.
-     * Takes in account weights and estimatedDistance of each int.
+     * Compares vertices U and V for the order in which they are taken
+     * from the fringe: by weight plus estimatedDistance, and then by
+     * vertex number.
      */
-    private class PQcompare implements Comparator<Integer> {
-        @Override
-        public int compare(Integer o1, Integer o2) {
-            double dist1 = getWeight(o1) + estimatedDistance(o1);
-            double dist2 = getWeight(o2) + estimatedDistance(o2);
-            if (o1 == o2) {
-                return 0;
-            } else if (dist1 > dist2) {
-                return 1;
-            } else if (dist1 < dist2) {
-                return -1;
-            } else {
-                return 1;
-            }
-        }
-    }
-    /**
-     * The tree class to be used to traverse our path.
-     * Extends an abstractQueue with abstracted methods.
-     */
-    class OurTree extends AbstractQueue<Integer> {
-        /**
-         * Constructor for our tree class using
-         * the priority queue comparator above.
-         */
-        OurTree() {
-            _tree = new TreeSet<>(new PQcompare());
+    private int compareVertices(int u, int v) {
+        double dist1 = getWeight(u) + estimatedDistance(u);
+        double dist2 = getWeight(v) + estimatedDistance(v);
+        if (dist1 != dist2) {
+            return dist1 < dist2 ? -1 : 1;
         }
-
-        @Override
-        public Iterator<Integer> iterator() {
-            return _tree.iterator();
-        }
-
-        @Override
-        public int size() {
-            return _tree.size();
-        }
-
-        @Override
-        public boolean offer(Integer integer) {
-            return _tree.add(integer);
-        }
-
-        @Override
-        public Integer poll() {
-            return _tree.pollFirst();
-        }
-
-        @Override
-        public Integer peek() {
-            return _tree.first();
-        }
-
-        /**
-         * The tree for this specific object.
-         */
-        private TreeSet<Integer> _tree;
+        return Integer.compare(u, v);
     }
 
     /**
@@ -242,25 +190,26 @@ public abstract class ShortestPaths {
     class OurTraversal extends Traversal {
 
         /**
-         * Constructor for our traversal. Our Tree is
-         * automatically passed into the super
-         * contructor.
+         * Constructor for our traversal. A heap ordered by
+         * compareVertices is automatically passed into the
+         * super contructor.
          * @param G is the graph to set up our traversal.
          */
         protected OurTraversal(Graph G) {
-            super(G, new OurTree());
+            super(G, new IntHeap(ShortestPaths.this::compareVertices));
         }
 
         @Override
         protected void processSuccessors(int u) {
-            for (int edge : _G.successors(u)) {
+            IntIteration successors = _G.intSuccessors(u);
+            while (successors.hasNext()) {
+                int edge = successors.nextInt();
                 double count = getWeight(u)
                          + getWeight(u, edge);
                 if (count < getWeight(edge)) {
                     setWeight(edge, count);
                     setPredecessor(edge, u);
-                    _fringe.remove(edge);
-                    _fringe.add(edge);
+                    getIntFringe().add(edge);
                 }
             }
         }
@@ -0,0 +1,64 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+/**
+ * The ways a DirectedGraph or UndirectedGraph may store its adjacency
+ * lists.  They support exactly the same operations and differ only in
+ * speed and space.
+ *
+ * @author John Schulz
+ */
+public enum Storage {
+    /**
+     * A growable array of ints per vertex: fast to search and update.
+     * This is the default.
+     */
+    LISTS,
+    /**
+     * Gap-encoded variable-length integers packed into one shared byte
+     * array, typically taking a quarter of the space of LISTS or less.
+     * Lists are decoded on the fly, so searching and updating take time
+     * proportional to degree.  Best for large graphs that change little.
+     */
+    COMPRESSED,
+    /**
+     * A bitset per vertex with a bit for every possible adjacent vertex,
+     * as in an adjacency matrix, plus the ids of the edges present.
+     * Testing for an edge takes constant time, and rows may be combined
+     * with bitsets a word at a time (see Graph.unionSuccessors).  Takes
+     * space proportional to the square of the number of vertices, so it
+     * suits only small, dense graphs.
+     */
+    MATRIX;
+
+    /**
+     * Returns the Storage that should take the least space for a graph
+     * with VERTICES vertices and EDGES edges, directed iff DIRECTED:
+     * MATRIX when the average adjacency list would be longer than
+     * 1/MATRIX_DENSITY of the vertices and there are at most
+     * MATRIX_LIMIT vertices, and otherwise LISTS.
+     */
+    public static Storage forDensity(int vertices, long edges,
+                                     boolean directed) {
+        long entries = directed ? edges : 2 * edges;
+        if (vertices > 0 && vertices <= MATRIX_LIMIT
+            && entries * MATRIX_DENSITY > (long) vertices * vertices) {
+            return MATRIX;
+        }
+        return LISTS;
+    }
+
+    /**
+     * The largest number of vertices for which forDensity chooses
+     * MATRIX.  Beyond it, looking up edge ids in long rows gets slow.
+     */
+    public static final int MATRIX_LIMIT = 1 << 16;
+
+    /**
+     * A row costs a bit per vertex plus an int per edge, against two
+     * ints per edge for LISTS, so MATRIX is smaller once a vertex is
+     * adjacent to more than one in MATRIX_DENSITY of the others.
+     */
+    public static final int MATRIX_DENSITY = 32;
+}
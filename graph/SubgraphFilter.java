@@ -0,0 +1,454 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A view of part of a Graph: the vertices that satisfy a vertex
+ * predicate, and the edges between them that satisfy an edge predicate.
+ * Nothing is copied, so views that differ slightly (for example, a road
+ * map less the roads now closed) are cheap to create, and each may be
+ * traversed, labeled, or searched like any other Graph.  Per-vertex
+ * degrees and the vertex and edge counts are computed when first needed
+ * and cached.
+ * <p>
+ * Changes made through a view are made to the underlying graph, and may
+ * only involve visible vertices and edges: add(u, v) requires that both
+ * ends be visible and that the edge predicate accept (u, v).  A new
+ * vertex from add() is visible only if the vertex predicate accepts it.
+ * After changing the underlying graph directly, or changing the sets
+ * or state consulted by the predicates, call invalidate().
+ * <p>
+ * For an undirected graph, the edge predicate is always called with the
+ * smaller end first.
+ *
+ * @author John Schulz
+ */
+public class SubgraphFilter extends GraphFilter {
+
+    /**
+     * A test of whether the edge from U to V is to be included.
+     */
+    public interface EdgePredicate {
+        /**
+         * Returns true iff the edge from U to V is to be included.
+         */
+        boolean test(int u, int v);
+    }
+
+    /**
+     * The subgraph of G induced by the vertices that satisfy VERTICES.
+     */
+    public SubgraphFilter(Graph G, IntPredicate vertices) {
+        this(G, vertices, null);
+    }
+
+    /**
+     * The subgraph of G induced by the vertices in VERTICES, a set of
+     * vertex numbers.
+     */
+    public SubgraphFilter(Graph G, BitSet vertices) {
+        this(G, vertices::get, null);
+    }
+
+    /**
+     * The subgraph of G consisting of the vertices that satisfy VERTICES
+     * and the edges between them that satisfy EDGES.  Either predicate
+     * may be null, meaning that all vertices or edges are included.
+     */
+    public SubgraphFilter(Graph G, IntPredicate vertices,
+                          EdgePredicate edges) {
+        super(G);
+        _G = G;
+        _vertexTest = vertices;
+        _edgeTest = edges;
+        invalidate();
+    }
+
+    /**
+     * Discard all cached sizes and degrees, because the underlying graph
+     * or the outcome of my predicates may have changed.
+     */
+    public void invalidate() {
+        _vertexSize = _edgeSize = _maxVertex = -1;
+        _outDegrees = _inDegrees = null;
+    }
+
+    @Override
+    public int add() {
+        int v = super.add();
+        invalidate();
+        return v;
+    }
+
+    @Override
+    public int add(int u, int v) {
+        checkMyVertex(u);
+        checkMyVertex(v);
+        if (!visible(u, v)) {
+            throw new IllegalArgumentException("edge not in subgraph");
+        }
+        int e = super.add(u, v);
+        invalidate();
+        return e;
+    }
+
+    @Override
+    public void remove(int v) {
+        if (contains(v)) {
+            super.remove(v);
+            invalidate();
+        }
+    }
+
+    @Override
+    public void remove(int u, int v) {
+        if (contains(u, v)) {
+            super.remove(u, v);
+            invalidate();
+        }
+    }
+
+    @Override
+    public int vertexSize() {
+        if (_vertexSize < 0) {
+            int n = 0;
+            IntIteration vertices = intVertices();
+            while (vertices.hasNext()) {
+                vertices.nextInt();
+                n += 1;
+            }
+            _vertexSize = n;
+        }
+        return _vertexSize;
+    }
+
+    @Override
+    public int maxVertex() {
+        if (_maxVertex < 0) {
+            int v = _G.maxVertex();
+            while (v > 0 && !contains(v)) {
+                v -= 1;
+            }
+            _maxVertex = v;
+        }
+        return _maxVertex;
+    }
+
+    @Override
+    public int edgeSize() {
+        if (_edgeSize < 0) {
+            long n = 0, loops = 0;
+            IntIteration vertices = intVertices();
+            while (vertices.hasNext()) {
+                int v = vertices.nextInt();
+                n += outDegree(v);
+                if (!isDirected() && contains(v, v)) {
+                    loops += 1;
+                }
+            }
+            _edgeSize = (int) (isDirected() ? n : (n + loops) / 2);
+        }
+        return _edgeSize;
+    }
+
+    @Override
+    public int outDegree(int v) {
+        if (!contains(v)) {
+            return 0;
+        }
+        if (_outDegrees == null || v >= _outDegrees.length) {
+            _outDegrees = newDegrees();
+        }
+        if (_outDegrees[v] < 0) {
+            _outDegrees[v] = count(intSuccessors(v));
+        }
+        return _outDegrees[v];
+    }
+
+    @Override
+    public int inDegree(int v) {
+        if (!isDirected()) {
+            return outDegree(v);
+        }
+        if (!contains(v)) {
+            return 0;
+        }
+        if (_inDegrees == null || v >= _inDegrees.length) {
+            _inDegrees = newDegrees();
+        }
+        if (_inDegrees[v] < 0) {
+            _inDegrees[v] = count(intPredecessors(v));
+        }
+        return _inDegrees[v];
+    }
+
+    @Override
+    public boolean contains(int u) {
+        return _G.contains(u)
+            && (_vertexTest == null || _vertexTest.test(u));
+    }
+
+    @Override
+    public boolean contains(int u, int v) {
+        return contains(u) && contains(v) && _G.contains(u, v)
+            && visible(u, v);
+    }
+
+    @Override
+    public Iteration<Integer> vertices() {
+        return intVertices();
+    }
+
+    @Override
+    public Iteration<Integer> successors(int v) {
+        return intSuccessors(v);
+    }
+
+    @Override
+    public Iteration<Integer> predecessors(int v) {
+        return intPredecessors(v);
+    }
+
+    @Override
+    public IntIteration intVertices() {
+        return new Filtered(_G.intVertices(), 0, false);
+    }
+
+    @Override
+    public IntIteration intSuccessors(int v) {
+        if (!contains(v)) {
+            return IntIteration.empty();
+        }
+        return new Filtered(_G.intSuccessors(v), v, false);
+    }
+
+    @Override
+    public IntIteration intPredecessors(int v) {
+        if (!contains(v)) {
+            return IntIteration.empty();
+        }
+        return new Filtered(_G.intPredecessors(v), v, true);
+    }
+
+    @Override
+    public IntStream vertexStream() {
+        return StreamSupport.intStream(new VertexSpliterator(this), false);
+    }
+
+    @Override
+    public IntStream successorStream(int v) {
+        if (!contains(v)) {
+            return IntStream.empty();
+        }
+        return _G.successorStream(v)
+            .filter(w -> contains(w) && visible(v, w));
+    }
+
+    @Override
+    public IntStream predecessorStream(int v) {
+        if (!contains(v)) {
+            return IntStream.empty();
+        }
+        return _G.predecessorStream(v)
+            .filter(w -> contains(w) && visible(w, v));
+    }
+
+    @Override
+    public EdgeCursor edgeCursor() {
+        return EdgeCursor.of(this);
+    }
+
+    @Override
+    public LongStream edgeStream() {
+        return _G.edgeStream().filter(this::containsEdge);
+    }
+
+    @Override
+    public void unionSuccessors(int v, long[] set) {
+        Adjacency.union(intSuccessors(v), set);
+    }
+
+    @Override
+    public void intersectSuccessors(int v, long[] set) {
+        Adjacency.intersect(intSuccessors(v), set);
+    }
+
+    @Override
+    public void removeSuccessors(int v, long[] set) {
+        Adjacency.difference(intSuccessors(v), set);
+    }
+
+    @Override
+    public Iteration<int[]> edges() {
+        Iteration<int[]> edges = _G.edges();
+        return new Iteration<int[]>() {
+            @Override
+            public boolean hasNext() {
+                while (_next == null && edges.hasNext()) {
+                    int[] e = edges.next();
+                    if (contains(e[0], e[1])) {
+                        _next = e;
+                    }
+                }
+                return _next != null;
+            }
+
+            @Override
+            public int[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int[] result = _next;
+                _next = null;
+                return result;
+            }
+
+            /**
+             * The next edge to deliver, or null if not yet found.
+             */
+            private int[] _next;
+        };
+    }
+
+    @Override
+    protected int edgeId(int u, int v) {
+        return contains(u, v) ? _G.edgeId(u, v) : 0;
+    }
+
+    @Override
+    protected void checkMyVertex(int v) {
+        if (!contains(v)) {
+            throw new IllegalArgumentException("vertex not from Graph");
+        }
+    }
+
+    /**
+     * Returns true iff EDGE, an edge of the underlying graph packed as by
+     * edgeStream, is visible in me.
+     */
+    private boolean containsEdge(long edge) {
+        int u = edgeSource(edge), v = edgeTarget(edge);
+        return contains(u) && contains(v) && visible(u, v);
+    }
+
+    /**
+     * Returns true iff my edge predicate accepts the edge from U to V.
+     */
+    private boolean visible(int u, int v) {
+        if (_edgeTest == null) {
+            return true;
+        }
+        if (!isDirected() && u > v) {
+            return _edgeTest.test(v, u);
+        }
+        return _edgeTest.test(u, v);
+    }
+
+    /**
+     * Returns a new table of degrees, all unknown (-1).
+     */
+    private int[] newDegrees() {
+        int[] result = new int[_G.maxVertex() + 1];
+        Arrays.fill(result, -1);
+        return result;
+    }
+
+    /**
+     * Returns the number of values delivered by IT.
+     */
+    private static int count(IntIteration it) {
+        int n = 0;
+        while (it.hasNext()) {
+            it.nextInt();
+            n += 1;
+        }
+        return n;
+    }
+
+    /**
+     * The values of an IntIteration of vertices of the underlying graph
+     * that are visible in me, and if adjacent to some vertex, are joined
+     * to it by a visible edge.
+     */
+    private class Filtered extends IntIteration {
+        /**
+         * The visible vertices from SOURCE.  If V is nonzero, they are
+         * successors of V, or if REVERSE, predecessors of V.
+         */
+        Filtered(IntIteration source, int v, boolean reverse) {
+            _source = source;
+            _v = v;
+            _reverse = reverse;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (_next == 0 && _source.hasNext()) {
+                int w = _source.nextInt();
+                if (contains(w)
+                    && (_v == 0 || (_reverse ? visible(w, _v)
+                                    : visible(_v, w)))) {
+                    _next = w;
+                }
+            }
+            return _next != 0;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int w = _next;
+            _next = 0;
+            return w;
+        }
+
+        /**
+         * The underlying values.
+         */
+        private final IntIteration _source;
+        /**
+         * The vertex whose neighbors I deliver, or 0.
+         */
+        private final int _v;
+        /**
+         * True iff I deliver predecessors of _v.
+         */
+        private final boolean _reverse;
+        /**
+         * The next value to deliver, or 0 if not yet found.
+         */
+        private int _next;
+    }
+
+    /**
+     * The underlying graph.
+     */
+    private final Graph _G;
+    /**
+     * The vertex predicate, or null to include all vertices.
+     */
+    private final IntPredicate _vertexTest;
+    /**
+     * The edge predicate, or null to include all edges.
+     */
+    private final EdgePredicate _edgeTest;
+    /**
+     * Cached vertexSize(), edgeSize(), and maxVertex(), or -1 if unknown.
+     */
+    private int _vertexSize, _edgeSize, _maxVertex;
+    /**
+     * Cached out- and in-degrees indexed by vertex (-1 if unknown), or
+     * null if none have been computed.
+     */
+    private int[] _outDegrees, _inDegrees;
+}
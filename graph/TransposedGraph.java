@@ -0,0 +1,191 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * A view of a Graph with every edge reversed: the edge (U, V) of the
+ * view is the edge (V, U) of the underlying graph, so that successors
+ * and predecessors, and outDegree and inDegree, trade places.  Creating
+ * one takes constant time and copies nothing, and each query costs the
+ * same as the corresponding query on the underlying graph, which keeps
+ * predecessors as well as successors indexed.  Searches run on the view
+ * run backwards over the underlying graph; for example, a traversal of
+ * the view from V reaches exactly the vertices from which V can be
+ * reached.  Changes made through the view are made, reversed, to the
+ * underlying graph, and changes to the underlying graph show through.
+ * The transpose of an undirected graph is the same graph.
+ *
+ * @author John Schulz
+ */
+public class TransposedGraph extends GraphFilter {
+
+    /**
+     * The transpose of G.
+     */
+    public TransposedGraph(Graph G) {
+        super(G);
+        _G = G;
+    }
+
+    @Override
+    public int add(int u, int v) {
+        return _G.add(v, u);
+    }
+
+    @Override
+    public void remove(int u, int v) {
+        _G.remove(v, u);
+    }
+
+    @Override
+    public int outDegree(int v) {
+        return _G.inDegree(v);
+    }
+
+    @Override
+    public int inDegree(int v) {
+        return _G.outDegree(v);
+    }
+
+    @Override
+    public boolean contains(int u, int v) {
+        return _G.contains(v, u);
+    }
+
+    @Override
+    public Iteration<Integer> successors(int v) {
+        return _G.predecessors(v);
+    }
+
+    @Override
+    public Iteration<Integer> predecessors(int v) {
+        return _G.successors(v);
+    }
+
+    @Override
+    public IntIteration intVertices() {
+        return _G.intVertices();
+    }
+
+    @Override
+    public IntIteration intSuccessors(int v) {
+        return _G.intPredecessors(v);
+    }
+
+    @Override
+    public IntIteration intPredecessors(int v) {
+        return _G.intSuccessors(v);
+    }
+
+    @Override
+    public IntStream vertexStream() {
+        return _G.vertexStream();
+    }
+
+    @Override
+    public IntStream successorStream(int v) {
+        return _G.predecessorStream(v);
+    }
+
+    @Override
+    public IntStream predecessorStream(int v) {
+        return _G.successorStream(v);
+    }
+
+    @Override
+    public EdgeCursor edgeCursor() {
+        EdgeCursor edges = _G.edgeCursor();
+        if (!isDirected()) {
+            return edges;
+        }
+        return new EdgeCursor() {
+            @Override
+            public boolean next() {
+                return edges.next();
+            }
+
+            @Override
+            public int source() {
+                return edges.target();
+            }
+
+            @Override
+            public int target() {
+                return edges.source();
+            }
+
+            @Override
+            public int edgeId() {
+                return edges.edgeId();
+            }
+
+            @Override
+            public int fill(int[] src, int[] dst) {
+                return edges.fill(dst, src);
+            }
+        };
+    }
+
+    @Override
+    public LongStream edgeStream() {
+        if (!isDirected()) {
+            return _G.edgeStream();
+        }
+        return _G.edgeStream().map(e -> edge(edgeTarget(e), edgeSource(e)));
+    }
+
+    @Override
+    public void unionSuccessors(int v, long[] set) {
+        Adjacency.union(intSuccessors(v), set);
+    }
+
+    @Override
+    public void intersectSuccessors(int v, long[] set) {
+        Adjacency.intersect(intSuccessors(v), set);
+    }
+
+    @Override
+    public void removeSuccessors(int v, long[] set) {
+        Adjacency.difference(intSuccessors(v), set);
+    }
+
+    @Override
+    public Iteration<int[]> edges() {
+        Iteration<int[]> edges = _G.edges();
+        if (!isDirected()) {
+            return edges;
+        }
+        return new Iteration<int[]>() {
+            @Override
+            public boolean hasNext() {
+                return edges.hasNext();
+            }
+
+            @Override
+            public int[] next() {
+                int[] e = edges.next();
+                _edge[0] = e[1];
+                _edge[1] = e[0];
+                return _edge;
+            }
+
+            /**
+             * The array returned by next().
+             */
+            private final int[] _edge = new int[2];
+        };
+    }
+
+    @Override
+    protected int edgeId(int u, int v) {
+        return _G.edgeId(v, u);
+    }
+
+    /**
+     * The underlying graph.
+     */
+    private final Graph _G;
+}
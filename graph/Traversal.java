@@ -16,7 +16,7 @@ import java.util.Queue;
  * <p>
  * Generally, the client will extend Traversal.  By overriding the visit
  * method, the client can determine what happens when a node is visited.
- * By supplying an appropriate type of Queue object to the constructor,
+ * By supplying an appropriate IntFringe (or Queue) to the constructor,
  * the client can control the behavior of the fringe. By overriding the
  * shouldPostVisit and postVisit methods, the client can arrange for
  * post-visits of a node (as in depth-first search).  By overriding
@@ -34,18 +34,43 @@ public abstract class Traversal {
      * A Traversal of G, using FRINGE as the fringe.
      */
     protected Traversal(Graph G, Queue<Integer> fringe) {
+        this(G, IntFringe.of(fringe), fringe);
+    }
+
+    /**
+     * A Traversal of G, using FRINGE as the fringe.  Vertices go into
+     * and out of FRINGE without being boxed.
+     */
+    protected Traversal(Graph G, IntFringe fringe) {
+        this(G, fringe, fringe.asQueue());
+    }
+
+    /**
+     * A Traversal of G, using INTS as the fringe, of which QUEUE is a
+     * Queue view.
+     */
+    private Traversal(Graph G, IntFringe ints, Queue<Integer> queue) {
         _G = G;
-        _fringe = fringe;
+        _ints = ints;
+        _fringe = queue;
         _markedP = new ArrayList<>();
         clear();
     }
 
     /**
-     * Unmark all vertices in the graph.
+     * Unmark all vertices in the graph.  Takes constant time: rather than
+     * erasing the marks, it starts a new epoch, and only marks stamped
+     * with the current epoch count.
      */
     public void clear() {
-        _marked = new boolean[_G.vertexSize() + 1];
-
+        if (_marks == null) {
+            _marks = new int[_G.maxVertex() + 1];
+        }
+        _epoch += 1;
+        if (_epoch == 0) {
+            Arrays.fill(_marks, 0);
+            _epoch = 1;
+        }
     }
 
     /**
@@ -53,11 +78,25 @@ public abstract class Traversal {
      */
     public void traverse(Collection<Integer> V0) {
         for (int x : V0) {
-            _fringe.add(x);
+            _ints.add(x);
         }
-        while (!_fringe.isEmpty()) {
-            int vertex = _fringe.peek();
-            _fringe.remove();
+        traverseFringe();
+    }
+
+    /**
+     * Initialize the fringe to { V0 } and perform a traversal.
+     */
+    public void traverse(int v0) {
+        _ints.add(v0);
+        traverseFringe();
+    }
+
+    /**
+     * Perform a traversal starting from the vertices in the fringe.
+     */
+    private void traverseFringe() {
+        while (!_ints.isEmpty()) {
+            int vertex = _ints.remove();
             if (!marked(vertex)) {
                 mark(vertex);
 
@@ -65,7 +104,7 @@ public abstract class Traversal {
                     break;
                 }
                 if (shouldPostVisit(vertex)) {
-                    _fringe.add(vertex);
+                    _ints.add(vertex);
                 }
                 processSuccessors(vertex);
             } else {
@@ -80,25 +119,22 @@ public abstract class Traversal {
 
     }
 
-    /**
-     * Initialize the fringe to { V0 } and perform a traversal.
-     */
-    public void traverse(int v0) {
-        traverse(Arrays.<Integer>asList(v0));
-    }
-
     /**
      * Returns true iff V has been marked.
      */
     protected boolean marked(int v) {
-        return _marked[v];
+        return v < _marks.length && _marks[v] == _epoch;
     }
 
     /**
      * Mark vertex V.
      */
     protected void mark(int v) {
-        _marked[v] = true;
+        if (v >= _marks.length) {
+            _marks = Arrays.copyOf(_marks, Math.max(v + 1,
+                                                    2 * _marks.length));
+        }
+        _marks[v] = _epoch;
     }
 
     /**
@@ -139,9 +175,11 @@ public abstract class Traversal {
      * processSuccessor.
      */
     protected void processSuccessors(int u) {
-        for (int v : _G.successors(u)) {
+        IntIteration successors = _G.intSuccessors(u);
+        while (successors.hasNext()) {
+            int v = successors.nextInt();
             if (processSuccessor(u, v)) {
-                _fringe.add(v);
+                _ints.add(v);
             }
         }
     }
@@ -169,7 +207,8 @@ public abstract class Traversal {
     }
 
     /**
-     * The fringe.
+     * The fringe, as a Queue.  Subclasses that care about speed should use
+     * getIntFringe() instead.
      */
     protected final Queue<Integer> _fringe;
 
@@ -182,15 +221,51 @@ public abstract class Traversal {
     }
 
     /**
-     * A array that tracks if vertices are marked.
+     * The fringe, which adds to and removes from the same vertices as
+     * _fringe, without boxing them.
      */
-    protected boolean[] _marked;
+    private final IntFringe _ints;
 
     /**
      * An accessor method.
-     * @return the marked vertices.
+     * @return the fringe for our traversal, as an IntFringe.
+     */
+    protected IntFringe getIntFringe() {
+        return _ints;
+    }
+
+    /**
+     * Vertex V is marked iff _marks[V] == _epoch.  Indexed by vertex
+     * number, and grown as needed when vertices are added.
+     */
+    private int[] _marks;
+
+    /**
+     * The current marking epoch, which clear() advances.
+     */
+    private int _epoch;
+
+    /**
+     * A snapshot of the marks, as last returned by getMarked(), or null
+     * if it has not been called.  It is not updated as vertices are
+     * marked or cleared, and changing it marks nothing: subclasses
+     * should use marked and mark.
+     */
+    protected boolean[] _marked;
+
+    /**
+     * An accessor method.  Takes time proportional to the largest
+     * vertex number marked, and refills the same array on each call.
+     * @return _marked, refilled as a read-only snapshot in which
+     *         element V is true iff vertex V is now marked.
      */
     protected boolean[] getMarked() {
+        if (_marked == null || _marked.length != _marks.length) {
+            _marked = new boolean[_marks.length];
+        }
+        for (int v = 0; v < _marked.length; v += 1) {
+            _marked[v] = _marks[v] == _epoch;
+        }
         return _marked;
     }
 
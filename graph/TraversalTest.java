@@ -3,9 +3,17 @@ package graph;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class TraversalTest {
     public Graph contruct() {
@@ -93,4 +101,431 @@ public class TraversalTest {
         assertEquals(6, (int) d.next());
     }
 
+    @Test
+    public void testDFSMultipleStarts() {
+        Graph a = contruct();
+        Traversal t = new DepthFirstTraversal(a) {
+            @Override
+            protected boolean visit(int v) {
+                _markedP.add(v);
+                return true;
+            }
+        };
+        t.traverse(Arrays.asList(6, 4));
+        assertEquals("[4, 3, 5, 6]", t._markedP.toString());
+    }
+
+    @Test
+    public void testTraversalReuse() {
+        Graph a = contruct();
+        a.remove(3);
+        a.remove(2);
+        Traversal t = new BreadthFirstTraversal(a) {
+            @Override
+            protected boolean visit(int v) {
+                _markedP.add(v);
+                return true;
+            }
+        };
+        for (int i = 0; i < 1000; i += 1) {
+            t.clear();
+            t._markedP.clear();
+            t.traverse(1);
+            assertEquals("[1, 5, 6]", t._markedP.toString());
+        }
+        a.add();
+        a.add();
+        assertEquals(7, a.add());
+        a.add(6, 7);
+        t.clear();
+        t._markedP.clear();
+        t.traverse(1);
+        assertEquals("[1, 5, 6, 7]", t._markedP.toString());
+        t.traverse(7);
+        assertEquals("[1, 5, 6, 7]", t._markedP.toString());
+        boolean[] marks = t.getMarked();
+        assertTrue(marks[1] && marks[5] && marks[6] && marks[7]);
+        assertFalse(marks[4]);
+        marks[4] = true;
+        assertFalse(t.marked(4));
+        t.mark(4);
+        assertTrue(t.getMarked()[4]);
+        t.clear();
+        assertFalse(t.getMarked()[1]);
+    }
+
+    @Test
+    public void testIntFringes() {
+        IntQueue q = new IntQueue();
+        IntStack s = new IntStack();
+        for (int v = 1; v <= 10; v += 1) {
+            q.add(v);
+            s.add(v);
+        }
+        for (int v = 1; v <= 5; v += 1) {
+            assertEquals(v, q.remove());
+            assertEquals(11 - v, s.remove());
+        }
+        for (int v = 11; v <= 40; v += 1) {
+            q.add(v);
+        }
+        assertEquals(35, q.size());
+        assertTrue(q.remove(20));
+        assertFalse(q.remove(20));
+        assertFalse(q.contains(3));
+        assertTrue(s.remove(3));
+        assertArrayEquals(new int[] {5, 4, 2, 1}, s.toArray());
+        for (int v = 6; v <= 40; v += 1) {
+            if (v != 20) {
+                assertEquals(v, q.peek());
+                assertEquals(v, q.remove());
+            }
+        }
+        assertTrue(q.isEmpty());
+
+        int[] key = {0, 50, 40, 30, 20, 10, 60};
+        IntHeap h = new IntHeap((u, v) -> Integer.compare(key[u], key[v]));
+        for (int v = 1; v <= 6; v += 1) {
+            h.add(v);
+        }
+        h.add(3);
+        assertEquals(6, h.size());
+        assertArrayEquals(new int[] {5, 4, 3, 2, 1, 6}, h.toArray());
+        key[6] = 5;
+        h.add(6);
+        assertTrue(h.remove(4));
+        assertFalse(h.contains(4));
+        assertArrayEquals(new int[] {6, 5, 3, 2, 1}, h.toArray());
+        assertEquals(6, h.remove());
+        h.clear();
+        assertTrue(h.isEmpty());
+        assertFalse(h.contains(5));
+    }
+
+    @Test
+    public void testQueueFringe() {
+        Graph a = contruct();
+        Traversal t = new Traversal(a, new LinkedList<>()) {
+            @Override
+            protected boolean visit(int v) {
+                _markedP.add(v);
+                return true;
+            }
+        };
+        t.traverse(Arrays.asList(1));
+        assertEquals("[1, 2, 5, 6, 4, 3]", t._markedP.toString());
+    }
+
+    @Test
+    public void testDFSDeepChain() {
+        int n = 100000;
+        Graph a = new DirectedGraph();
+        for (int v = 1; v <= n; v += 1) {
+            a.add();
+            if (v > 1) {
+                a.add(v - 1, v);
+                a.add(v, 1);
+            }
+        }
+        int[] post = new int[n];
+        int[] count = new int[2];
+        Traversal t = new DepthFirstTraversal(a) {
+            @Override
+            protected boolean visit(int v) {
+                count[0] += 1;
+                return true;
+            }
+
+            @Override
+            protected boolean shouldPostVisit(int v) {
+                return true;
+            }
+
+            @Override
+            protected boolean postVisit(int v) {
+                post[count[1]] = v;
+                count[1] += 1;
+                return v != n / 2 || count[1] == n;
+            }
+        };
+        t.traverse(1);
+        assertEquals(n, count[0]);
+        assertEquals(n / 2 + 1, count[1]);
+        t.traverse(Arrays.asList(n, 1));
+        assertEquals(n, count[0]);
+        assertEquals(n, count[1]);
+        for (int k = 0; k < n; k += 1) {
+            assertEquals(n - k, post[k]);
+        }
+    }
+
+    @Test
+    public void testParallelBFS() {
+        Graph a = contruct();
+        ParallelBreadthFirstTraversal p =
+            new ParallelBreadthFirstTraversal(a);
+        p.traverse(1);
+        assertArrayEquals(new int[] {-1, 0, 1, 3, 2, 1, 1}, p.depths());
+        assertEquals(4, p.parent(3));
+        assertEquals(1, p.parent(5));
+        assertEquals(0, p.parent(1));
+        p.clear();
+        p.traverse(4);
+        assertArrayEquals(new int[] {-1, -1, -1, 1, 0, 1, -1}, p.depths());
+
+        Random r = new Random(7);
+        int n = 20000;
+        Graph b = new DirectedGraph();
+        for (int v = 1; v <= n; v += 1) {
+            b.add();
+        }
+        for (int k = 0; k < 4 * n; k += 1) {
+            b.add(1 + r.nextInt(n), 1 + r.nextInt(n));
+        }
+        int[] expected = new int[n + 1];
+        Arrays.fill(expected, -1);
+        Traversal t = new BreadthFirstTraversal(b) {
+            @Override
+            protected boolean processSuccessor(int u, int v) {
+                if (expected[v] < 0) {
+                    expected[v] = expected[u] + 1;
+                }
+                return super.processSuccessor(u, v);
+            }
+        };
+        expected[1] = 0;
+        t.traverse(1);
+        AtomicInteger visits = new AtomicInteger();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        p = new ParallelBreadthFirstTraversal(b, pool) {
+            @Override
+            protected boolean visit(int v) {
+                visits.incrementAndGet();
+                return true;
+            }
+        };
+        p.traverse(1);
+        pool.shutdown();
+        int reached = 0;
+        for (int v = 1; v <= n; v += 1) {
+            assertEquals(expected[v], p.depth(v));
+            if (p.reached(v)) {
+                reached += 1;
+                if (v != 1) {
+                    assertTrue(b.contains(p.parent(v), v));
+                    assertEquals(p.depth(v) - 1, p.depth(p.parent(v)));
+                }
+            }
+        }
+        assertEquals(reached, visits.get());
+        assertTrue(reached > n / 2);
+    }
+
+    @Test
+    public void testDirectionOptimizingBFS() {
+        Graph a = contruct();
+        DirectionOptimizingTraversal d = new DirectionOptimizingTraversal(a);
+        d.traverse(1);
+        assertArrayEquals(new int[] {-1, 0, 1, 3, 2, 1, 1}, d.depths());
+        assertEquals(4, d.parent(3));
+
+        Random r = new Random(11);
+        int n = 5000;
+        Graph b = new DirectedGraph();
+        for (int v = 1; v <= n; v += 1) {
+            b.add();
+        }
+        for (int k = 0; k < 8 * n; k += 1) {
+            b.add(1 + r.nextInt(n), 1 + r.nextInt(n));
+        }
+        ParallelBreadthFirstTraversal p =
+            new ParallelBreadthFirstTraversal(b);
+        p.traverse(1);
+        int[] expected = p.depths();
+        ArrayList<DirectionOptimizingTraversal.Direction> taken =
+            new ArrayList<>();
+        for (int mode = 0; mode < 3; mode += 1) {
+            DirectionOptimizingTraversal.Direction forced =
+                mode == 0 ? null
+                : DirectionOptimizingTraversal.Direction.values()[mode - 1];
+            taken.clear();
+            d = new DirectionOptimizingTraversal(b) {
+                @Override
+                protected Direction direction(int depth, int frontierSize,
+                                              long frontierEdges,
+                                              int lastSize,
+                                              Direction previous) {
+                    Direction result = forced != null ? forced
+                        : super.direction(depth, frontierSize,
+                                          frontierEdges, lastSize,
+                                          previous);
+                    taken.add(result);
+                    return result;
+                }
+            };
+            d.traverse(1);
+            assertArrayEquals(expected, d.depths());
+            for (int v = 2; v <= n; v += 1) {
+                if (d.reached(v)) {
+                    assertTrue(b.contains(d.parent(v), v));
+                    assertEquals(d.depth(v) - 1, d.depth(d.parent(v)));
+                }
+            }
+            if (mode == 0) {
+                assertEquals(DirectionOptimizingTraversal.Direction.TOP_DOWN,
+                             taken.get(0));
+                assertTrue(taken.contains(
+                    DirectionOptimizingTraversal.Direction.BOTTOM_UP));
+            }
+        }
+    }
+
+    @Test
+    public void testOverridingFilter() {
+        Graph a = new GraphFilter(contruct()) {
+            @Override
+            public Iteration<Integer> successors(int v) {
+                ArrayList<Integer> result = new ArrayList<>();
+                for (int w : super.successors(v)) {
+                    if (v != 4 || w != 3) {
+                        result.add(w);
+                    }
+                }
+                return Iteration.iteration(result);
+            }
+        };
+        Traversal t = new BreadthFirstTraversal(a) {
+            @Override
+            protected boolean visit(int v) {
+                _markedP.add(v);
+                return true;
+            }
+        };
+        t.traverse(1);
+        assertEquals("[1, 2, 5, 6, 4]", t._markedP.toString());
+        t = new DepthFirstTraversal(a) {
+            @Override
+            protected boolean visit(int v) {
+                _markedP.add(v);
+                return true;
+            }
+        };
+        t.traverse(1);
+        assertEquals("[1, 2, 4, 5, 6]", t._markedP.toString());
+    }
+
+    @Test
+    public void testParallelBFSRestart() {
+        Graph a = new DirectedGraph();
+        for (int v = 1; v <= 4; v += 1) {
+            a.add();
+        }
+        a.add(1, 2);
+        a.add(2, 3);
+        int[] stops = {1};
+        ParallelBreadthFirstTraversal p =
+            new ParallelBreadthFirstTraversal(a) {
+                @Override
+                protected boolean visit(int v) {
+                    if (v == 2 && stops[0] > 0) {
+                        stops[0] -= 1;
+                        return false;
+                    }
+                    return true;
+                }
+            };
+        p.traverse(1);
+        assertTrue(p.reached(2));
+        assertFalse(p.reached(3));
+        p.traverse(4);
+        assertArrayEquals(new int[] {-1, 0, 1, 2, 0}, p.depths());
+        assertEquals(2, p.parent(3));
+        p.traverse(99);
+        p.traverse(Arrays.asList(0, -1));
+        assertEquals(-1, p.depth(99));
+        assertArrayEquals(new int[] {-1, 0, 1, 2, 0}, p.depths());
+
+        Random r = new Random(13);
+        int n = 20000;
+        Graph b = new DirectedGraph();
+        for (int v = 1; v <= n; v += 1) {
+            b.add();
+        }
+        for (int k = 0; k < 4 * n; k += 1) {
+            b.add(1 + r.nextInt(n), 1 + r.nextInt(n));
+        }
+        p = new ParallelBreadthFirstTraversal(b);
+        p.traverse(1);
+        int[] expected = p.depths();
+        AtomicInteger visits = new AtomicInteger();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        p = new ParallelBreadthFirstTraversal(b, pool) {
+            @Override
+            protected boolean visit(int v) {
+                return visits.incrementAndGet() % 5000 != 0;
+            }
+        };
+        p.traverse(1);
+        for (int k = 0; k < 10; k += 1) {
+            p.traverse(Arrays.asList());
+        }
+        pool.shutdown();
+        assertArrayEquals(expected, p.depths());
+    }
+
+    @Test
+    public void testDirectionOptimizingRestart() {
+        Graph a = new DirectedGraph();
+        for (int v = 1; v <= 4; v += 1) {
+            a.add();
+        }
+        a.add(1, 2);
+        a.add(2, 3);
+        int[] stops = {1};
+        DirectionOptimizingTraversal d = new DirectionOptimizingTraversal(a) {
+            @Override
+            protected boolean visit(int v) {
+                if (v == 2 && stops[0] > 0) {
+                    stops[0] -= 1;
+                    return false;
+                }
+                return true;
+            }
+        };
+        d.traverse(1);
+        assertTrue(d.reached(2));
+        assertFalse(d.reached(3));
+        d.traverse(4);
+        assertArrayEquals(new int[] {-1, 0, 1, 2, 0}, d.depths());
+        assertEquals(2, d.parent(3));
+        d.traverse(99);
+        assertEquals(-1, d.depth(99));
+        assertArrayEquals(new int[] {-1, 0, 1, 2, 0}, d.depths());
+
+        Random r = new Random(17);
+        int n = 5000;
+        Graph b = new DirectedGraph();
+        for (int v = 1; v <= n; v += 1) {
+            b.add();
+        }
+        for (int k = 0; k < 8 * n; k += 1) {
+            b.add(1 + r.nextInt(n), 1 + r.nextInt(n));
+        }
+        d = new DirectionOptimizingTraversal(b);
+        d.traverse(1);
+        int[] expected = d.depths();
+        int[] visits = {0};
+        d = new DirectionOptimizingTraversal(b) {
+            @Override
+            protected boolean visit(int v) {
+                visits[0] += 1;
+                return visits[0] % 700 != 0;
+            }
+        };
+        d.traverse(1);
+        for (int k = 0; k < 10; k += 1) {
+            d.traverse(Arrays.asList());
+        }
+        assertArrayEquals(expected, d.depths());
+    }
 }
@@ -10,6 +10,20 @@ package graph;
  */
 public class UndirectedGraph extends GraphObj {
 
+    /**
+     * An empty undirected graph.
+     */
+    public UndirectedGraph() {
+    }
+
+    /**
+     * An empty undirected graph that keeps its adjacency lists as selected
+     * by STORAGE.
+     */
+    public UndirectedGraph(Storage storage) {
+        super(storage);
+    }
+
     @Override
     public boolean isDirected() {
         return false;
@@ -20,10 +34,5 @@ public class UndirectedGraph extends GraphObj {
         return outDegree(v);
     }
 
-    @Override
-    public Iteration<Integer> predecessors(int v) {
-        return successors(v);
-    }
-
 
 }
@@ -0,0 +1,101 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+/**
+ * A Spliterator over the vertices of a Graph whose numbers lie in a
+ * given range, in increasing order.  It splits by halving the range, so
+ * the parts of a parallel stream get equal shares of vertex numbers, and
+ * it estimates the size of each part as the same share of all vertices.
+ * The graph must not change while it is in use.
+ *
+ * @author John Schulz
+ */
+class VertexSpliterator implements Spliterator.OfInt {
+
+    /**
+     * A Spliterator over all vertices of G.
+     */
+    VertexSpliterator(Graph G) {
+        this(G, 1, G.maxVertex() + 1, G.vertexSize());
+    }
+
+    /**
+     * A Spliterator over the vertices V of G with LO <= V < HI, of which
+     * there are estimated to be SIZE.
+     */
+    private VertexSpliterator(Graph G, int lo, int hi, long size) {
+        _G = G;
+        _lo = lo;
+        _hi = hi;
+        _size = size;
+    }
+
+    @Override
+    public boolean tryAdvance(IntConsumer action) {
+        while (_lo < _hi) {
+            int v = _lo;
+            _lo += 1;
+            if (_G.contains(v)) {
+                action.accept(v);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(IntConsumer action) {
+        for (int v = _lo; v < _hi; v += 1) {
+            if (_G.contains(v)) {
+                action.accept(v);
+            }
+        }
+        _lo = _hi;
+    }
+
+    @Override
+    public Spliterator.OfInt trySplit() {
+        int mid = (int) (((long) _lo + _hi) >>> 1);
+        if (mid <= _lo) {
+            return null;
+        }
+        long half = _size * (mid - _lo) / (_hi - _lo);
+        Spliterator.OfInt prefix = new VertexSpliterator(_G, _lo, mid, half);
+        _lo = mid;
+        _size -= half;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return _lo < _hi ? _size : 0;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | DISTINCT | SORTED | NONNULL;
+    }
+
+    @Override
+    public Comparator<? super Integer> getComparator() {
+        return null;
+    }
+
+    /**
+     * The graph whose vertices I deliver.
+     */
+    private final Graph _G;
+    /**
+     * The vertex numbers remaining to examine are _lo .. _hi-1.
+     */
+    private int _lo, _hi;
+    /**
+     * Estimated number of vertices remaining.
+     */
+    private long _size;
+}
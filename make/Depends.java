@@ -1,6 +1,7 @@
 package make;
 
 import graph.DirectedGraph;
+import graph.Graph;
 import graph.LabeledGraph;
 
 /**
@@ -18,4 +19,11 @@ class Depends extends LabeledGraph<Rule, Integer> {
     Depends() {
         super(new DirectedGraph());
     }
+
+    /**
+     * A dependency graph over the directed graph G.
+     */
+    Depends(Graph G) {
+        super(G);
+    }
 }
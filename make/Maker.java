@@ -1,6 +1,7 @@
 package make;
 
 import graph.DepthFirstTraversal;
+import graph.GraphBuilder;
 
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -75,13 +76,6 @@ class Maker {
      */
     void readMakefile(String makefileName) {
         Scanner inp;
-        String target;
-        ArrayList<String> dependencies;
-        ArrayList<String> commands;
-
-        target = null;
-        dependencies = null;
-        commands = null;
         try {
             inp = new Scanner(new File(makefileName));
         } catch (FileNotFoundException excp) {
@@ -89,6 +83,30 @@ class Maker {
             return;
         }
 
+        if (_depends.vertexSize() == 0) {
+            _loader = new GraphBuilder<>(true);
+        }
+        try {
+            readRules(inp);
+            if (_loader != null) {
+                _depends = _loader.label(new Depends(_loader.build()));
+            }
+        } finally {
+            _loader = null;
+        }
+    }
+
+    /**
+     * Read make rules from INP and add them to the dependence graph.
+     */
+    private void readRules(Scanner inp) {
+        String target;
+        ArrayList<String> dependencies;
+        ArrayList<String> commands;
+
+        target = null;
+        dependencies = null;
+        commands = null;
         while (inp.hasNextLine()) {
             String line = inp.nextLine();
             Matcher parsed;
@@ -169,6 +187,24 @@ class Maker {
         }
     }
 
+    /**
+     * Add a vertex for RULE to my dependence graph and return it.
+     */
+    int addVertex(Rule rule) {
+        return _loader != null ? _loader.add(rule) : _depends.add(rule);
+    }
+
+    /**
+     * Add an edge from U to V, labeled N, to my dependence graph.
+     */
+    void addDependency(int u, int v, int n) {
+        if (_loader != null) {
+            _loader.add(u, v, n);
+        } else {
+            _depends.add(u, v, n);
+        }
+    }
+
     /**
      * Return my dependence graph.
      */
@@ -200,6 +236,11 @@ class Maker {
      * The makefile dependency graph.
      */
     private Depends _depends = new Depends();
+    /**
+     * Collects the dependence graph while a makefile is read into an
+     * empty graph, and otherwise null.
+     */
+    private GraphBuilder<Rule, Integer> _loader;
     /**
      * Mapping of target names to their ages.
      */
@@ -17,9 +17,8 @@ class Rule {
      */
     Rule(Maker maker, String target) {
         _maker = maker;
-        _depends = _maker.getGraph();
         _target = target;
-        _vertex = _depends.add(this);
+        _vertex = _maker.addVertex(this);
         _time = _maker.getInitialAge(target);
         _finished = false;
     }
@@ -28,8 +27,9 @@ class Rule {
      * Add the target of DEPENDENT to my dependencies.
      */
     void addDependency(Rule dependent) {
-        _depends.add(_vertex, dependent.getVertex(),
-                _depends.outDegree(_vertex));
+        _maker.addDependency(_vertex, dependent.getVertex(),
+                _dependencyCount);
+        _dependencyCount += 1;
     }
 
     /**
@@ -79,8 +79,9 @@ class Rule {
      * a node.
      */
     private void checkFinishedDependencies() {
-        for (int x : _depends.successors(_vertex)) {
-            Rule nextRule = _depends.getLabel(x);
+        Depends depends = _maker.getGraph();
+        for (int x : depends.successors(_vertex)) {
+            Rule nextRule = depends.getLabel(x);
             if (nextRule.isUnfinished()) {
                 error("Error: There are unfinished dependencies.");
             }
@@ -125,9 +126,10 @@ class Rule {
      */
     private Maker _maker;
     /**
-     * The Maker's dependency graph.
+     * The number of dependencies added to me so far, which is used to
+     * label the next one.
      */
-    private Depends _depends;
+    private int _dependencyCount;
     /**
      * My target.
      */
@@ -1,6 +1,8 @@
 package trip;
 
 import graph.DirectedGraph;
+import graph.Graph;
+import graph.GraphBuilder;
 import graph.LabeledGraph;
 import graph.SimpleShortestPaths;
 
@@ -33,16 +35,18 @@ class Trip {
     void readMap(String name) {
         int n;
         n = 0;
+        GraphBuilder<Location, Road> loader = new GraphBuilder<>(true);
         try {
             Scanner inp = new Scanner(new File(name));
             while (inp.hasNext()) {
                 n += 1;
                 switch (inp.next()) {
                 case "L":
-                    addLocation(inp.next(), inp.nextDouble(), inp.nextDouble());
+                    addLocation(loader, inp.next(), inp.nextDouble(),
+                                inp.nextDouble());
                     break;
                 case "R":
-                    addRoad(inp.next(), inp.next(), inp.nextDouble(),
+                    addRoad(loader, inp.next(), inp.next(), inp.nextDouble(),
                             Direction.parse(inp.next()), inp.next());
                     break;
                 default:
@@ -50,6 +54,7 @@ class Trip {
                     break;
                 }
             }
+            _map = loader.label(new RoadMap(loader.build()));
         } catch (FileNotFoundException excp) {
             error(excp.getMessage());
         } catch (InputMismatchException excp) {
@@ -155,23 +160,26 @@ class Trip {
     }
 
     /**
-     * Add a new location named NAME at (X, Y).
+     * Add a new location named NAME at (X, Y) to the map being built
+     * by LOADER.
      */
-    private void addLocation(String name, double x, double y) {
+    private void addLocation(GraphBuilder<Location, Road> loader,
+                             String name, double x, double y) {
         if (_sites.containsKey(name)) {
             error("multiple entries for %s", name);
         }
-        int v = _map.add(new Location(name, x, y));
+        int v = loader.add(new Location(name, x, y));
         _sites.put(name, v);
     }
 
     /**
      * Add a stretch of road named NAME from the Location named FROM
      * to the location named TO, running in direction DIR, and
-     * LENGTH miles long.  Add a reverse segment going back from TO
-     * to FROM.
+     * LENGTH miles long, to the map being built by LOADER.  Add a
+     * reverse segment going back from TO to FROM.
      */
-    private void addRoad(String from, String name, double length,
+    private void addRoad(GraphBuilder<Location, Road> loader,
+                         String from, String name, double length,
                          Direction dir, String to) {
         Integer v0 = _sites.get(from),
                 v1 = _sites.get(to);
@@ -181,10 +189,8 @@ class Trip {
         } else if (v1 == null) {
             error("location %s not defined", to);
         } else {
-            _map.add(_sites.get(from),
-                    _sites.get(to), new Road(name, dir, length));
-            _map.add(_sites.get(to),
-                    _sites.get(from), new Road(name, dir.reverse(), length));
+            loader.add(v0, v1, new Road(name, dir, length));
+            loader.add(v1, v0, new Road(name, dir.reverse(), length));
         }
 
     }
@@ -192,7 +198,7 @@ class Trip {
     /**
      * Represents the network of Locations and Roads.
      */
-    private RoadMap _map = new RoadMap();
+    private RoadMap _map = new RoadMap(new DirectedGraph());
     /**
      * Mapping of Location names to corresponding map vertices.
      */
@@ -204,10 +210,10 @@ class Trip {
      */
     private static class RoadMap extends LabeledGraph<Location, Road> {
         /**
-         * An empty RoadMap.
+         * A RoadMap whose network is G.
          */
-        RoadMap() {
-            super(new DirectedGraph());
+        RoadMap(Graph G) {
+            super(G);
         }
     }
 